@@ -1,14 +1,81 @@
 package com.deloitte.absolute_cinema.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 public class AppConfig {
 
+    // JPA no longer creates tables, so it starts only once SchemaMigrator has brought them up to date
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class);
+    }
+
+    /*
+     * Boot backs off its own executor once the pools below exist, and Spring MVC then runs
+     * StreamingResponseBody and Callable handlers, such as the e-ticket export, on a new thread
+     * each. Defined under Boot's name so MVC uses it, sized by spring.task.execution.pool.*.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    // Bounded pool for PDF rendering work that runs off the request thread
+    @Bean
+    public ThreadPoolTaskExecutor documentRenderExecutor(@Value("${pdf.render.threads}") int threads,
+                                                         @Value("${pdf.render.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-render-");
+        // When saturated, the submitting thread renders the document itself
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Background pipeline that pre-renders documents for newly confirmed bookings
+    @Bean
+    public ThreadPoolTaskExecutor documentPrerenderExecutor(@Value("${pdf.prerender.threads}") int threads,
+                                                            @Value("${pdf.prerender.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-prerender-");
+        return executor;
+    }
+
+    // Customer emails sent after a request has returned, such as showtime cancellations
+    @Bean
+    public ThreadPoolTaskExecutor notificationExecutor(@Value("${notification.email.threads}") int threads,
+                                                       @Value("${notification.email.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("notification-");
+        return executor;
+    }
+
+    // Writes of fetched OMDb reviews to movie_reviews, kept off the OMDb client's threads
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public ThreadPoolTaskExecutor reviewStoreExecutor(@Value("${review.cache.store-threads}") int threads,
+                                                      @Value("${review.cache.store-queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("review-store-");
+        return executor;
     }
 }
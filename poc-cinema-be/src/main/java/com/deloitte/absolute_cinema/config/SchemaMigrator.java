@@ -0,0 +1,198 @@
+package com.deloitte.absolute_cinema.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the schema up to date from the versioned scripts in db/migration, named
+ * V&lt;version&gt;__&lt;description&gt;.sql, and those in db/migration/&lt;database&gt; (such as
+ * "postgresql") for the database in use only. Versions are shared across both. Scripts missing from
+ * the "schema_history" table are run in version order, each in its own transaction together with its
+ * history row, before JPA starts. Database-specific scripts are sent to the driver whole, so they
+ * may contain procedural blocks with semicolons of their own.
+ * A database whose tables Hibernate created before the scripts existed has no history yet; it is
+ * recorded at the first version without running it. Scripts edited after they were applied are
+ * logged, never re-run.
+ */
+@Component
+@Slf4j
+public class SchemaMigrator implements InitializingBean {
+    private static final String LOCATION = "classpath:db/migration/V*__*.sql";
+    private static final String VENDOR_LOCATION = "classpath*:db/migration/%s/V*__*.sql";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+    private static final String HISTORY_TABLE = "schema_history";
+    // Present in every schema Hibernate created; without a history it means the database predates the scripts
+    private static final String EXISTING_SCHEMA_TABLE = "showtimes";
+
+    private static final String CREATE_HISTORY = "CREATE TABLE IF NOT EXISTS schema_history (" +
+            "version INTEGER PRIMARY KEY, description VARCHAR(255) NOT NULL, checksum BIGINT NOT NULL, " +
+            "installed_at TIMESTAMP NOT NULL)";
+    private static final String INSERT_HISTORY =
+            "INSERT INTO schema_history (version, description, checksum, installed_at) VALUES (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+    private final ResourcePatternResolver resourcePatternResolver;
+
+    public SchemaMigrator(DataSource dataSource, ResourcePatternResolver resourcePatternResolver) {
+        this.dataSource = dataSource;
+        this.resourcePatternResolver = resourcePatternResolver;
+    }
+
+    private record Migration(int version, String description, Resource script, long checksum,
+                             boolean vendorSpecific) {
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException, SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            List<Migration> migrations = migrations(vendor(connection));
+            boolean existingSchema = !tableExists(connection, HISTORY_TABLE)
+                    && tableExists(connection, EXISTING_SCHEMA_TABLE);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_HISTORY);
+            }
+            Map<Integer, Long> applied = applied(connection);
+            if (existingSchema && !migrations.isEmpty()) {
+                Migration baseline = migrations.get(0);
+                record(connection, baseline);
+                applied.put(baseline.version(), baseline.checksum());
+                log.info("Recorded the existing schema at version {} without running it", baseline.version());
+            }
+
+            for (Migration migration : migrations) {
+                Long checksum = applied.get(migration.version());
+                if (checksum == null) {
+                    apply(connection, migration);
+                } else if (checksum != migration.checksum()) {
+                    log.warn("Migration V{} ({}) changed after it was applied", migration.version(),
+                            migration.description());
+                }
+            }
+        }
+    }
+
+    private List<Migration> migrations(String vendor) throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        addMigrations(migrations, LOCATION, false);
+        addMigrations(migrations, String.format(VENDOR_LOCATION, vendor), true);
+        migrations.sort(Comparator.comparingInt(Migration::version));
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() == migrations.get(i - 1).version()) {
+                throw new IllegalStateException("Two migrations have version " + migrations.get(i).version());
+            }
+        }
+        return migrations;
+    }
+
+    private void addMigrations(List<Migration> migrations, String location, boolean vendorSpecific)
+            throws IOException {
+        for (Resource script : resourcePatternResolver.getResources(location)) {
+            Matcher name = SCRIPT_NAME.matcher(script.getFilename());
+            if (!name.matches()) {
+                throw new IllegalStateException("Unexpected migration name: " + script.getFilename());
+            }
+            migrations.add(new Migration(Integer.parseInt(name.group(1)), name.group(2).replace('_', ' '),
+                    script, checksum(script), vendorSpecific));
+        }
+    }
+
+    // "postgresql" or "h2", as the directory of the database's own scripts
+    private static String vendor(Connection connection) throws SQLException {
+        return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).replace(" ", "");
+    }
+
+    // The history row commits with the script, so a failed script is retried on the next start
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        long start = System.currentTimeMillis();
+        connection.setAutoCommit(false);
+        try {
+            EncodedResource script = new EncodedResource(migration.script(), StandardCharsets.UTF_8);
+            if (migration.vendorSpecific()) {
+                ScriptUtils.executeSqlScript(connection, script, false, false, ScriptUtils.DEFAULT_COMMENT_PREFIX,
+                        ScriptUtils.EOF_STATEMENT_SEPARATOR, ScriptUtils.DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+                        ScriptUtils.DEFAULT_BLOCK_COMMENT_END_DELIMITER);
+            } else {
+                ScriptUtils.executeSqlScript(connection, script);
+            }
+            record(connection, migration);
+            connection.commit();
+        } catch (RuntimeException | SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        log.info("Applied migration V{} ({}) in {} ms", migration.version(), migration.description(),
+                System.currentTimeMillis() - start);
+    }
+
+    private static void record(Connection connection, Migration migration) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_HISTORY)) {
+            insert.setInt(1, migration.version());
+            insert.setString(2, migration.description());
+            insert.setLong(3, migration.checksum());
+            insert.setTimestamp(4, Timestamp.valueOf(LocalDateTime.now()));
+            insert.executeUpdate();
+        }
+    }
+
+    private static Map<Integer, Long> applied(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT version, checksum FROM schema_history")) {
+            while (rs.next()) {
+                applied.put(rs.getInt(1), rs.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    // Unquoted names are stored lower case by PostgreSQL and upper case by default H2
+    private static boolean tableExists(Connection connection, String table) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        for (String name : List.of(table, table.toUpperCase())) {
+            try (ResultSet rs = metaData.getTables(connection.getCatalog(), null, name,
+                    new String[]{"TABLE", "PARTITIONED TABLE", "BASE TABLE"})) {
+                if (rs.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long checksum(Resource script) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = script.getInputStream()) {
+            crc.update(in.readAllBytes());
+        }
+        return crc.getValue();
+    }
+}
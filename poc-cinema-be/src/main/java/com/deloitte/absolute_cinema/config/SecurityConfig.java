@@ -1,6 +1,7 @@
 package com.deloitte.absolute_cinema.config;
 
 import com.deloitte.absolute_cinema.security.JwtAuthFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -31,6 +32,13 @@ public class SecurityConfig {
                 .csrf(AbstractHttpConfigurer::disable)
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // Enable CORS
                 .authorizeHttpRequests(auth -> auth
+                        // Streaming and async responses re-dispatch after the original request was authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Error pages render the status of a request that was already authorized, e.g. 400 for a rejected poster
+                        .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll()
+                        // Health is for load balancers; metrics and any other actuator endpoint are admin only
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers(
                                 "/api/auth/**",
                                 "/v3/api-docs/**",
@@ -39,12 +47,20 @@ public class SecurityConfig {
                                 "/swagger-ui.html",
                                 "/swagger-resources/**",
                                 "/webjars/**",
-                                "/actuator/**",
                                 "/api/bookings",
                                 "/api/health",
+                                "/api/gate/**",
                                 "/api/movies/all",
+                                "/api/movies/page",
                                 "/api/movies/filter",
+                                "/api/movies/browse",
+                                "/api/movies/search",
+                                "/api/movies/suggest",
+                                "/api/movies/trending",
+                                "/api/movies/*/poster",
+                                "/api/movies/*/also-liked",
                                 "/api/movies/filter-options/**",
+                                "/api/showtimes/upcoming",
                                 "/api/halls/available",
                                 "/api/halls/reserve",
                                 "/api/halls/reservations",
@@ -65,7 +81,7 @@ public class SecurityConfig {
         configuration.setAllowedOrigins(Arrays.asList("*")); // Allow all origins
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS")); // Allow all common
                                                                                                    // HTTP methods
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type")); // Allow
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "X-Gate-Key")); // Allow
                                                                                                           // common
                                                                                                           // headers
         configuration.setExposedHeaders(Arrays.asList("Authorization")); // Expose Authorization header to client
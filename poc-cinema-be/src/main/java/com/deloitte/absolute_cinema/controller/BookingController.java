@@ -3,29 +3,39 @@ package com.deloitte.absolute_cinema.controller;
 import com.deloitte.absolute_cinema.entity.Booking;
 import com.deloitte.absolute_cinema.entity.BookingStatus;
 import com.deloitte.absolute_cinema.entity.Guest;
+import com.deloitte.absolute_cinema.entity.Role;
 import com.deloitte.absolute_cinema.entity.User;
+import com.deloitte.absolute_cinema.service.BookingDocumentService;
 import com.deloitte.absolute_cinema.service.BookingService;
 import com.deloitte.absolute_cinema.service.GuestService;
-import com.deloitte.absolute_cinema.service.PdfGenerationService;
+import com.deloitte.absolute_cinema.service.PdfGenerationService.DocumentType;
+import com.deloitte.absolute_cinema.service.TicketExportService;
 import com.deloitte.absolute_cinema.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.catalina.connector.ClientAbortException;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.time.LocalDate;
 import java.util.List;
 
 
 @RestController
+@Slf4j
 @RequestMapping("/api/bookings")
 @SecurityRequirement(name = "Bearer Authentication")
 @Tag(name = "Booking API", description = "Endpoints for managing movie bookings")
@@ -34,14 +44,17 @@ public class BookingController {
     private final BookingService bookingService;
     private final UserService userService;
     private final GuestService guestService;
-    private final PdfGenerationService pdfGenerationService;
+    private final BookingDocumentService bookingDocumentService;
+    private final TicketExportService ticketExportService;
 
     public BookingController(BookingService bookingService, UserService userService,
-                             GuestService guestService, PdfGenerationService pdfGenerationService) {
+                             GuestService guestService, BookingDocumentService bookingDocumentService,
+                             TicketExportService ticketExportService) {
         this.bookingService = bookingService;
         this.userService = userService;
         this.guestService = guestService;
-        this.pdfGenerationService = pdfGenerationService;
+        this.bookingDocumentService = bookingDocumentService;
+        this.ticketExportService = ticketExportService;
     }
 
     @PostMapping
@@ -209,15 +222,7 @@ public class BookingController {
             HttpServletResponse response) throws IOException {
 
         Booking booking = bookingService.getBookingById(bookingId);
-        byte[] pdfContent = pdfGenerationService.generateETicket(booking);
-
-        response.setContentType(MediaType.APPLICATION_PDF_VALUE);
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=e-ticket-" + bookingId + ".pdf");
-        response.setContentLength(pdfContent.length);
-
-        response.getOutputStream().write(pdfContent);
-        response.getOutputStream().flush();
+        sendDocument(response, booking, DocumentType.E_TICKET);
     }
 
     @GetMapping("/{bookingId}/receipt")
@@ -228,14 +233,91 @@ public class BookingController {
             HttpServletResponse response) throws IOException {
 
         Booking booking = bookingService.getBookingById(bookingId);
-        byte[] pdfContent = pdfGenerationService.generateReceipt(booking);
+        sendDocument(response, booking, DocumentType.RECEIPT);
+    }
+
+    @GetMapping("/e-tickets/export")
+    @Operation(summary = "Export e-tickets",
+            description = "Admin/staff only. Streams a ZIP of all confirmed e-tickets for a showtime, " +
+                    "or for every showtime screening between startDate and endDate (inclusive)")
+    public ResponseEntity<StreamingResponseBody> exportETickets(
+            HttpServletRequest request,
+            @RequestParam(required = false) Long showtimeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
 
+        String token = userService.extractBearerToken(request);
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Role role = userService.getUserIdFromToken(token).getRole();
+        if (role != Role.ADMIN && role != Role.STAFF) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        List<Long> bookingIds;
+        String archiveName;
+        if (showtimeId != null) {
+            bookingIds = ticketExportService.findBookingIdsForShowtime(showtimeId);
+            archiveName = "e-tickets-showtime-" + showtimeId + ".zip";
+        } else if (startDate != null && endDate != null && !endDate.isBefore(startDate)) {
+            bookingIds = ticketExportService.findBookingIdsForScreeningTime(
+                    startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+            archiveName = "e-tickets-" + startDate + "-to-" + endDate + ".zip";
+        } else {
+            // Either a showtime or a valid date range is required
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = out -> ticketExportService.writeTicketArchive(bookingIds, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + archiveName)
+                .body(body);
+    }
+
+    private void sendDocument(HttpServletResponse response, Booking booking, DocumentType type) throws IOException {
         response.setContentType(MediaType.APPLICATION_PDF_VALUE);
         response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
-                "attachment; filename=receipt-" + bookingId + ".pdf");
-        response.setContentLength(pdfContent.length);
+                "attachment; filename=" + type.getFileName() + "-" + booking.getId() + ".pdf");
+
+        try {
+            if (bookingDocumentService.isStreaming()) {
+                // No Content-Length: the container sends the document with chunked transfer encoding
+                bookingDocumentService.streamDocument(booking, type, response.getOutputStream());
+            } else {
+                try (FileChannel pdf = bookingDocumentService.openDocument(booking, type)) {
+                    writeFile(response, pdf);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!isClientAbort(e)) {
+                throw e;
+            }
+            // The client went away mid-download; nothing left to send
+            log.debug("Download of {} for booking {} aborted by client", type.getFileName(), booking.getId());
+        }
+    }
+
+    // Copies the cached file to the response with FileChannel.transferTo, without staging it on the heap
+    private void writeFile(HttpServletResponse response, FileChannel pdf) throws IOException {
+        long size = pdf.size();
+        response.setContentLengthLong(size);
 
-        response.getOutputStream().write(pdfContent);
-        response.getOutputStream().flush();
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        long position = 0;
+        while (position < size) {
+            position += pdf.transferTo(position, size - position, out);
+        }
+        response.flushBuffer();
+    }
+
+    private boolean isClientAbort(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ClientAbortException) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
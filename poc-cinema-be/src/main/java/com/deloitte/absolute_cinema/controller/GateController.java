@@ -0,0 +1,43 @@
+package com.deloitte.absolute_cinema.controller;
+
+import com.deloitte.absolute_cinema.dto.GateScanDTO;
+import com.deloitte.absolute_cinema.dto.GateValidationDTO;
+import com.deloitte.absolute_cinema.service.GateService;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+@RestController
+@RequestMapping("/api/gate")
+public class GateController {
+
+    private final GateService gateService;
+    private final byte[] deviceKey;
+
+    public GateController(GateService gateService, @Value("${gate.device-key}") String deviceKey) {
+        this.gateService = gateService;
+        this.deviceKey = deviceKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Gate scanners authenticate with a shared device key rather than a user token,
+    // so a scan never needs a session lookup
+    @PostMapping("/validate")
+    @Operation(summary = "Validate a ticket at the gate", description = "Verifies a scanned QR payload and admits its seats once.")
+    public ResponseEntity<GateValidationDTO> validate(@RequestHeader(value = "X-Gate-Key", required = false) String gateKey,
+                                                      @RequestBody GateScanDTO scan) {
+        if (gateKey == null || !MessageDigest.isEqual(deviceKey, gateKey.getBytes(StandardCharsets.UTF_8))) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        GateValidationDTO validation = gateService.validate(scan.getPayload());
+        return switch (validation.getResult()) {
+            case ADMITTED -> ResponseEntity.ok(validation);
+            case ALREADY_ADMITTED -> ResponseEntity.status(HttpStatus.CONFLICT).body(validation);
+            default -> ResponseEntity.status(HttpStatus.FORBIDDEN).body(validation);
+        };
+    }
+}
@@ -1,28 +1,47 @@
 package com.deloitte.absolute_cinema.controller;
 
 import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.dto.MovieFilterResultDTO;
+import com.deloitte.absolute_cinema.dto.MoviePageDTO;
+import com.deloitte.absolute_cinema.dto.MovieSuggestionDTO;
 import com.deloitte.absolute_cinema.dto.PopularMovieDTO;
+import com.deloitte.absolute_cinema.dto.TrendingMovieDTO;
+import com.deloitte.absolute_cinema.entity.User;
+import com.deloitte.absolute_cinema.service.MovieFacetIndex;
 import com.deloitte.absolute_cinema.service.MovieService;
+import com.deloitte.absolute_cinema.service.PosterStore;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/movies")
 public class MovieController {
 
     private final MovieService movieService;
-    private final RestTemplate restTemplate;
-    private static final String REVIEW_API_URL = "https://www.omdbapi.com/?t=%s&apikey=ebddc771";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
-    public MovieController(MovieService movieService, RestTemplate restTemplate) {
+    public MovieController(MovieService movieService) {
         this.movieService = movieService;
-        this.restTemplate = restTemplate;
     }
 
     // Get all movies
@@ -31,6 +50,19 @@ public class MovieController {
         return ResponseEntity.ok(movieService.getAllMovies());
     }
     
+    // Keyset-paged listing with optional sparse fieldsets, e.g. ?fields=id,title,posterUrl,rating
+    @GetMapping("/page")
+    public ResponseEntity<MoviePageDTO> getMoviePage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) List<String> fields) {
+        try {
+            return ResponseEntity.ok(movieService.getMoviePage(after, Math.max(1, Math.min(limit, 100)), fields));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/filter")
     public ResponseEntity<List<MovieDTO>> filterMovies(
             @RequestParam String category,
@@ -52,6 +84,37 @@ public class MovieController {
         return ResponseEntity.ok(movies);
     }
     
+    // Combined filter: values within a facet are OR-ed, facets are AND-ed; one page of at most 100
+    @GetMapping("/browse")
+    public ResponseEntity<MovieFilterResultDTO> browseMovies(
+            @RequestParam(required = false) List<String> genre,
+            @RequestParam(required = false) List<String> language,
+            @RequestParam(required = false) List<String> ageRating,
+            @RequestParam(required = false) Double minReview,
+            @RequestParam(required = false) Double maxReview,
+            @RequestParam(required = false) Integer fromYear,
+            @RequestParam(required = false) Integer toYear,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(movieService.filterMovies(new MovieFacetIndex.Query(
+                genre, language, ageRating, minReview, maxReview, fromYear, toYear),
+                Math.max(0, page), Math.max(1, Math.min(size, 100))));
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<List<MovieDTO>> searchMovies(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(movieService.searchMovies(q, Math.max(1, Math.min(limit, 100))));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<MovieSuggestionDTO>> suggestMovies(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(movieService.suggestTitles(prefix, Math.max(1, Math.min(limit, 50))));
+    }
+    
     @GetMapping("/filter-options/{category}")
     public ResponseEntity<List<String>> getFilterOptions(@PathVariable String category) {
         List<String> options;
@@ -71,10 +134,63 @@ public class MovieController {
         return ResponseEntity.ok(options);
     }
 
-    // Get movie by ID
+    // Get movie by ID; the view counts for trending once per user and dedup window
     @GetMapping("/{id}")
-    public ResponseEntity<MovieDTO> getMovieById(@PathVariable Long id) {
-        return ResponseEntity.ok(movieService.getMovieById(id));
+    public ResponseEntity<MovieDTO> getMovieById(@PathVariable Long id, @AuthenticationPrincipal User user) {
+        MovieDTO movie = movieService.getMovieById(id);
+        movieService.recordMovieView(id, user.getId());
+        return ResponseEntity.ok(movie);
+    }
+
+    // Movies most often favourited or booked by the same users as this one
+    @GetMapping("/{id}/also-liked")
+    public ResponseEntity<List<MovieDTO>> getAlsoLikedMovies(@PathVariable Long id,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(movieService.getAlsoLikedMovies(id, Math.max(1, Math.min(limit, 50))));
+    }
+
+    // Poster image; versioned links (?v=<hash>, as stored in posterUrl) may be cached forever
+    @GetMapping("/{id}/poster")
+    public void getPoster(@PathVariable Long id,
+                          @RequestParam(required = false) String v,
+                          @RequestParam(required = false) Integer w,
+                          HttpServletRequest request,
+                          HttpServletResponse response) throws IOException {
+        PosterStore.Poster poster = movieService.getPoster(id, w);
+        if (poster == null) {
+            String posterUrl = movieService.getMovieById(id).getPosterUrl();
+            if (posterUrl == null) {
+                response.sendError(HttpStatus.NOT_FOUND.value());
+            } else {
+                response.sendRedirect(posterUrl);
+            }
+            return;
+        }
+
+        // The entity tag starts with the poster's content hash
+        boolean versioned = poster.etag().split("-", 2)[0].equals(v);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, versioned ? "public, max-age=31536000, immutable" : "no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + poster.etag() + "\"")) {
+            return;
+        }
+        response.setContentType(poster.contentType());
+        long size = Files.size(poster.file());
+        response.setContentLengthLong(size);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat hands the file to sendfile(2) once the request completes, without copying it through the heap
+            request.setAttribute(SENDFILE_FILENAME, poster.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(poster.file())) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += file.transferTo(position, size - position, out);
+            }
+        }
     }
 
     // Add a new movie
@@ -99,38 +215,30 @@ public class MovieController {
         return ResponseEntity.ok(movieService.updateMovie(id, movieDTO));
     }
 
-    // Fetch movie review from an external API
+    // Fetch movie review from an external API; completes asynchronously, off the request thread
     @GetMapping("/review/byId/{id}")
-    public ResponseEntity<Map<String, Object>> getMovieReview(@PathVariable Long id) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getMovieReview(@PathVariable Long id) {
         MovieDTO movie = movieService.getMovieById(id);
-        if (movie == null) {
-            return ResponseEntity.notFound().build();
-        }
-
-        Map<String, Object> response = movieService.getMovieReviewWithCache(id, movie.getTitle());
-        if (response.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        return ResponseEntity.ok(response);
+        return movieService.getMovieReviewWithCache(id, movie.getTitle())
+                .thenApply(this::reviewResponse);
     }
 
     // Fetch movie review by movie name
     @GetMapping("/review/byTitle/{title}")
-    public ResponseEntity<Map<String, Object>> getMovieReviewByName(@PathVariable String title) {
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> getMovieReviewByName(@PathVariable String title) {
         if (title == null || title.trim().isEmpty()) {
-            return ResponseEntity.badRequest().build();
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
 
         // Generate a UUID-based ID for caching purposes
         Long generatedId = UUID.randomUUID().getMostSignificantBits() & Long.MAX_VALUE;
 
-        Map<String, Object> response = movieService.getMovieReviewWithCache(generatedId, title);
-        if (response.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
+        return movieService.getMovieReviewWithCache(generatedId, title)
+                .thenApply(this::reviewResponse);
+    }
 
-        return ResponseEntity.ok(response);
+    private ResponseEntity<Map<String, Object>> reviewResponse(Map<String, Object> review) {
+        return review.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(review);
     }
 
     @GetMapping("/popular-this-week")
@@ -138,4 +246,22 @@ public class MovieController {
         List<PopularMovieDTO> popularMovies = movieService.getPopularMoviesThisWeek();
         return ResponseEntity.ok(popularMovies);
     }
+
+    // Movies ranked by recent bookings and views, decaying continuously instead of resetting weekly
+    @GetMapping("/trending")
+    public ResponseEntity<List<TrendingMovieDTO>> getTrendingMovies(@RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(movieService.getTrendingMovies(Math.max(1, Math.min(limit, 50))));
+    }
+
+    // Most booked movies over a window: today, 7d or 30d
+    @GetMapping("/popular")
+    public ResponseEntity<List<PopularMovieDTO>> getPopularMovies(
+            @RequestParam(defaultValue = "7d") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        try {
+            return ResponseEntity.ok(movieService.getPopularMovies(window, Math.max(1, Math.min(limit, 50))));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
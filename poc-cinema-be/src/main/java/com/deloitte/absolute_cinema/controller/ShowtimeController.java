@@ -1,22 +1,44 @@
 package com.deloitte.absolute_cinema.controller;
+import com.deloitte.absolute_cinema.dto.FreeSlotDTO;
+import com.deloitte.absolute_cinema.dto.MovieScheduleDTO;
 import com.deloitte.absolute_cinema.dto.ShowtimeBookingDTO;
 import com.deloitte.absolute_cinema.dto.ShowtimeDTO;
+import com.deloitte.absolute_cinema.dto.ShowtimeImportResultDTO;
 import com.deloitte.absolute_cinema.dto.ShowtimeLazyDTO;
+import com.deloitte.absolute_cinema.dto.UpcomingShowtimeDTO;
+import com.deloitte.absolute_cinema.entity.Role;
+import com.deloitte.absolute_cinema.exception.ShowtimeConflictException;
+import com.deloitte.absolute_cinema.service.ShowtimeImportService;
 import com.deloitte.absolute_cinema.service.ShowtimeService;
+import com.deloitte.absolute_cinema.service.UserService;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/showtimes")
 @SecurityRequirement(name = "Bearer Authentication")
 public class ShowtimeController {
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+
     private final ShowtimeService showtimeService;
+    private final ShowtimeImportService showtimeImportService;
+    private final UserService userService;
 
-    public ShowtimeController(ShowtimeService showtimeService) {
+    public ShowtimeController(ShowtimeService showtimeService, ShowtimeImportService showtimeImportService,
+                              UserService userService) {
         this.showtimeService = showtimeService;
+        this.showtimeImportService = showtimeImportService;
+        this.userService = userService;
     }
 
     @GetMapping("/movies/{movieId}")
@@ -33,6 +55,29 @@ public class ShowtimeController {
         }
     }
 
+    // Compact upcoming schedule: movie and cinemas once, showtimes grouped by cinema and date
+    @GetMapping("/movies/{movieId}/schedule")
+    public ResponseEntity<MovieScheduleDTO> getMovieSchedule(@PathVariable Long movieId,
+                                                             @RequestParam(defaultValue = "7") int days) {
+        return ResponseEntity.ok(showtimeService.getMovieSchedule(movieId, Math.max(1, Math.min(days, 30))));
+    }
+
+    // What's on: showtimes starting from "from" (default now) until "to", in the given cinemas or all, earliest first
+    @GetMapping("/upcoming")
+    public ResponseEntity<Object> getUpcomingShowtimes(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) List<Long> cinemaIds,
+            @RequestParam(defaultValue = "20") int limit) {
+        try {
+            List<UpcomingShowtimeDTO> showtimes = showtimeService.getUpcomingShowtimes(
+                    from, to, cinemaIds, Math.max(1, Math.min(limit, 100)));
+            return ResponseEntity.ok(showtimes);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/cinemas/{cinemaId}")
     public ResponseEntity<Object> getShowtimesByCinema(@PathVariable Long cinemaId) {
         try {
@@ -46,6 +91,19 @@ public class ShowtimeController {
         }
     }
 
+    // Free stretches of a hall on a day; with movieId only those long enough for that movie
+    @GetMapping("/cinemas/{cinemaId}/halls/{hall}/free-slots")
+    public ResponseEntity<Object> getFreeSlots(@PathVariable Long cinemaId, @PathVariable int hall,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                               @RequestParam(required = false) Long movieId) {
+        try {
+            List<FreeSlotDTO> slots = showtimeService.getFreeSlots(cinemaId, hall, date, movieId);
+            return ResponseEntity.ok(slots);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping
     public ResponseEntity<Object> getAllShowtimes() {
         try {
@@ -64,11 +122,31 @@ public class ShowtimeController {
         try {
             ShowtimeLazyDTO createdShowtime = showtimeService.createShowtime(showtimeDTO);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdShowtime);
+        } catch (ShowtimeConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
 
+    // Admin/staff only. A JSON array of showtimes, or CSV lines of movieTitle,cinemaName,screeningTime,hall
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "text/csv"})
+    public ResponseEntity<ShowtimeImportResultDTO> importShowtimes(HttpServletRequest request) throws IOException {
+        String token = userService.extractBearerToken(request);
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        Role role = userService.getUserIdFromToken(token).getRole();
+        if (role != Role.ADMIN && role != Role.STAFF) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        ShowtimeImportResultDTO result = TEXT_CSV.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? showtimeImportService.importCsv(request.getReader())
+                : showtimeImportService.importJson(request.getInputStream());
+        return ResponseEntity.ok(result);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<ShowtimeLazyDTO> updateShowtime(@PathVariable Long id, @RequestBody ShowtimeLazyDTO showtimeDTO) {
         return ResponseEntity.ok(showtimeService.updateShowtime(id, showtimeDTO));
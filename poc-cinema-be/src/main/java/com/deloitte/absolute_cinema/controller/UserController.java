@@ -0,0 +1,44 @@
+package com.deloitte.absolute_cinema.controller;
+
+import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.entity.User;
+import com.deloitte.absolute_cinema.service.MovieService;
+import com.deloitte.absolute_cinema.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/users")
+public class UserController {
+
+    private final UserService userService;
+    private final MovieService movieService;
+
+    public UserController(UserService userService, MovieService movieService) {
+        this.userService = userService;
+        this.movieService = movieService;
+    }
+
+    /**
+     * Movies recommended from the current user's favourites and bookings
+     */
+    @Operation(summary = "Get movie recommendations for the current user")
+    @GetMapping("/me/recommendations")
+    public ResponseEntity<List<MovieDTO>> getRecommendations(HttpServletRequest request,
+                                                             @RequestParam(defaultValue = "10") int limit) {
+        String token = userService.extractBearerToken(request);
+        if (token == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        User user = userService.getUserIdFromToken(token);
+        return ResponseEntity.ok(movieService.getRecommendedMovies(user.getId(), Math.max(1, Math.min(limit, 50))));
+    }
+}
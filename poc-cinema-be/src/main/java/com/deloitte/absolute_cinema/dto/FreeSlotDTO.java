@@ -0,0 +1,14 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// A stretch of time in which a hall is empty and clean; a screening fits if it ends by "to"
+@Getter
+@AllArgsConstructor
+public class FreeSlotDTO {
+    private LocalDateTime from;
+    private LocalDateTime to;
+}
@@ -0,0 +1,12 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+public class GateScanDTO {
+    private String payload;
+}
@@ -0,0 +1,32 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class GateValidationDTO {
+    private Result result;
+    private Long bookingId;
+    private Long showtimeId;
+    private List<String> seats;
+
+    public enum Result {
+        ADMITTED,
+        ALREADY_ADMITTED,
+        NOT_YET_VALID,
+        EXPIRED,
+        REVOKED,
+        INVALID
+    }
+
+    public static GateValidationDTO invalid() {
+        return new GateValidationDTO(Result.INVALID, null, null, List.of());
+    }
+}
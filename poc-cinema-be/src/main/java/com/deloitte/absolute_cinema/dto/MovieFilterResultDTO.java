@@ -0,0 +1,23 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieFilterResultDTO {
+    // One page of the matches; total counts all of them
+    private List<MovieDTO> movies;
+    private int total;
+    private int page;
+    private int size;
+    // Facet name -> value -> number of movies matching the other facets' selections
+    private Map<String, Map<String, Integer>> facets;
+}
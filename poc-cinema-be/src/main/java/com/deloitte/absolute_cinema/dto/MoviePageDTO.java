@@ -0,0 +1,20 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoviePageDTO {
+    // Requested fields of each movie, in request order
+    private List<Map<String, Object>> movies;
+    // Pass as "after" to fetch the next page; null on the last page
+    private Long nextCursor;
+}
@@ -0,0 +1,47 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * A movie's upcoming showtimes: the movie once, then each cinema once with its showtimes by day.
+ * Every showtime carries its seat counts; held seats are selected but not yet paid for.
+ */
+@Getter
+@AllArgsConstructor
+public class MovieScheduleDTO {
+    private MovieDTO movie;
+    private List<CinemaSchedule> cinemas;
+
+    @Getter
+    @AllArgsConstructor
+    public static class CinemaSchedule {
+        private Long cinemaId;
+        private String name;
+        private String location;
+        private List<DaySchedule> days;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class DaySchedule {
+        private LocalDate date;
+        private List<Slot> showtimes;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Slot {
+        private Long id;
+        private LocalTime time;
+        private int hall;
+        private int availableSeats;
+        private int heldSeats;
+        private int bookedSeats;
+        private boolean fewSeatsLeft;
+    }
+}
@@ -0,0 +1,13 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Seats of one showtime by status; held seats are selected but not yet paid for
+@Getter
+@AllArgsConstructor
+public class SeatAvailabilityDTO {
+    private int available;
+    private int held;
+    private int booked;
+}
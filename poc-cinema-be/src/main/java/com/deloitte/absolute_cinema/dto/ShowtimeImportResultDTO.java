@@ -0,0 +1,25 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk showtime import. Rows are numbered by CSV line, or by position in a JSON
+ * array starting at 1; every row that was not created has an error.
+ */
+@Getter
+@AllArgsConstructor
+public class ShowtimeImportResultDTO {
+    private int rows;
+    private int created;
+    private List<RowError> errors;
+
+    @Getter
+    @AllArgsConstructor
+    public static class RowError {
+        private int row;
+        private String message;
+    }
+}
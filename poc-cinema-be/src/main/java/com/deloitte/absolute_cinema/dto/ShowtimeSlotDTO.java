@@ -0,0 +1,18 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// One row of the schedule projection; cinema columns repeat per row here but not in the response
+@Getter
+@AllArgsConstructor
+public class ShowtimeSlotDTO {
+    private Long showtimeId;
+    private Long cinemaId;
+    private String cinemaName;
+    private String cinemaLocation;
+    private LocalDateTime screeningTime;
+    private int hall;
+}
@@ -0,0 +1,23 @@
+package com.deloitte.absolute_cinema.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// One showtime in a time-range listing, with enough of its movie and cinema to render a card
+@Getter
+@AllArgsConstructor
+public class UpcomingShowtimeDTO {
+    private Long showtimeId;
+    private LocalDateTime screeningTime;
+    private int hall;
+    private Long cinemaId;
+    private String cinemaName;
+    private String cinemaLocation;
+    private Long movieId;
+    private String movieTitle;
+    private String posterUrl;
+    private int duration;
+    private int availableSeats;
+}
@@ -0,0 +1,28 @@
+package com.deloitte.absolute_cinema.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+// Seat totals of a past showtime whose seat rows were removed by SeatArchiveService
+@Entity
+@Table(name = "archived_showtime_seats")
+@Getter
+@Setter
+public class ArchivedShowtimeSeats {
+    @Id
+    @Column(name = "showtime_id")
+    private Long showtimeId;
+
+    @Column(name = "total_seats", nullable = false)
+    private int totalSeats;
+
+    // Seats held by a confirmed booking when the showtime was archived
+    @Column(name = "booked_seats", nullable = false)
+    private int bookedSeats;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
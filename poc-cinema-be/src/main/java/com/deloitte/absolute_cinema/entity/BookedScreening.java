@@ -0,0 +1,12 @@
+package com.deloitte.absolute_cinema.entity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The screening a booking is for, read from its seats or, once they are archived, from its
+ * {@link BookingSeatSummary}. Movie duration is null when the movie is no longer known.
+ */
+public record BookedScreening(Long showtimeId, String movieTitle, Integer movieDuration, String cinemaName,
+                              int hall, LocalDateTime screeningTime, List<String> seatNumbers) {
+}
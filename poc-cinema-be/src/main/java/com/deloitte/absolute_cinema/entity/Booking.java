@@ -1,5 +1,7 @@
 package com.deloitte.absolute_cinema.entity;
 
+import com.deloitte.absolute_cinema.event.BookingEntityListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import jakarta.persistence.*;
 import lombok.Getter;
@@ -10,6 +12,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@EntityListeners(BookingEntityListener.class)
 @Setter
 @Table(name = "bookings")
 @Getter
@@ -29,6 +32,44 @@ public class Booking {
     @JsonManagedReference
     private List<BookingSeat> bookingSeats;
 
+    // Set once the showtime's seats are archived, when bookingSeats becomes empty
+    @Embedded
+    private BookingSeatSummary archivedSeats;
+
+    // Status as last read from or written to the database, used to detect transitions
+    @Transient
+    @JsonIgnore
+    private BookingStatus loadedStatus;
+
+    /**
+     * What the booking is for, from the first seat (all seats have the same showtime) or the seat
+     * summary once they are archived; null for a booking without either.
+     */
+    @JsonIgnore
+    public BookedScreening getScreening() {
+        if (bookingSeats != null && !bookingSeats.isEmpty()) {
+            Showtime showtime = bookingSeats.get(0).getSeat().getShowtime();
+            List<String> seatNumbers = bookingSeats.stream()
+                    .map(bookingSeat -> bookingSeat.getSeat().getSeatNumber())
+                    .toList();
+            return new BookedScreening(showtime.getId(), showtime.getMovie().getTitle(),
+                    showtime.getMovie().getDuration(), showtime.getCinema().getName(), showtime.getHall(),
+                    showtime.getScreeningTime(), seatNumbers);
+        }
+        if (archivedSeats != null && archivedSeats.getScreeningTime() != null) {
+            // The showtime is null once it has been removed
+            Showtime showtime = archivedSeats.getShowtime();
+            List<String> seatNumbers = archivedSeats.getSeatNumbers() == null || archivedSeats.getSeatNumbers().isEmpty()
+                    ? List.of()
+                    : List.of(archivedSeats.getSeatNumbers().split(","));
+            return new BookedScreening(showtime != null ? showtime.getId() : null, archivedSeats.getMovieTitle(),
+                    showtime != null && showtime.getMovie() != null ? showtime.getMovie().getDuration() : null,
+                    archivedSeats.getCinemaName(), archivedSeats.getHall() != null ? archivedSeats.getHall() : 0,
+                    archivedSeats.getScreeningTime(), seatNumbers);
+        }
+        return null;
+    }
+
     @Override
     public String toString() {
         return "Booking{" +
@@ -1,11 +1,14 @@
 package com.deloitte.absolute_cinema.entity;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
+
 @Entity
 @Table(name = "booking_seats")
 @Builder
@@ -20,4 +23,16 @@ public class BookingSeat {
     private Booking booking;
     @ManyToOne
     private Seat seat;
+
+    // Day of the seat's showtime, the partition key of "booking_seats"
+    @Column(name = "screening_date")
+    @JsonIgnore
+    private LocalDate screeningDate;
+
+    @PrePersist
+    void assignScreeningDate() {
+        if (screeningDate == null && seat != null) {
+            screeningDate = seat.getScreeningDate();
+        }
+    }
 }
\ No newline at end of file
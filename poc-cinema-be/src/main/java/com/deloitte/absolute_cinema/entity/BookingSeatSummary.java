@@ -0,0 +1,40 @@
+package com.deloitte.absolute_cinema.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * What remains of a booking's seats once SeatArchiveService has archived its showtime's seats or
+ * ShowtimeRemovalService has removed the showtime. The screening is copied, so it still reads
+ * the same once the showtime is gone and {@code showtime} is null.
+ */
+@Embeddable
+@Getter
+@Setter
+public class BookingSeatSummary {
+    @ManyToOne
+    @JoinColumn(name = "archived_showtime_id")
+    private Showtime showtime;
+
+    @Column(name = "archived_screening_time")
+    private LocalDateTime screeningTime;
+
+    @Column(name = "archived_hall")
+    private Integer hall;
+
+    @Column(name = "archived_movie_title")
+    private String movieTitle;
+
+    @Column(name = "archived_cinema_name")
+    private String cinemaName;
+
+    // Comma-separated, in seat order
+    @Column(name = "archived_seat_numbers", length = 2000)
+    private String seatNumbers;
+
+    @Column(name = "seats_archived_at")
+    private LocalDateTime archivedAt;
+}
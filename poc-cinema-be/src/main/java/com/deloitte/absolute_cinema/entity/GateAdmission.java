@@ -0,0 +1,29 @@
+package com.deloitte.absolute_cinema.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "gate_admissions",
+        indexes = @Index(name = "idx_gate_admissions_showtime", columnList = "showtime_id"))
+@Getter
+@Setter
+public class GateAdmission {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "booking_id", nullable = false)
+    private Long bookingId;
+
+    @Column(name = "showtime_id", nullable = false)
+    private Long showtimeId;
+
+    @Column(name = "seat_index", nullable = false)
+    private int seatIndex;
+
+    @Column(name = "admitted_at", nullable = false)
+    private LocalDateTime admittedAt;
+}
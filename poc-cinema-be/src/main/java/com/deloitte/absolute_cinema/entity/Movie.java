@@ -1,5 +1,8 @@
 package com.deloitte.absolute_cinema.entity;
 
+import com.deloitte.absolute_cinema.event.MovieEntityListener;
+import com.deloitte.absolute_cinema.util.PosterUrlSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -8,6 +11,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(MovieEntityListener.class)
 @Table(name = "movies")
 @Getter
 @Setter
@@ -26,8 +30,14 @@ public class Movie {
     private String rating;
     private String description;
     private BigDecimal price;
+    // External URL, or the path of the poster in the PosterStore relative to poster.public-base-url
     @Column(columnDefinition = "TEXT")
+    @JsonSerialize(using = PosterUrlSerializer.class)
     private String posterUrl;
+    // SHA-256 of the poster in the PosterStore, when the poster is served by this application
+    @Column(length = 64)
+    private String posterHash;
+    private String posterContentType;
     private LocalDate releaseDate;
     private double review;
 
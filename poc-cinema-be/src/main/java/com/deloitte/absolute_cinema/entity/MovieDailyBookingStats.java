@@ -0,0 +1,29 @@
+package com.deloitte.absolute_cinema.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+// Confirmed seats per movie per booking day, maintained by MoviePopularityRollup
+@Entity
+@Table(name = "movie_daily_booking_stats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_movie_daily_booking_stats",
+                columnNames = {"movie_id", "stat_date"}),
+        indexes = @Index(name = "idx_movie_daily_booking_stats_date", columnList = "stat_date"))
+@Getter
+@Setter
+public class MovieDailyBookingStats {
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate statDate;
+
+    @Column(name = "confirmed_seats", nullable = false)
+    private long confirmedSeats;
+}
@@ -11,7 +11,9 @@ import lombok.Setter;
 @Setter
 @Getter
 @Entity
-@Table(name = "movie_reviews")
+// Unique so saveReview can upsert ON CONFLICT (movie_id)
+@Table(name = "movie_reviews", uniqueConstraints =
+        @UniqueConstraint(name = "uk_movie_reviews_movie_id", columnNames = "movie_id"))
 public class MovieReview {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -24,9 +26,8 @@ public class MovieReview {
     @Column(nullable = false)
     private String title;
 
-    // Store the entire JSON response
+    // Store the entire JSON response; plain TEXT, as in V1, rather than a LOB
     @Column(columnDefinition = "TEXT")
-    @Lob
     private String reviewJson;
 
     @Column(nullable = false)
@@ -1,4 +1,5 @@
 package com.deloitte.absolute_cinema.entity;
+import com.deloitte.absolute_cinema.event.PaymentEntityListener;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -7,6 +8,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(PaymentEntityListener.class)
 @Table(name = "payments")
 @Getter
 @Setter
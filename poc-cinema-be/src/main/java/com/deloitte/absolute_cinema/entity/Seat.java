@@ -1,10 +1,14 @@
 package com.deloitte.absolute_cinema.entity;
+import com.deloitte.absolute_cinema.event.SeatEntityListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(SeatEntityListener.class)
 @Getter
 @Setter
 @Builder
@@ -22,4 +26,14 @@ public class Seat {
     @Enumerated(EnumType.STRING)
     private SeatStatus status = SeatStatus.AVAILABLE;
     private LocalDateTime reservedAt;
+
+    // Day of the showtime, copied here as the partition key of "seats"; set by SeatEntityListener
+    @Column(name = "screening_date")
+    @JsonIgnore
+    private LocalDate screeningDate;
+
+    // Status as last read from or written to the database, set by SeatEntityListener
+    @Transient
+    @JsonIgnore
+    private SeatStatus loadedStatus;
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.deloitte.absolute_cinema.entity;
+import com.deloitte.absolute_cinema.event.ShowtimeEntityListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(ShowtimeEntityListener.class)
 @Table(name = "showtimes")
 @Getter
 @Setter
@@ -22,6 +25,13 @@ public class Showtime {
     private int totalSeats;
     private int hall;
 
+    // Movie and screening time as last read from or written to the database, set by ShowtimeEntityListener
+    @Transient
+    @JsonIgnore
+    private Long loadedMovieId;
 
+    @Transient
+    @JsonIgnore
+    private LocalDateTime loadedScreeningTime;
 
-}
\ No newline at end of file
+}
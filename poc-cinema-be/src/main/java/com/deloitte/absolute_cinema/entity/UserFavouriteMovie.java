@@ -1,5 +1,6 @@
 package com.deloitte.absolute_cinema.entity;
 
+import com.deloitte.absolute_cinema.event.FavouriteEntityListener;
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import jakarta.persistence.*;
 import lombok.*;
@@ -10,6 +11,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "user_favourite_movies")
+@EntityListeners(FavouriteEntityListener.class)
 public class UserFavouriteMovie {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
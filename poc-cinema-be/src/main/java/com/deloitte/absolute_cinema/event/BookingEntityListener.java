@@ -0,0 +1,35 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.Booking;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Turns booking status transitions into {@link BookingStatusChangedEvent}s, regardless of which
+ * service performed the write. Instantiated by Hibernate through Spring's bean container.
+ */
+public class BookingEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public BookingEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    public void onLoad(Booking booking) {
+        booking.setLoadedStatus(booking.getStatus());
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Booking booking) {
+        if (booking.getStatus() != booking.getLoadedStatus()) {
+            eventPublisher.publishEvent(
+                    new BookingStatusChangedEvent(booking.getId(), booking.getLoadedStatus(), booking.getStatus()));
+            booking.setLoadedStatus(booking.getStatus());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a booking is persisted with a status different from the one it was loaded with.
+ * {@code previousStatus} is null for newly created bookings.
+ */
+@Getter
+@AllArgsConstructor
+public class BookingStatusChangedEvent {
+    private final Long bookingId;
+    private final BookingStatus previousStatus;
+    private final BookingStatus currentStatus;
+}
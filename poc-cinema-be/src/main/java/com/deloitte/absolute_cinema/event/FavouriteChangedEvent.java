@@ -0,0 +1,15 @@
+package com.deloitte.absolute_cinema.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a user adds or removes a favourite movie; {@code removed} is set for removals.
+ */
+@Getter
+@AllArgsConstructor
+public class FavouriteChangedEvent {
+    private final Long userId;
+    private final Long movieId;
+    private final boolean removed;
+}
@@ -0,0 +1,31 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.UserFavouriteMovie;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link FavouriteChangedEvent} when a favourite is stored or deleted. Instantiated
+ * by Hibernate through Spring's bean container.
+ */
+public class FavouriteEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public FavouriteEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    public void onPersist(UserFavouriteMovie favourite) {
+        eventPublisher.publishEvent(
+                new FavouriteChangedEvent(favourite.getUser().getId(), favourite.getMovieId(), false));
+    }
+
+    @PostRemove
+    public void onRemove(UserFavouriteMovie favourite) {
+        eventPublisher.publishEvent(
+                new FavouriteChangedEvent(favourite.getUser().getId(), favourite.getMovieId(), true));
+    }
+}
@@ -0,0 +1,16 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a movie row is created, updated or removed. Carries the movie as written;
+ * {@code removed} is set for deletions.
+ */
+@Getter
+@AllArgsConstructor
+public class MovieChangedEvent {
+    private final Movie movie;
+    private final boolean removed;
+}
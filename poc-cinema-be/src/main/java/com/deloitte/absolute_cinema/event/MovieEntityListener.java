@@ -0,0 +1,31 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.Movie;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link MovieChangedEvent} for every movie write. Instantiated by Hibernate
+ * through Spring's bean container.
+ */
+public class MovieEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public MovieEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Movie movie) {
+        eventPublisher.publishEvent(new MovieChangedEvent(movie, false));
+    }
+
+    @PostRemove
+    public void onRemove(Movie movie) {
+        eventPublisher.publishEvent(new MovieChangedEvent(movie, true));
+    }
+}
@@ -0,0 +1,14 @@
+package com.deloitte.absolute_cinema.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a payment row is created, updated or removed.
+ */
+@Getter
+@AllArgsConstructor
+public class PaymentChangedEvent {
+    private final Long paymentId;
+    private final Long bookingId;
+}
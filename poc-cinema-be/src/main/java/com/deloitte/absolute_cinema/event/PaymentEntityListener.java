@@ -0,0 +1,28 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.Payment;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link PaymentChangedEvent} for every payment write. Instantiated by Hibernate
+ * through Spring's bean container.
+ */
+public class PaymentEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PaymentEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onWrite(Payment payment) {
+        Long bookingId = payment.getBooking() != null ? payment.getBooking().getId() : null;
+        eventPublisher.publishEvent(new PaymentChangedEvent(payment.getId(), bookingId));
+    }
+}
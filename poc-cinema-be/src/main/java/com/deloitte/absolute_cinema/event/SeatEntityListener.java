@@ -0,0 +1,59 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.Seat;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import jakarta.persistence.PrePersist;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link SeatStatusChangedEvent} for every seat insert, status change and delete,
+ * and fills in the screening date of new seats. Instantiated by Hibernate through Spring's bean
+ * container.
+ */
+public class SeatEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SeatEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    public void onLoad(Seat seat) {
+        seat.setLoadedStatus(seat.getStatus());
+    }
+
+    @PrePersist
+    public void onPrePersist(Seat seat) {
+        if (seat.getScreeningDate() == null && seat.getShowtime() != null && seat.getShowtime().getScreeningTime() != null) {
+            seat.setScreeningDate(seat.getShowtime().getScreeningTime().toLocalDate());
+        }
+    }
+
+    @PostPersist
+    public void onPersist(Seat seat) {
+        eventPublisher.publishEvent(new SeatStatusChangedEvent(showtimeId(seat), null, seat.getStatus()));
+        seat.setLoadedStatus(seat.getStatus());
+    }
+
+    @PostUpdate
+    public void onUpdate(Seat seat) {
+        if (seat.getLoadedStatus() != seat.getStatus()) {
+            eventPublisher.publishEvent(
+                    new SeatStatusChangedEvent(showtimeId(seat), seat.getLoadedStatus(), seat.getStatus()));
+            seat.setLoadedStatus(seat.getStatus());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Seat seat) {
+        eventPublisher.publishEvent(new SeatStatusChangedEvent(showtimeId(seat), seat.getLoadedStatus(), null));
+    }
+
+    private static Long showtimeId(Seat seat) {
+        return seat.getShowtime() != null ? seat.getShowtime().getId() : null;
+    }
+}
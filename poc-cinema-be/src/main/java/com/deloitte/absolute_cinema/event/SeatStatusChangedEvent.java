@@ -0,0 +1,17 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.SeatStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published whenever a seat is created, changes status or is removed. The previous status is
+ * null for new seats and the current status is null for removed ones.
+ */
+@Getter
+@AllArgsConstructor
+public class SeatStatusChangedEvent {
+    private final Long showtimeId;
+    private final SeatStatus previousStatus;
+    private final SeatStatus currentStatus;
+}
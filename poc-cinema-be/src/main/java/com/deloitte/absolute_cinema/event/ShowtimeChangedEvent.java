@@ -0,0 +1,24 @@
+package com.deloitte.absolute_cinema.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a showtime row is created, updated or removed. Carries the movie and
+ * screening time before and after the write, and the cinema and hall after it; the previous
+ * values are null for new showtimes.
+ */
+@Getter
+@AllArgsConstructor
+public class ShowtimeChangedEvent {
+    private final Long showtimeId;
+    private final Long movieId;
+    private final Long cinemaId;
+    private final int hall;
+    private final LocalDateTime screeningTime;
+    private final Long previousMovieId;
+    private final LocalDateTime previousScreeningTime;
+    private final boolean removed;
+}
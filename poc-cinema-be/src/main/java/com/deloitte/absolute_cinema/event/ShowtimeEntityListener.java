@@ -0,0 +1,55 @@
+package com.deloitte.absolute_cinema.event;
+
+import com.deloitte.absolute_cinema.entity.Showtime;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Publishes a {@link ShowtimeChangedEvent} for every showtime write. Instantiated by Hibernate
+ * through Spring's bean container.
+ */
+public class ShowtimeEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ShowtimeEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    public void onLoad(Showtime showtime) {
+        remember(showtime);
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Showtime showtime) {
+        eventPublisher.publishEvent(new ShowtimeChangedEvent(showtime.getId(), movieId(showtime),
+                cinemaId(showtime), showtime.getHall(), showtime.getScreeningTime(),
+                showtime.getLoadedMovieId(), showtime.getLoadedScreeningTime(), false));
+        remember(showtime);
+    }
+
+    @PostRemove
+    public void onRemove(Showtime showtime) {
+        eventPublisher.publishEvent(new ShowtimeChangedEvent(showtime.getId(), movieId(showtime),
+                cinemaId(showtime), showtime.getHall(), showtime.getScreeningTime(),
+                showtime.getLoadedMovieId(), showtime.getLoadedScreeningTime(), true));
+    }
+
+    private static void remember(Showtime showtime) {
+        showtime.setLoadedMovieId(movieId(showtime));
+        showtime.setLoadedScreeningTime(showtime.getScreeningTime());
+    }
+
+    private static Long cinemaId(Showtime showtime) {
+        return showtime.getCinema() != null ? showtime.getCinema().getId() : null;
+    }
+
+    private static Long movieId(Showtime showtime) {
+        return showtime.getMovie() != null ? showtime.getMovie().getId() : null;
+    }
+}
@@ -0,0 +1,11 @@
+package com.deloitte.absolute_cinema.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidPosterException extends RuntimeException {
+    public InvalidPosterException(String message) {
+        super(message);
+    }
+}
@@ -1,6 +1,5 @@
 package com.deloitte.absolute_cinema.repository;
 
-import com.deloitte.absolute_cinema.dto.PopularMovieDTO;
 import com.deloitte.absolute_cinema.entity.Booking;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -9,27 +8,65 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    List<Booking> findByUserId(Long Id);
+    // On the foreign key; the derived query joined users first, which H2 plans as a scan of bookings
+    @Query("SELECT b FROM Booking b WHERE b.user.id = :userId")
+    List<Booking> findByUserId(@Param("userId") Long userId);
 
     @Query("SELECT b FROM Booking b WHERE b.status = 'PENDING'")
     List<Booking> findAllActiveBookings();
 
-    @Query("""
-        SELECT new com.deloitte.absolute_cinema.dto.PopularMovieDTO(
-            m.id, m.title, m.director, m.genre, m.posterUrl, m.rating, m.price, COUNT(b.id)
-        )
-        FROM Booking b 
-        JOIN b.bookingSeats bs 
-        JOIN bs.seat s 
-        JOIN s.showtime st 
-        JOIN st.movie m 
-        WHERE b.createdAt >= :startOfWeek AND b.createdAt < :endOfWeek 
-        AND b.status = 'CONFIRMED'
-        GROUP BY m.id, m.title, m.director, m.genre, m.posterUrl, m.rating, m.price
-        ORDER BY COUNT(b.id) DESC
-    """)
-    List<PopularMovieDTO> findPopularMoviesThisWeek(@Param("startOfWeek") LocalDateTime startOfWeek, @Param("endOfWeek") LocalDateTime endOfWeek);
+    @Query("SELECT DISTINCT b.id FROM Booking b JOIN b.bookingSeats bs " +
+            "WHERE bs.seat.showtime.id = :showtimeId AND b.status = 'CONFIRMED' ORDER BY b.id")
+    List<Long> findConfirmedBookingIdsByShowtime(@Param("showtimeId") Long showtimeId);
+
+    @Query("SELECT DISTINCT b.id FROM Booking b JOIN b.bookingSeats bs " +
+            "WHERE bs.seat.showtime.screeningTime >= :from AND bs.seat.showtime.screeningTime < :to " +
+            "AND b.status = 'CONFIRMED' ORDER BY b.id")
+    List<Long> findConfirmedBookingIdsByScreeningTime(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // (bookingId, screeningTime) of bookings not admitted at the gate, with seats or archived ones
+    @Query("SELECT b.id, MAX(bs.seat.showtime.screeningTime) FROM Booking b JOIN b.bookingSeats bs " +
+            "WHERE bs.seat.showtime.screeningTime >= :from AND b.status <> 'CONFIRMED' GROUP BY b.id")
+    List<Object[]> findUnconfirmedBookingsScreeningFrom(@Param("from") LocalDateTime from);
+
+    @Query("SELECT b.id, b.archivedSeats.screeningTime FROM Booking b " +
+            "WHERE b.archivedSeats.screeningTime >= :from AND b.status <> 'CONFIRMED'")
+    List<Object[]> findUnconfirmedArchivedBookingsScreeningFrom(@Param("from") LocalDateTime from);
+
+    @Query("SELECT COALESCE(MAX(st.screeningTime), b.archivedSeats.screeningTime) FROM Booking b " +
+            "LEFT JOIN b.bookingSeats bs LEFT JOIN bs.seat s LEFT JOIN s.showtime st " +
+            "WHERE b.id = :bookingId GROUP BY b.id, b.archivedSeats.screeningTime")
+    Optional<LocalDateTime> findScreeningTimeById(@Param("bookingId") Long bookingId);
+
+    // (movieId, createdAt, seat count) of one booking, for the popularity rollup
+    @Query("SELECT st.movie.id, b.createdAt, COUNT(bs.id) FROM Booking b JOIN b.bookingSeats bs " +
+            "JOIN bs.seat s JOIN s.showtime st WHERE b.id = :bookingId GROUP BY st.movie.id, b.createdAt")
+    List<Object[]> findSeatCountsByMovie(@Param("bookingId") Long bookingId);
+
+    // Same shape for every confirmed booking created since the given time; backfills the rollup
+    @Query("SELECT st.movie.id, b.createdAt, COUNT(bs.id) FROM Booking b JOIN b.bookingSeats bs " +
+            "JOIN bs.seat s JOIN s.showtime st WHERE b.createdAt >= :from AND b.status = 'CONFIRMED' " +
+            "GROUP BY b.id, st.movie.id, b.createdAt")
+    List<Object[]> findConfirmedSeatCountsByMovieCreatedFrom(@Param("from") LocalDateTime from);
+
+    // (userId, movieId) of one booking made by a registered user
+    @Query("SELECT DISTINCT b.user.id, st.movie.id FROM Booking b JOIN b.bookingSeats bs " +
+            "JOIN bs.seat s JOIN s.showtime st WHERE b.id = :bookingId AND b.user IS NOT NULL")
+    List<Object[]> findUserMovieIds(@Param("bookingId") Long bookingId);
+
+    // (userId, movieId, confirmed bookings) per registered user and movie
+    @Query("SELECT b.user.id, st.movie.id, COUNT(DISTINCT b.id) FROM Booking b JOIN b.bookingSeats bs " +
+            "JOIN bs.seat s JOIN s.showtime st WHERE b.status = 'CONFIRMED' AND b.user IS NOT NULL " +
+            "GROUP BY b.user.id, st.movie.id")
+    List<Object[]> findConfirmedBookingCountsByUserAndMovie();
+
+    // Same as findConfirmedBookingCountsByUserAndMovie() for bookings whose seats were archived
+    @Query("SELECT b.user.id, b.archivedSeats.showtime.movie.id, COUNT(b.id) FROM Booking b " +
+            "WHERE b.archivedSeats.showtime IS NOT NULL AND b.status = 'CONFIRMED' AND b.user IS NOT NULL " +
+            "GROUP BY b.user.id, b.archivedSeats.showtime.movie.id")
+    List<Object[]> findArchivedConfirmedBookingCountsByUserAndMovie();
 }
@@ -2,9 +2,21 @@ package com.deloitte.absolute_cinema.repository;
 
 import com.deloitte.absolute_cinema.entity.BookingSeat;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface BookingSeatRepository extends JpaRepository<BookingSeat, Long> {
-    List<BookingSeat> findByBookingId(long Id);
+    @Query("SELECT bs FROM BookingSeat bs WHERE bs.booking.id = :bookingId")
+    List<BookingSeat> findByBookingId(@Param("bookingId") long bookingId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE BookingSeat bs SET bs.screeningDate = :screeningDate " +
+            "WHERE bs.seat.id IN (SELECT s.id FROM Seat s WHERE s.showtime.id = :showtimeId)")
+    int updateScreeningDate(@Param("showtimeId") Long showtimeId, @Param("screeningDate") LocalDate screeningDate);
 }
@@ -0,0 +1,16 @@
+package com.deloitte.absolute_cinema.repository;
+
+import com.deloitte.absolute_cinema.entity.GateAdmission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface GateAdmissionRepository extends JpaRepository<GateAdmission, Long> {
+
+    @Query("SELECT a.seatIndex FROM GateAdmission a WHERE a.showtimeId = :showtimeId")
+    List<Integer> findSeatIndexesByShowtimeId(@Param("showtimeId") Long showtimeId);
+}
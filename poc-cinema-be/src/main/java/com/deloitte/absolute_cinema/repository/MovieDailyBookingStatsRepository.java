@@ -0,0 +1,14 @@
+package com.deloitte.absolute_cinema.repository;
+
+import com.deloitte.absolute_cinema.entity.MovieDailyBookingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MovieDailyBookingStatsRepository extends JpaRepository<MovieDailyBookingStats, Long> {
+
+    List<MovieDailyBookingStats> findByStatDateGreaterThanEqual(LocalDate from);
+}
@@ -22,4 +22,7 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     
     @Query("SELECT DISTINCT m.language FROM Movie m WHERE m.language IS NOT NULL ORDER BY m.language")
     List<String> findDistinctLanguages();
+
+    @Query("SELECT m.id FROM Movie m WHERE m.posterUrl LIKE 'data:%'")
+    List<Long> findIdsWithInlinePoster();
 }
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -20,12 +21,24 @@ public interface MovieReviewRepository extends JpaRepository<MovieReview, Long>
     @Query(value = "SELECT r.review_json FROM movie_reviews r WHERE r.title = :movieTitle", nativeQuery = true)
     Optional<String> findReviewJsonByMovieTitle(@Param("movieTitle") String movieTitle);
 
-    @Modifying
-    @Query(value = "INSERT INTO movie_reviews (movie_id, title, review_json, last_updated) " +
+    Optional<MovieReview> findFirstByTitleOrderByLastUpdatedDesc(String title);
+
+    // Shared with the batched upsert in ReviewPrefetchService
+    String UPSERT_REVIEW_SQL = "INSERT INTO movie_reviews (movie_id, title, review_json, last_updated) " +
             "VALUES (:movieId, :title, :reviewJson, :lastUpdated) " +
             "ON CONFLICT (movie_id) DO UPDATE " +
-            "SET title = EXCLUDED.title, review_json = EXCLUDED.review_json, last_updated = EXCLUDED.last_updated",
-            nativeQuery = true)
+            "SET title = EXCLUDED.title, review_json = EXCLUDED.review_json, last_updated = EXCLUDED.last_updated";
+
+    // Movies (id, title) with no stored review, or one last updated before the cutoff
+    @Query("SELECT m.id, m.title FROM Movie m LEFT JOIN MovieReview r ON r.movieId = m.id " +
+            "WHERE r.id IS NULL OR r.lastUpdated < :staleBefore ORDER BY m.id")
+    List<Object[]> findMoviesWithMissingOrStaleReview(@Param("staleBefore") LocalDateTime staleBefore);
+
+    @Query("SELECT r.title FROM MovieReview r WHERE r.movieId = :movieId")
+    Optional<String> findTitleByMovieId(@Param("movieId") Long movieId);
+
+    @Modifying
+    @Query(value = UPSERT_REVIEW_SQL, nativeQuery = true)
     void saveReview(
             @Param("movieId") Long movieId,
             @Param("title") String title,
@@ -3,6 +3,8 @@ package com.deloitte.absolute_cinema.repository;
 import com.deloitte.absolute_cinema.entity.Payment;
 import com.deloitte.absolute_cinema.entity.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -12,6 +14,6 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
     List<Payment> findByStatusAndCreatedAtBefore(PaymentStatus status, LocalDateTime time);
     // Find a payment by booking ID and status
     Optional<Payment> findByBookingIdAndStatus(Long bookingId, PaymentStatus status);
-    Optional<Payment> findByBookingId(Long bookingId);
-
+    @Query("SELECT p FROM Payment p WHERE p.booking.id = :bookingId")
+    Optional<Payment> findByBookingId(@Param("bookingId") Long bookingId);
 }
\ No newline at end of file
@@ -3,17 +3,43 @@ package com.deloitte.absolute_cinema.repository;
 import com.deloitte.absolute_cinema.entity.Seat;
 import com.deloitte.absolute_cinema.entity.SeatStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface SeatRepository extends JpaRepository<Seat, Long> {
-    // Find available seats for a given showtime
-    List<Seat> findByShowtime_Id(Long showtimeId);
+    // Find available seats for a given showtime, by the foreign key rather than through a join
+    @Query("SELECT s FROM Seat s WHERE s.showtime.id = :showtimeId")
+    List<Seat> findByShowtime_Id(@Param("showtimeId") Long showtimeId);
 
     List<Seat> findByIdIn(List<Long> seatIds);
    // Find expired reserved seats for a given showtime
     List<Seat> findByShowtime_IdAndStatusAndReservedAtBefore(Long showtimeId, SeatStatus status, LocalDateTime time);
+
+    // Expired reserved seats of showtimes screening from the given day on, in one query
+    List<Seat> findByScreeningDateGreaterThanEqualAndStatusAndReservedAtBefore(LocalDate from, SeatStatus status,
+                                                                               LocalDateTime time);
+
+    // (showtimeId, status, seats) for every showtime that has not started yet; the date bound prunes partitions
+    @Query("SELECT s.showtime.id, s.status, COUNT(s) FROM Seat s " +
+            "WHERE s.screeningDate >= :fromDate AND s.showtime.screeningTime > :now GROUP BY s.showtime.id, s.status")
+    List<Object[]> countByStatusForShowtimesAfter(@Param("fromDate") LocalDate fromDate, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Seat s SET s.screeningDate = :screeningDate WHERE s.showtime.id = :showtimeId")
+    int updateScreeningDate(@Param("showtimeId") Long showtimeId, @Param("screeningDate") LocalDate screeningDate);
+
+    // (showtimeId, status, seats) for the given showtimes
+    @Query("SELECT s.showtime.id, s.status, COUNT(s) FROM Seat s " +
+            "WHERE s.showtime.id IN :showtimeIds GROUP BY s.showtime.id, s.status")
+    List<Object[]> countByStatusForShowtimes(@Param("showtimeIds") Collection<Long> showtimeIds);
 }
\ No newline at end of file
@@ -1,10 +1,13 @@
 package com.deloitte.absolute_cinema.repository;
 
+import com.deloitte.absolute_cinema.dto.ShowtimeSlotDTO;
 import com.deloitte.absolute_cinema.entity.Cinema;
 import com.deloitte.absolute_cinema.entity.Movie;
 import com.deloitte.absolute_cinema.entity.Showtime;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -17,8 +20,37 @@ public interface ShowtimeRepository extends JpaRepository<Showtime,Long> {
 
     boolean existsByMovieAndCinema(Movie movie, Cinema cinema);
 
-    List<Showtime> findByMovie_Id(Long movieId);
+    @Query("SELECT s FROM Showtime s WHERE s.movie.id = :movieId")
+    List<Showtime> findByMovie_Id(@Param("movieId") Long movieId);
 
-    @Query("SELECT s.id FROM Showtime s WHERE s.screeningTime >= CURRENT_TIMESTAMP")
-    List<Long> findAllShowtimeIds();
+    @Query("SELECT s.id FROM Showtime s WHERE s.movie.id = :movieId")
+    List<Long> findIdsByMovieId(@Param("movieId") Long movieId);
+
+
+    @Query("""
+        SELECT new com.deloitte.absolute_cinema.dto.ShowtimeSlotDTO(
+            s.id, c.id, c.name, c.location, s.screeningTime, s.hall
+        )
+        FROM Showtime s
+        JOIN s.cinema c
+        WHERE s.movie.id = :movieId AND s.screeningTime >= :from AND s.screeningTime < :to
+        ORDER BY s.screeningTime, c.name, s.hall
+    """)
+    List<ShowtimeSlotDTO> findSlotsByMovie(@Param("movieId") Long movieId,
+                                           @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // (showtimeId, cinemaId, hall, screeningTime, movieId, duration) of showtimes starting from the given time
+    @Query("SELECT s.id, s.cinema.id, s.hall, s.screeningTime, s.movie.id, s.movie.duration " +
+            "FROM Showtime s WHERE s.screeningTime >= :from")
+    List<Object[]> findHallOccupancyFrom(@Param("from") LocalDateTime from);
+
+    // Same columns for one showtime; empty if it is gone
+    @Query("SELECT s.id, s.cinema.id, s.hall, s.screeningTime, s.movie.id, s.movie.duration " +
+            "FROM Showtime s WHERE s.id = :showtimeId")
+    List<Object[]> findHallOccupancyById(@Param("showtimeId") Long showtimeId);
+
+    // Showtimes screened before the given time whose seats have not been archived yet, oldest first
+    @Query("SELECT s.id FROM Showtime s WHERE s.screeningTime < :before AND NOT EXISTS " +
+            "(SELECT a.showtimeId FROM ArchivedShowtimeSeats a WHERE a.showtimeId = s.id) ORDER BY s.screeningTime, s.id")
+    List<Long> findIdsWithSeatsToArchive(@Param("before") LocalDateTime before, Pageable pageable);
 }
@@ -3,6 +3,7 @@ package com.deloitte.absolute_cinema.repository;
 import com.deloitte.absolute_cinema.entity.User;
 import com.deloitte.absolute_cinema.entity.UserFavouriteMovie;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +11,8 @@ import java.util.List;
 @Repository
 public interface UserFavouriteMovieRepository extends JpaRepository<UserFavouriteMovie, Long> {
     List<UserFavouriteMovie> findByUser(User user);
+
+    // (userId, movieId) of every favourite, for rebuilding the recommendation matrix
+    @Query("SELECT f.user.id, f.movieId FROM UserFavouriteMovie f")
+    List<Object[]> findAllUserMovieIds();
 }
\ No newline at end of file
@@ -13,12 +13,14 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 @Component
@@ -93,9 +95,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         User user = userOptional.get();
 
-        // Set authentication in Security Context
+        // Set authentication in Security Context, with the role as ROLE_<role> for hasRole checks
         UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                user, null, Collections.emptyList() // Empty list instead of null
+                user, null, user.getRole() != null
+                        ? List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()))
+                        : Collections.emptyList()
         );
         SecurityContextHolder.getContext().setAuthentication(authToken);
 
@@ -0,0 +1,109 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.Booking;
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import com.deloitte.absolute_cinema.event.BookingStatusChangedEvent;
+import com.deloitte.absolute_cinema.event.PaymentChangedEvent;
+import com.deloitte.absolute_cinema.service.PdfGenerationService.DocumentType;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves e-tickets and receipts. In {@link RenderMode#CACHED} mode documents come from the
+ * {@link PdfArtifactCache} and are rendered only when the booking's rendered inputs have changed;
+ * in {@link RenderMode#STREAMING} mode every download is rendered straight into the response.
+ */
+@Service
+public class BookingDocumentService {
+
+    public enum RenderMode { CACHED, STREAMING }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final PdfGenerationService pdfGenerationService;
+    private final PdfArtifactCache pdfArtifactCache;
+    private final MeterRegistry meterRegistry;
+    private final RenderMode renderMode;
+
+    public BookingDocumentService(PdfGenerationService pdfGenerationService, PdfArtifactCache pdfArtifactCache,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${pdf.render.mode}") RenderMode renderMode) {
+        this.pdfGenerationService = pdfGenerationService;
+        this.pdfArtifactCache = pdfArtifactCache;
+        this.meterRegistry = meterRegistry;
+        this.renderMode = renderMode;
+    }
+
+    public boolean isStreaming() {
+        return renderMode == RenderMode.STREAMING;
+    }
+
+    public FileChannel openDocument(Booking booking, DocumentType type) throws IOException {
+        String contentHash = pdfGenerationService.fingerprint(booking);
+        return pdfArtifactCache.open(booking.getId(), type.getFileName(), contentHash,
+                out -> render(booking, type, out, RenderMode.CACHED));
+    }
+
+    public void streamDocument(Booking booking, DocumentType type, OutputStream out) throws IOException {
+        render(booking, type, out, RenderMode.STREAMING);
+        out.flush();
+    }
+
+    /**
+     * Renders one document and records its duration and the bytes the rendering thread allocated
+     * ("pdf.render" and "pdf.render.allocated"). The allocation figure is an upper bound on the
+     * transient heap a single download needs.
+     */
+    private void render(Booking booking, DocumentType type, OutputStream out, RenderMode mode) {
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            pdfGenerationService.write(booking, type, out);
+        } finally {
+            Timer.builder("pdf.render")
+                    .tag("document", type.getFileName())
+                    .tag("mode", mode.name().toLowerCase())
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (allocatedBefore >= 0) {
+                DistributionSummary.builder("pdf.render.allocated")
+                        .baseUnit("bytes")
+                        .tag("document", type.getFileName())
+                        .tag("mode", mode.name().toLowerCase())
+                        .register(meterRegistry)
+                        .record(allocatedBytes() - allocatedBefore);
+            }
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemorySupported() && THREADS.isThreadAllocatedMemoryEnabled()
+                ? THREADS.getCurrentThreadAllocatedBytes()
+                : -1;
+    }
+
+    @EventListener
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.getCurrentStatus() == BookingStatus.CANCELLED) {
+            pdfArtifactCache.evictBooking(event.getBookingId());
+        }
+    }
+
+    @EventListener
+    public void onPaymentChanged(PaymentChangedEvent event) {
+        if (event.getBookingId() != null) {
+            pdfArtifactCache.evictBooking(event.getBookingId());
+        }
+    }
+}
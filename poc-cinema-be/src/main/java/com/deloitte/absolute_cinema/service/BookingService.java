@@ -149,18 +149,10 @@ public class BookingService {
 
         return allBookings.stream()
                 .filter(booking -> {
-                    // Get the showtime date from the first seat (all seats have the same showtime)
-                    if (!booking.getBookingSeats().isEmpty()) {
-                        LocalDateTime showtimeDate = booking.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime();
-                        return showtimeDate.isAfter(now) && booking.getStatus() != BookingStatus.CANCELLED;
-                    }
-                    return false;
-                })
-                .sorted((b1, b2) -> {
-                    LocalDateTime time1 = b1.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime();
-                    LocalDateTime time2 = b2.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime();
-                    return time1.compareTo(time2);
+                    LocalDateTime showtimeDate = screeningTime(booking);
+                    return showtimeDate != null && showtimeDate.isAfter(now) && booking.getStatus() != BookingStatus.CANCELLED;
                 })
+                .sorted((b1, b2) -> screeningTime(b1).compareTo(screeningTime(b2)))
                 .collect(Collectors.toList());
     }
 
@@ -170,18 +162,15 @@ public class BookingService {
 
         return allBookings.stream()
                 .filter(booking -> {
-                    // Get the showtime date from the first seat (all seats have the same showtime)
-                    if (!booking.getBookingSeats().isEmpty()) {
-                        LocalDateTime showtimeDate = booking.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime();
-                        return showtimeDate.isBefore(now) || booking.getStatus() == BookingStatus.CANCELLED;
-                    }
-                    return false;
-                })
-                .sorted((b1, b2) -> {
-                    LocalDateTime time1 = b1.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime();
-                    LocalDateTime time2 = b2.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime();
-                    return time2.compareTo(time1); // Newest first
+                    LocalDateTime showtimeDate = screeningTime(booking);
+                    return showtimeDate != null && (showtimeDate.isBefore(now) || booking.getStatus() == BookingStatus.CANCELLED);
                 })
+                .sorted((b1, b2) -> screeningTime(b2).compareTo(screeningTime(b1))) // Newest first
                 .collect(Collectors.toList());
     }
+
+    private static LocalDateTime screeningTime(Booking booking) {
+        BookedScreening screening = booking.getScreening();
+        return screening != null ? screening.screeningTime() : null;
+    }
 }
@@ -0,0 +1,257 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.GateValidationDTO;
+import com.deloitte.absolute_cinema.dto.GateValidationDTO.Result;
+import com.deloitte.absolute_cinema.entity.BookedScreening;
+import com.deloitte.absolute_cinema.entity.Booking;
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import com.deloitte.absolute_cinema.event.BookingStatusChangedEvent;
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import com.deloitte.absolute_cinema.repository.GateAdmissionRepository;
+import com.deloitte.absolute_cinema.util.TicketSigner;
+import com.deloitte.absolute_cinema.util.TicketSigner.Ticket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Issues the signed payloads printed as e-ticket QR codes and validates them at the door.
+ * A scan is checked against the signature alone; admitted seats are tracked in a bitset per
+ * showtime, loaded once from "gate_admissions" the first time the showtime is scanned, and
+ * written back in batches by a scheduled flush. Only confirmed bookings get a signed payload;
+ * bookings that are unpaid or cancelled are kept in an in-memory revocation map until a day after
+ * their screening, when their tickets have expired anyway. Exposes "gate.scans" tagged by result.
+ */
+@Service
+@Slf4j
+public class GateService {
+    private static final int MAX_SEAT_INDEX = 1023;
+    // Longer than any movie, so a revocation outlives every ticket of the booking
+    private static final int REVOCATION_MARGIN_MINUTES = 24 * 60;
+    private static final String INSERT_ADMISSION =
+            "INSERT INTO gate_admissions (booking_id, showtime_id, seat_index, admitted_at) VALUES (?, ?, ?, ?)";
+
+    private final TicketSigner ticketSigner;
+    private final BookingRepository bookingRepository;
+    private final GateAdmissionRepository gateAdmissionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final long openBeforeMinutes;
+    private final int batchSize;
+
+    private final Map<Long, AdmissionLedger> ledgers = new ConcurrentHashMap<>();
+    // Booking ID to the epoch minute after which its tickets are expired anyway
+    private final Map<Long, Integer> revokedBookings = new ConcurrentHashMap<>();
+    private final Queue<Admission> pendingAdmissions = new ConcurrentLinkedQueue<>();
+    private final Map<Result, Counter> scanCounters = new EnumMap<>(Result.class);
+
+    public GateService(TicketSigner ticketSigner, BookingRepository bookingRepository,
+                       GateAdmissionRepository gateAdmissionRepository, JdbcTemplate jdbcTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${gate.ticket.open-before-minutes}") long openBeforeMinutes,
+                       @Value("${gate.admissions.batch-size}") int batchSize) {
+        this.ticketSigner = ticketSigner;
+        this.bookingRepository = bookingRepository;
+        this.gateAdmissionRepository = gateAdmissionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.openBeforeMinutes = openBeforeMinutes;
+        this.batchSize = batchSize;
+        for (Result result : Result.values()) {
+            scanCounters.put(result, meterRegistry.counter("gate.scans", "result", result.name()));
+        }
+    }
+
+    /**
+     * Signed payload for the QR code of a booking, valid from {@code gate.ticket.open-before-minutes}
+     * before the screening until the end of the movie. Only confirmed bookings are admitted.
+     */
+    public String issuePayload(Booking booking) {
+        if (booking.getStatus() != BookingStatus.CONFIRMED) {
+            throw new IllegalStateException("Booking " + booking.getId() + " is not confirmed");
+        }
+        BookedScreening screening = booking.getScreening();
+        LocalDateTime opens = screening.screeningTime().minusMinutes(openBeforeMinutes);
+        LocalDateTime closes = screening.movieDuration() != null
+                ? screening.screeningTime().plusMinutes(screening.movieDuration())
+                : screening.screeningTime();
+        int[] seats = screening.seatNumbers().stream()
+                .mapToInt(GateService::seatIndex)
+                .toArray();
+        return ticketSigner.sign(new Ticket(booking.getId(), screening.showtimeId(),
+                epochMinute(opens), epochMinute(closes), seats));
+    }
+
+    public GateValidationDTO validate(String payload) {
+        Ticket ticket = ticketSigner.verify(payload == null ? null : payload.trim()).orElse(null);
+        if (ticket == null || Arrays.stream(ticket.getSeats()).anyMatch(seat -> seat > MAX_SEAT_INDEX)) {
+            scanCounters.get(Result.INVALID).increment();
+            return GateValidationDTO.invalid();
+        }
+
+        int now = epochMinute(LocalDateTime.now());
+        Result result;
+        if (now < ticket.getValidFromMinute()) {
+            result = Result.NOT_YET_VALID;
+        } else if (now > ticket.getValidUntilMinute()) {
+            result = Result.EXPIRED;
+        } else if (revokedBookings.containsKey(ticket.getBookingId())) {
+            result = Result.REVOKED;
+        } else {
+            result = admit(ticket) ? Result.ADMITTED : Result.ALREADY_ADMITTED;
+        }
+        scanCounters.get(result).increment();
+        List<String> seats = Arrays.stream(ticket.getSeats()).mapToObj(seat -> "S" + seat).collect(Collectors.toList());
+        return new GateValidationDTO(result, ticket.getBookingId(), ticket.getShowtimeId(), seats);
+    }
+
+    // Admits every seat of the ticket not admitted before; false if all of them already were
+    private boolean admit(Ticket ticket) {
+        AdmissionLedger ledger = ledgers.computeIfAbsent(ticket.getShowtimeId(), this::loadLedger);
+        ledger.extendUntil(ticket.getValidUntilMinute());
+        LocalDateTime admittedAt = LocalDateTime.now();
+        boolean admitted = false;
+        for (int seat : ticket.getSeats()) {
+            if (ledger.admit(seat)) {
+                pendingAdmissions.add(new Admission(ticket.getBookingId(), ticket.getShowtimeId(), seat, admittedAt));
+                admitted = true;
+            }
+        }
+        return admitted;
+    }
+
+    private AdmissionLedger loadLedger(Long showtimeId) {
+        AdmissionLedger ledger = new AdmissionLedger();
+        for (Integer seat : gateAdmissionRepository.findSeatIndexesByShowtimeId(showtimeId)) {
+            ledger.admit(seat);
+        }
+        return ledger;
+    }
+
+    @Scheduled(fixedDelayString = "${gate.admissions.flush-interval-ms}")
+    public void flushAdmissions() {
+        List<Admission> batch = new ArrayList<>(batchSize);
+        Admission admission;
+        while ((admission = pendingAdmissions.poll()) != null) {
+            batch.add(admission);
+            if (batch.size() == batchSize) {
+                if (!write(batch)) {
+                    return;
+                }
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            write(batch);
+        }
+    }
+
+    private boolean write(List<Admission> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_ADMISSION, batch, batch.size(), (ps, a) -> {
+                ps.setLong(1, a.bookingId());
+                ps.setLong(2, a.showtimeId());
+                ps.setInt(3, a.seatIndex());
+                ps.setTimestamp(4, Timestamp.valueOf(a.admittedAt()));
+            });
+            return true;
+        } catch (RuntimeException e) {
+            // Keep the admissions for the next flush; the in-memory ledger already blocks re-entry
+            log.warn("Writing {} gate admissions failed, retrying on next flush: {}", batch.size(), e.getMessage());
+            pendingAdmissions.addAll(batch);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushAdmissions();
+    }
+
+    // Ledgers and revocations of showtimes whose tickets have all expired can no longer change
+    @Scheduled(fixedRate = 600000)
+    public void evictExpiredLedgers() {
+        int now = epochMinute(LocalDateTime.now());
+        ledgers.values().removeIf(ledger -> ledger.expiresAtMinute < now);
+        revokedBookings.values().removeIf(expiresAtMinute -> expiresAtMinute < now);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadRevokedBookings() {
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        List<Object[]> unconfirmed = new ArrayList<>(bookingRepository.findUnconfirmedBookingsScreeningFrom(from));
+        unconfirmed.addAll(bookingRepository.findUnconfirmedArchivedBookingsScreeningFrom(from));
+        for (Object[] row : unconfirmed) {
+            revoke((Long) row[0], (LocalDateTime) row[1]);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.getCurrentStatus() == BookingStatus.CONFIRMED) {
+            revokedBookings.remove(event.getBookingId());
+        } else {
+            // A booking without a screening has no ticket to revoke
+            bookingRepository.findScreeningTimeById(event.getBookingId())
+                    .ifPresent(screeningTime -> revoke(event.getBookingId(), screeningTime));
+        }
+    }
+
+    private void revoke(Long bookingId, LocalDateTime screeningTime) {
+        revokedBookings.put(bookingId, epochMinute(screeningTime) + REVOCATION_MARGIN_MINUTES);
+    }
+
+    static int seatIndex(String seatNumber) {
+        String digits = seatNumber == null ? "" : seatNumber.replaceAll("\\D", "");
+        if (digits.isEmpty()) {
+            throw new IllegalArgumentException("Seat number has no index: " + seatNumber);
+        }
+        return Integer.parseInt(digits);
+    }
+
+    private static int epochMinute(LocalDateTime time) {
+        Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+        return (int) (instant.getEpochSecond() / 60);
+    }
+
+    private record Admission(long bookingId, long showtimeId, int seatIndex, LocalDateTime admittedAt) {
+    }
+
+    private static final class AdmissionLedger {
+        private final AtomicLongArray seats = new AtomicLongArray((MAX_SEAT_INDEX + 64) / 64);
+        private volatile int expiresAtMinute;
+
+        // Sets the seat's bit; true if this call admitted it
+        boolean admit(int seat) {
+            long mask = 1L << (seat & 63);
+            return (seats.getAndAccumulate(seat >>> 6, mask, (current, bit) -> current | bit) & mask) == 0;
+        }
+
+        void extendUntil(int minute) {
+            if (minute > expiresAtMinute) {
+                expiresAtMinute = minute;
+            }
+        }
+    }
+}
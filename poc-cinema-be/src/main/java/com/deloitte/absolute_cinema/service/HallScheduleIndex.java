@@ -0,0 +1,362 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.FreeSlotDTO;
+import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.entity.Showtime;
+import com.deloitte.absolute_cinema.event.MovieChangedEvent;
+import com.deloitte.absolute_cinema.event.ShowtimeChangedEvent;
+import com.deloitte.absolute_cinema.exception.ShowtimeConflictException;
+import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * The time each showtime occupies its (cinema, hall): from the screening time until the movie's
+ * duration plus {@code schedule.hall.cleaning-minutes} later. Each hall keeps its intervals
+ * ordered by start along with the longest one it has held, so any interval that can overlap a
+ * slot starts at most that long before it; a conflict check is one O(log n) descent followed by
+ * the few neighbours inside that window. Loaded on startup, kept current by showtime and movie
+ * writes and pruned nightly. Also lists the stretches of a day a hall is free between
+ * {@code schedule.hall.opening-hour} and {@code schedule.hall.closing-hour}.
+ */
+@Component
+@Slf4j
+public class HallScheduleIndex {
+    private static final Comparator<Occupancy> BY_START =
+            Comparator.comparing(Occupancy::start).thenComparing(Occupancy::showtimeId);
+
+    private final ShowtimeRepository showtimeRepository;
+    private final Duration cleaning;
+    private final int openingHour;
+    private final int closingHour;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Both guarded by lock
+    private final Map<HallKey, Hall> halls = new HashMap<>();
+    private final Map<Long, Occupancy> byShowtime = new HashMap<>();
+    private volatile boolean loaded;
+    // Ids of slots reserved for showtimes not saved yet count down from -1; real ids are positive
+    private final AtomicLong nextReservation = new AtomicLong();
+
+    public HallScheduleIndex(ShowtimeRepository showtimeRepository,
+                             @Value("${schedule.hall.cleaning-minutes}") int cleaningMinutes,
+                             @Value("${schedule.hall.opening-hour}") int openingHour,
+                             @Value("${schedule.hall.closing-hour}") int closingHour) {
+        this.showtimeRepository = showtimeRepository;
+        this.cleaning = Duration.ofMinutes(cleaningMinutes);
+        this.openingHour = openingHour;
+        this.closingHour = closingHour;
+    }
+
+    private record HallKey(Long cinemaId, int hall) {
+    }
+
+    private record Occupancy(Long showtimeId, Long movieId, HallKey hall, LocalDateTime start, LocalDateTime end) {
+    }
+
+    private static final class Hall {
+        final TreeSet<Occupancy> byStart = new TreeSet<>(BY_START);
+        // Never shrinks; a stale maximum only widens the scan window
+        Duration longest = Duration.ZERO;
+    }
+
+    /**
+     * Saves the showtime unless its slot overlaps another showtime in the same hall, in which
+     * case a {@link ShowtimeConflictException} names the showtimes in the way. The slot is
+     * reserved under the write lock, so two writes can never both claim it, and the save runs
+     * outside it; the reservation is then confirmed under the saved id, or released if the save
+     * fails. A rescheduled showtime keeps its old slot until then.
+     */
+    public Showtime schedule(Showtime showtime, UnaryOperator<Showtime> save) {
+        long reservation = reserve(showtime.getId(), showtime.getCinema().getId(), showtime.getHall(),
+                showtime.getScreeningTime(), showtime.getMovie().getId(), showtime.getMovie().getDuration());
+        Showtime saved;
+        try {
+            saved = save.apply(showtime);
+        } catch (RuntimeException e) {
+            release(reservation);
+            throw e;
+        }
+        confirm(reservation, saved.getId());
+        return saved;
+    }
+
+    /**
+     * Claims a slot for a showtime that will be saved later, so that writes batched together
+     * are checked against each other as well as against saved showtimes. Returns a reservation
+     * id to {@link #confirm} once the showtime is saved or {@link #release} if it is not, and
+     * throws {@link ShowtimeConflictException} if the slot is taken.
+     */
+    public long reserve(Long cinemaId, int hall, LocalDateTime start, Long movieId, int durationMinutes) {
+        return reserve(null, cinemaId, hall, start, movieId, durationMinutes);
+    }
+
+    // As reserve, not counting the current slot of showtimeId, which the reservation will replace
+    private long reserve(Long showtimeId, Long cinemaId, int hall, LocalDateTime start, Long movieId,
+                         int durationMinutes) {
+        lock.writeLock().lock();
+        try {
+            Occupancy proposed = occupancy(nextReservation.decrementAndGet(), movieId, cinemaId, hall, start, durationMinutes);
+            List<Occupancy> conflicts = overlapping(proposed, showtimeId);
+            if (!conflicts.isEmpty()) {
+                throw new ShowtimeConflictException(describe(proposed, conflicts));
+            }
+            put(proposed);
+            return proposed.showtimeId();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void confirm(long reservationId, Long showtimeId) {
+        lock.writeLock().lock();
+        try {
+            Occupancy reserved = byShowtime.get(reservationId);
+            if (reserved != null) {
+                remove(reservationId);
+                put(new Occupancy(showtimeId, reserved.movieId(), reserved.hall(), reserved.start(), reserved.end()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Frees a reservation, or the slot of a confirmed showtime whose save was rolled back.
+     */
+    public void release(long id) {
+        lock.writeLock().lock();
+        try {
+            remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the showtimes a screening of the given length would overlap, ignoring
+     * {@code showtimeId} itself when it is already scheduled.
+     */
+    public List<Long> conflicts(Long cinemaId, int hall, LocalDateTime start, int durationMinutes, Long showtimeId) {
+        Occupancy proposed = occupancy(showtimeId, null, cinemaId, hall, start, durationMinutes);
+        lock.readLock().lock();
+        try {
+            return overlapping(proposed, showtimeId).stream().map(Occupancy::showtimeId).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Stretches of the day, from opening (or now) to closing, in which the hall is free for at
+     * least {@code durationMinutes} plus cleaning.
+     */
+    public List<FreeSlotDTO> freeSlots(Long cinemaId, int hall, LocalDate date, int durationMinutes) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime opening = date.atStartOfDay().plusHours(openingHour);
+        LocalDateTime closing = date.atStartOfDay().plusHours(closingHour);
+        Duration needed = Duration.ofMinutes(durationMinutes).plus(cleaning);
+
+        List<FreeSlotDTO> free = new ArrayList<>();
+        LocalDateTime cursor = opening.isBefore(now) ? now : opening;
+        lock.readLock().lock();
+        try {
+            Hall occupied = halls.get(new HallKey(cinemaId, hall));
+            if (occupied != null) {
+                for (Occupancy occupancy : window(occupied, cursor, closing)) {
+                    if (occupancy.start().isAfter(cursor)) {
+                        addIfFits(free, cursor, occupancy.start(), needed);
+                    }
+                    if (occupancy.end().isAfter(cursor)) {
+                        cursor = occupancy.end();
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        addIfFits(free, cursor, closing, needed);
+        return free;
+    }
+
+    private static void addIfFits(List<FreeSlotDTO> free, LocalDateTime from, LocalDateTime to, Duration needed) {
+        if (from.isBefore(to) && !from.plus(needed).isAfter(to)) {
+            free.add(new FreeSlotDTO(from, to));
+        }
+    }
+
+    // Caller holds the lock
+    private List<Occupancy> overlapping(Occupancy proposed, Long ignoring) {
+        Hall hall = halls.get(proposed.hall());
+        if (hall == null) {
+            return List.of();
+        }
+        List<Occupancy> overlapping = new ArrayList<>();
+        for (Occupancy occupancy : window(hall, proposed.start(), proposed.end())) {
+            if (occupancy.end().isAfter(proposed.start())
+                    && !Objects.equals(occupancy.showtimeId(), ignoring)) {
+                overlapping.add(occupancy);
+            }
+        }
+        return overlapping;
+    }
+
+    // Every interval that can overlap [from, to): starting before "to", and at most the longest one before "from"
+    private static Iterable<Occupancy> window(Hall hall, LocalDateTime from, LocalDateTime to) {
+        return hall.byStart.subSet(probe(from.minus(hall.longest)), true, probe(to), false);
+    }
+
+    private static Occupancy probe(LocalDateTime start) {
+        return new Occupancy(Long.MIN_VALUE, null, null, start, start);
+    }
+
+    private Occupancy occupancy(Long showtimeId, Long movieId, Long cinemaId, int hall,
+                                LocalDateTime start, int durationMinutes) {
+        return new Occupancy(showtimeId, movieId, new HallKey(cinemaId, hall), start,
+                start.plusMinutes(durationMinutes).plus(cleaning));
+    }
+
+    private static String describe(Occupancy proposed, List<Occupancy> conflicts) {
+        return "Hall " + proposed.hall().hall() + " of cinema " + proposed.hall().cinemaId() + " is in use by "
+                + conflicts.stream()
+                .map(o -> (o.showtimeId() < 0 ? "a pending showtime" : "showtime " + o.showtimeId())
+                        + " (" + o.start() + " to " + o.end() + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    // Caller holds the write lock
+    private void put(Occupancy occupancy) {
+        remove(occupancy.showtimeId());
+        byShowtime.put(occupancy.showtimeId(), occupancy);
+        Hall hall = halls.computeIfAbsent(occupancy.hall(), key -> new Hall());
+        hall.byStart.add(occupancy);
+        Duration length = Duration.between(occupancy.start(), occupancy.end());
+        if (length.compareTo(hall.longest) > 0) {
+            hall.longest = length;
+        }
+    }
+
+    // Caller holds the write lock
+    private void remove(Long showtimeId) {
+        Occupancy previous = byShowtime.remove(showtimeId);
+        if (previous != null) {
+            Hall hall = halls.get(previous.hall());
+            hall.byStart.remove(previous);
+            if (hall.byStart.isEmpty()) {
+                halls.remove(previous.hall());
+            }
+        }
+    }
+
+    private Occupancy toOccupancy(Object[] row) {
+        Integer duration = (Integer) row[5];
+        return occupancy((Long) row[0], (Long) row[4], (Long) row[1], (Integer) row[2], (LocalDateTime) row[3],
+                duration != null ? duration : 0);
+    }
+
+    // New showtimes saved through schedule() or confirm() are already indexed; anything else is read back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShowtimeChanged(ShowtimeChangedEvent event) {
+        if (!loaded || (!event.isRemoved() && event.getPreviousScreeningTime() == null && indexed(event.getShowtimeId()))) {
+            return;
+        }
+        List<Object[]> rows = event.isRemoved()
+                ? List.of()
+                : showtimeRepository.findHallOccupancyById(event.getShowtimeId());
+        lock.writeLock().lock();
+        try {
+            if (rows.isEmpty()) {
+                remove(event.getShowtimeId());
+            } else {
+                put(toOccupancy(rows.get(0)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean indexed(Long showtimeId) {
+        lock.readLock().lock();
+        try {
+            return byShowtime.containsKey(showtimeId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // A new running time moves the end of every showtime of the movie
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        Movie movie = event.getMovie();
+        if (event.isRemoved() || movie.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Occupancy occupancy : List.copyOf(byShowtime.values())) {
+                if (movie.getId().equals(occupancy.movieId())) {
+                    put(occupancy(occupancy.showtimeId(), occupancy.movieId(), occupancy.hall().cinemaId(),
+                            occupancy.hall().hall(), occupancy.start(), movie.getDuration()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Marked loaded first so writes racing with the query are applied, and then not overwritten by it
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loaded = true;
+        List<Object[]> rows = showtimeRepository.findHallOccupancyFrom(LocalDateTime.now().minusDays(1));
+        lock.writeLock().lock();
+        try {
+            for (Object[] row : rows) {
+                if (!byShowtime.containsKey((Long) row[0])) {
+                    put(toOccupancy(row));
+                }
+            }
+            log.info("Indexed {} showtimes across {} halls", byShowtime.size(), halls.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Showtimes that have ended can no longer conflict with anything
+    @Scheduled(cron = "0 15 0 * * *")
+    public void pruneEnded() {
+        LocalDateTime now = LocalDateTime.now();
+        lock.writeLock().lock();
+        try {
+            for (Occupancy occupancy : List.copyOf(byShowtime.values())) {
+                if (occupancy.end().isBefore(now)) {
+                    remove(occupancy.showtimeId());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
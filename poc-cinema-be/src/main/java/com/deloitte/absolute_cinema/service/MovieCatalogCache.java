@@ -0,0 +1,126 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.event.MovieChangedEvent;
+import com.deloitte.absolute_cinema.repository.MovieRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through, in-process copy of the movie catalog. The whole catalog is held as one immutable
+ * {@link Snapshot} that is loaded on first use and replaced copy-on-write after every committed
+ * movie write, so readers never touch the database and never see a half-applied change.
+ * DTOs in a snapshot are shared between requests and must not be modified.
+ * Exposes "movie.catalog.reads" (tagged hit/miss), "movie.catalog.refresh" (tagged full/incremental)
+ * and "movie.catalog.size".
+ */
+@Component
+public class MovieCatalogCache {
+
+    private final MovieRepository movieRepository;
+    private final PosterStore posterStore;
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer fullRefreshTimer;
+    private final Timer incrementalRefreshTimer;
+
+    private volatile Snapshot snapshot;
+
+    public MovieCatalogCache(MovieRepository movieRepository, PosterStore posterStore, MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.posterStore = posterStore;
+        this.hits = meterRegistry.counter("movie.catalog.reads", "result", "hit");
+        this.misses = meterRegistry.counter("movie.catalog.reads", "result", "miss");
+        this.fullRefreshTimer = meterRegistry.timer("movie.catalog.refresh", "kind", "full");
+        this.incrementalRefreshTimer = meterRegistry.timer("movie.catalog.refresh", "kind", "incremental");
+        meterRegistry.gauge("movie.catalog.size", this,
+                cache -> cache.snapshot == null ? 0 : cache.snapshot.getMovies().size());
+    }
+
+    /**
+     * Immutable view of the catalog: movies ordered by id plus their distinct genres and languages.
+     */
+    @Getter
+    public static final class Snapshot {
+        private final List<MovieDTO> movies;
+        private final Map<Long, MovieDTO> moviesById;
+        private final List<String> genres;
+        private final List<String> languages;
+
+        private Snapshot(Collection<MovieDTO> movies) {
+            List<MovieDTO> ordered = new ArrayList<>(movies);
+            ordered.sort(Comparator.comparing(MovieDTO::getId));
+            Map<Long, MovieDTO> byId = new LinkedHashMap<>();
+            for (MovieDTO movie : ordered) {
+                byId.put(movie.getId(), movie);
+            }
+            this.movies = Collections.unmodifiableList(ordered);
+            this.moviesById = Collections.unmodifiableMap(byId);
+            this.genres = distinctSorted(ordered, MovieDTO::getGenre);
+            this.languages = distinctSorted(ordered, MovieDTO::getLanguage);
+        }
+
+        private static List<String> distinctSorted(List<MovieDTO> movies, Function<MovieDTO, String> field) {
+            return movies.stream()
+                    .map(field)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .sorted()
+                    .collect(Collectors.toUnmodifiableList());
+        }
+    }
+
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return load();
+    }
+
+    private synchronized Snapshot load() {
+        if (snapshot == null) {
+            snapshot = fullRefreshTimer.record(() -> new Snapshot(movieRepository.findAll().stream()
+                    .map(movie -> MovieService.mapToDTO(movie, posterStore))
+                    .collect(Collectors.toList())));
+        }
+        return snapshot;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onMovieChanged(MovieChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Nothing loaded yet; the first read picks the change up
+            return;
+        }
+        incrementalRefreshTimer.record(() -> {
+            Map<Long, MovieDTO> movies = new LinkedHashMap<>(current.getMoviesById());
+            Movie movie = event.getMovie();
+            if (event.isRemoved()) {
+                movies.remove(movie.getId());
+            } else {
+                movies.put(movie.getId(), MovieService.mapToDTO(movie, posterStore));
+            }
+            snapshot = new Snapshot(movies.values());
+        });
+    }
+}
@@ -0,0 +1,252 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.dto.MovieFilterResultDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Inverted index over the {@link MovieCatalogCache} snapshot used for multi-facet filtering.
+ * Every movie is addressed by its ordinal in the snapshot; genre, language and age rating map
+ * each value to a bitmap of ordinals, and review score and release year are kept as ordinals
+ * sorted by value so a range becomes a binary search. A query ORs the selected values within a
+ * facet and ANDs the facets together. The index is rebuilt lazily whenever the snapshot changes.
+ */
+@Component
+public class MovieFacetIndex {
+
+    public static final String GENRE = "genre";
+    public static final String LANGUAGE = "language";
+    public static final String AGE_RATING = "ageRating";
+
+    private final MovieCatalogCache movieCatalogCache;
+
+    private volatile Index index;
+
+    public MovieFacetIndex(MovieCatalogCache movieCatalogCache) {
+        this.movieCatalogCache = movieCatalogCache;
+    }
+
+    /**
+     * Criteria of a combined filter; null or empty fields do not restrict the result.
+     */
+    public record Query(Collection<String> genres, Collection<String> languages, Collection<String> ageRatings,
+                        Double minReview, Double maxReview, Integer fromYear, Integer toYear) {
+    }
+
+    /**
+     * Returns page {@code page} of {@code size} matching movies in snapshot order, with the total
+     * number of matches and the facet counts over all of them.
+     */
+    public MovieFilterResultDTO filter(Query query, int page, int size) {
+        Index current = index();
+        int count = current.movies.size();
+
+        BitSet genre = current.genres.match(query.genres(), count);
+        BitSet language = current.languages.match(query.languages(), count);
+        BitSet ageRating = current.ageRatings.match(query.ageRatings(), count);
+        BitSet ranges = all(count);
+        if (query.minReview() != null || query.maxReview() != null) {
+            ranges.and(current.reviews.between(query.minReview(), query.maxReview()));
+        }
+        if (query.fromYear() != null || query.toYear() != null) {
+            ranges.and(current.years.between(
+                    query.fromYear() == null ? null : query.fromYear().doubleValue(),
+                    query.toYear() == null ? null : query.toYear().doubleValue()));
+        }
+
+        BitSet matches = intersect(ranges, genre, language, ageRating);
+        int total = matches.cardinality();
+        long skip = (long) page * size;
+        List<MovieDTO> movies = new ArrayList<>(skip >= total ? 0 : (int) Math.min(size, total - skip));
+        for (int i = matches.nextSetBit(0); i >= 0 && movies.size() < size; i = matches.nextSetBit(i + 1)) {
+            if (skip > 0) {
+                skip--;
+            } else {
+                movies.add(current.movies.get(i));
+            }
+        }
+
+        // Each facet is counted against every other facet's selection, so the counts show
+        // what picking another value of that facet would return
+        Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+        facets.put(GENRE, current.genres.count(intersect(ranges, language, ageRating)));
+        facets.put(LANGUAGE, current.languages.count(intersect(ranges, genre, ageRating)));
+        facets.put(AGE_RATING, current.ageRatings.count(intersect(ranges, genre, language)));
+        return new MovieFilterResultDTO(movies, total, page, size, facets);
+    }
+
+    private Index index() {
+        MovieCatalogCache.Snapshot snapshot = movieCatalogCache.snapshot();
+        Index current = index;
+        if (current != null && current.snapshot == snapshot) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null || index.snapshot != snapshot) {
+                index = new Index(snapshot);
+            }
+            return index;
+        }
+    }
+
+    private static BitSet all(int size) {
+        BitSet bits = new BitSet(size);
+        bits.set(0, size);
+        return bits;
+    }
+
+    private static BitSet intersect(BitSet first, BitSet... others) {
+        BitSet result = (BitSet) first.clone();
+        for (BitSet other : others) {
+            result.and(other);
+        }
+        return result;
+    }
+
+    private static final class Index {
+        private final MovieCatalogCache.Snapshot snapshot;
+        private final List<MovieDTO> movies;
+        private final ValueFacet genres;
+        private final ValueFacet languages;
+        private final ValueFacet ageRatings;
+        private final RangeFacet reviews;
+        private final RangeFacet years;
+
+        private Index(MovieCatalogCache.Snapshot snapshot) {
+            this.snapshot = snapshot;
+            this.movies = snapshot.getMovies();
+            this.genres = new ValueFacet(movies, MovieDTO::getGenre, true);
+            this.languages = new ValueFacet(movies, MovieDTO::getLanguage, true);
+            this.ageRatings = new ValueFacet(movies, MovieDTO::getRating, false);
+            this.reviews = new RangeFacet(movies, MovieDTO::getReview);
+            this.years = new RangeFacet(movies,
+                    movie -> movie.getReleaseDate() == null ? null : (double) movie.getReleaseDate().getYear());
+        }
+    }
+
+    // Bitmap of ordinals per value, keyed case-insensitively
+    private static final class ValueFacet {
+        private final Map<String, BitSet> bitmaps = new HashMap<>();
+        private final Map<String, String> labels = new TreeMap<>();
+
+        private ValueFacet(List<MovieDTO> movies, Function<MovieDTO, String> field, boolean multiValued) {
+            for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+                String value = field.apply(movies.get(ordinal));
+                if (value == null) {
+                    continue;
+                }
+                for (String part : multiValued ? value.split(",") : new String[]{value}) {
+                    String label = part.trim();
+                    if (label.isEmpty()) {
+                        continue;
+                    }
+                    String key = label.toLowerCase(Locale.ROOT);
+                    bitmaps.computeIfAbsent(key, k -> new BitSet(movies.size())).set(ordinal);
+                    labels.putIfAbsent(key, label);
+                }
+            }
+        }
+
+        BitSet match(Collection<String> values, int size) {
+            if (values == null || values.isEmpty()) {
+                return all(size);
+            }
+            BitSet result = new BitSet(size);
+            for (String value : values) {
+                BitSet bitmap = bitmaps.get(value.trim().toLowerCase(Locale.ROOT));
+                if (bitmap != null) {
+                    result.or(bitmap);
+                }
+            }
+            return result;
+        }
+
+        Map<String, Integer> count(BitSet within) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            labels.forEach((key, label) -> {
+                BitSet bitmap = (BitSet) bitmaps.get(key).clone();
+                bitmap.and(within);
+                counts.put(label, bitmap.cardinality());
+            });
+            return counts;
+        }
+    }
+
+    // Ordinals sorted by value, so an inclusive range is two binary searches
+    private static final class RangeFacet {
+        private final double[] values;
+        private final int[] ordinals;
+
+        private RangeFacet(List<MovieDTO> movies, Function<MovieDTO, Double> field) {
+            Integer[] sorted = new Integer[movies.size()];
+            Double[] byOrdinal = new Double[movies.size()];
+            int count = 0;
+            for (int ordinal = 0; ordinal < movies.size(); ordinal++) {
+                byOrdinal[ordinal] = field.apply(movies.get(ordinal));
+                if (byOrdinal[ordinal] != null) {
+                    sorted[count++] = ordinal;
+                }
+            }
+            Integer[] present = Arrays.copyOf(sorted, count);
+            Arrays.sort(present, (a, b) -> Double.compare(byOrdinal[a], byOrdinal[b]));
+            this.values = new double[count];
+            this.ordinals = new int[count];
+            for (int i = 0; i < count; i++) {
+                ordinals[i] = present[i];
+                values[i] = byOrdinal[present[i]];
+            }
+        }
+
+        BitSet between(Double min, Double max) {
+            int from = min == null ? 0 : lowerBound(min);
+            int to = max == null ? values.length : upperBound(max);
+            BitSet result = new BitSet();
+            for (int i = from; i < to; i++) {
+                result.set(ordinals[i]);
+            }
+            return result;
+        }
+
+        // First position whose value is >= key
+        private int lowerBound(double key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First position whose value is > key
+        private int upperBound(double key) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] <= key) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import com.deloitte.absolute_cinema.entity.MovieDailyBookingStats;
+import com.deloitte.absolute_cinema.event.BookingStatusChangedEvent;
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import com.deloitte.absolute_cinema.repository.MovieDailyBookingStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Confirmed seats per movie per booking day, kept in memory for the last
+ * {@code popularity.rollup.retention-days} days and persisted to "movie_daily_booking_stats".
+ * Booking confirmations and cancellations adjust the counters as they commit; the deltas are
+ * written back by a scheduled flush. Rankings for a window are computed once per change and
+ * then served from memory. On first start the table is backfilled from the bookings.
+ */
+@Component
+@Slf4j
+public class MoviePopularityRollup {
+    private static final String UPDATE_STATS = "UPDATE movie_daily_booking_stats " +
+            "SET confirmed_seats = confirmed_seats + ? WHERE movie_id = ? AND stat_date = ?";
+    private static final String INSERT_STATS =
+            "INSERT INTO movie_daily_booking_stats (movie_id, stat_date, confirmed_seats) VALUES (?, ?, ?)";
+
+    private final BookingRepository bookingRepository;
+    private final MovieDailyBookingStatsRepository statsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+
+    // Booking day -> movie id -> confirmed seats
+    private final ConcurrentNavigableMap<LocalDate, Map<Long, Long>> counts = new ConcurrentSkipListMap<>();
+    // Changes not yet written to movie_daily_booking_stats
+    private final Map<DayKey, Long> pending = new ConcurrentHashMap<>();
+    // Bumped on every change; a ranking computed for an older version is recomputed on read
+    private final AtomicLong version = new AtomicLong();
+    private final Map<LocalDate, Ranking> rankings = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public MoviePopularityRollup(BookingRepository bookingRepository,
+                                 MovieDailyBookingStatsRepository statsRepository, JdbcTemplate jdbcTemplate,
+                                 @Value("${popularity.rollup.retention-days}") int retentionDays) {
+        this.bookingRepository = bookingRepository;
+        this.statsRepository = statsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = retentionDays;
+    }
+
+    private record DayKey(Long movieId, LocalDate day) {
+    }
+
+    // Movie ids with their confirmed seats, most booked first
+    private record Ranking(long version, List<Map.Entry<Long, Long>> entries) {
+    }
+
+    /**
+     * Movie ids with their confirmed seats over bookings made from {@code from} (inclusive) until
+     * now, most booked first. Movies without bookings in the window are not included.
+     */
+    public List<Map.Entry<Long, Long>> top(LocalDate from, int limit) {
+        long current = version.get();
+        Ranking ranking = rankings.get(from);
+        if (ranking == null || ranking.version() != current) {
+            ranking = new Ranking(current, rank(from));
+            rankings.put(from, ranking);
+        }
+        return ranking.entries().subList(0, Math.min(limit, ranking.entries().size()));
+    }
+
+    private List<Map.Entry<Long, Long>> rank(LocalDate from) {
+        Map<Long, Long> totals = new HashMap<>();
+        for (Map<Long, Long> day : counts.tailMap(from, true).values()) {
+            day.forEach((movieId, seats) -> totals.merge(movieId, seats, Long::sum));
+        }
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(totals.size());
+        totals.forEach((movieId, seats) -> {
+            if (seats > 0) {
+                entries.add(Map.entry(movieId, seats));
+            }
+        });
+        entries.sort(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return List.copyOf(entries);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        boolean wasConfirmed = event.getPreviousStatus() == BookingStatus.CONFIRMED;
+        boolean isConfirmed = event.getCurrentStatus() == BookingStatus.CONFIRMED;
+        if (wasConfirmed == isConfirmed) {
+            return;
+        }
+        long sign = isConfirmed ? 1 : -1;
+        for (Object[] row : bookingRepository.findSeatCountsByMovie(event.getBookingId())) {
+            Long movieId = (Long) row[0];
+            LocalDate day = ((LocalDateTime) row[1]).toLocalDate();
+            long seats = sign * (Long) row[2];
+            add(movieId, day, seats);
+            pending.merge(new DayKey(movieId, day), seats, Long::sum);
+        }
+    }
+
+    private void add(Long movieId, LocalDate day, long seats) {
+        if (day.isBefore(LocalDate.now().minusDays(retentionDays))) {
+            return;
+        }
+        counts.computeIfAbsent(day, d -> new ConcurrentHashMap<>()).merge(movieId, seats, Long::sum);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Read-only view of the retained days: booking day -> movie id -> confirmed seats.
+     */
+    public SortedMap<LocalDate, Map<Long, Long>> dailyCounts() {
+        return Collections.unmodifiableSortedMap(counts);
+    }
+
+    // Ordered first so listeners that read dailyCounts() on startup see the loaded counts
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void load() {
+        LocalDate from = LocalDate.now().minusDays(retentionDays);
+        if (statsRepository.count() == 0) {
+            backfill(from);
+        } else {
+            for (MovieDailyBookingStats stats : statsRepository.findByStatDateGreaterThanEqual(from)) {
+                add(stats.getMovieId(), stats.getStatDate(), stats.getConfirmedSeats());
+            }
+        }
+        loaded = true;
+    }
+
+    // First start: aggregate the retained days from the bookings once, in memory and in the table
+    private void backfill(LocalDate from) {
+        Map<DayKey, Long> totals = new HashMap<>();
+        for (Object[] row : bookingRepository.findConfirmedSeatCountsByMovieCreatedFrom(from.atStartOfDay())) {
+            totals.merge(new DayKey((Long) row[0], ((LocalDateTime) row[1]).toLocalDate()), (Long) row[2], Long::sum);
+        }
+        totals.forEach((key, seats) -> add(key.movieId(), key.day(), seats));
+        List<Map.Entry<DayKey, Long>> rows = new ArrayList<>(totals.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_STATS, rows, 500, (ps, row) -> {
+            ps.setLong(1, row.getKey().movieId());
+            ps.setDate(2, Date.valueOf(row.getKey().day()));
+            ps.setLong(3, row.getValue());
+        });
+        log.info("Backfilled {} movie booking stats rows", rows.size());
+    }
+
+    @Scheduled(fixedDelayString = "${popularity.rollup.flush-interval-ms}")
+    public void flush() {
+        if (!loaded || pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<DayKey, Long>> batch = new ArrayList<>();
+        for (DayKey key : pending.keySet()) {
+            Long seats = pending.remove(key);
+            if (seats != null && seats != 0) {
+                batch.add(Map.entry(key, seats));
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            int[] updated = jdbcTemplate.batchUpdate(UPDATE_STATS, batch, batch.size(), (ps, row) -> {
+                ps.setLong(1, row.getValue());
+                ps.setLong(2, row.getKey().movieId());
+                ps.setDate(3, Date.valueOf(row.getKey().day()));
+            })[0];
+            List<Map.Entry<DayKey, Long>> missing = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    missing.add(batch.get(i));
+                }
+            }
+            if (!missing.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_STATS, missing, missing.size(), (ps, row) -> {
+                    ps.setLong(1, row.getKey().movieId());
+                    ps.setDate(2, Date.valueOf(row.getKey().day()));
+                    ps.setLong(3, row.getValue());
+                });
+            }
+        } catch (RuntimeException e) {
+            // Keep the deltas for the next flush; the in-memory counters are already up to date
+            log.warn("Writing {} movie booking stats failed, retrying on next flush: {}", batch.size(), e.getMessage());
+            batch.forEach(row -> pending.merge(row.getKey(), row.getValue(), Long::sum));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // Days past the longest window no longer contribute to any ranking
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictExpiredDays() {
+        counts.headMap(LocalDate.now().minusDays(retentionDays)).clear();
+        rankings.clear();
+        version.incrementAndGet();
+    }
+}
@@ -0,0 +1,303 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import com.deloitte.absolute_cinema.event.BookingStatusChangedEvent;
+import com.deloitte.absolute_cinema.event.FavouriteChangedEvent;
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import com.deloitte.absolute_cinema.repository.UserFavouriteMovieRepository;
+import com.deloitte.absolute_cinema.util.LongIntHashMap;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Item-to-item recommendations from a sparse movie x movie co-occurrence matrix: two movies
+ * co-occur once for every user who favourited or booked both. Each user's movies are kept with
+ * a count of their sources (the favourite, each confirmed booking), and a pair is linked or
+ * unlinked only when a movie enters or leaves that set, so favourites, removals and booking
+ * confirmations update the matrix incrementally. Scores are cosine similarities. The user sets
+ * are snapshotted to {@code recommend.snapshot.path} so restarts skip the database, and rebuilt
+ * from it on {@code recommend.rebuild-cron} to correct any drift. Queries never touch the database.
+ */
+@Component
+@Slf4j
+public class MovieRecommender {
+    private static final int SNAPSHOT_MAGIC = 0x41435231;
+
+    private final UserFavouriteMovieRepository favouriteRepository;
+    private final BookingRepository bookingRepository;
+    private final Path snapshotPath;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // All guarded by lock. User id -> movie id -> number of sources
+    private final Map<Long, LongIntHashMap> userMovies = new HashMap<>();
+    // Movie id -> other movie id -> users with both
+    private final Map<Long, LongIntHashMap> cooccurrence = new HashMap<>();
+    // Movie id -> users with it
+    private final LongIntHashMap movieUsers = new LongIntHashMap();
+    private volatile boolean dirty;
+
+    public MovieRecommender(UserFavouriteMovieRepository favouriteRepository, BookingRepository bookingRepository,
+                            @Value("${recommend.snapshot.path}") String snapshotPath) {
+        this.favouriteRepository = favouriteRepository;
+        this.bookingRepository = bookingRepository;
+        this.snapshotPath = Path.of(snapshotPath);
+    }
+
+    /**
+     * Movies most often liked together with the given one, best match first.
+     */
+    public List<Long> alsoLiked(Long movieId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongIntHashMap row = cooccurrence.get(movieId);
+            if (row == null) {
+                return List.of();
+            }
+            double movieUserCount = movieUsers.get(movieId);
+            Map<Long, Double> scores = new HashMap<>();
+            row.forEach((other, together) ->
+                    scores.put(other, together / Math.sqrt(movieUserCount * movieUsers.get(other))));
+            return best(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Movies the user has neither favourited nor booked, scored by their similarity to the ones
+     * they have, best first. Empty for users without favourites or bookings.
+     */
+    public List<Long> recommend(Long userId, int limit) {
+        lock.readLock().lock();
+        try {
+            LongIntHashMap owned = userMovies.get(userId);
+            if (owned == null) {
+                return List.of();
+            }
+            Map<Long, Double> scores = new HashMap<>();
+            owned.forEach((movieId, sources) -> {
+                LongIntHashMap row = cooccurrence.get(movieId);
+                if (row == null) {
+                    return;
+                }
+                double movieUserCount = movieUsers.get(movieId);
+                row.forEach((other, together) -> {
+                    if (owned.get(other) == 0) {
+                        scores.merge(other, together / Math.sqrt(movieUserCount * movieUsers.get(other)), Double::sum);
+                    }
+                });
+            });
+            return best(scores, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static List<Long> best(Map<Long, Double> scores, int limit) {
+        List<Map.Entry<Long, Double>> entries = new ArrayList<>(scores.entrySet());
+        entries.sort(Map.Entry.<Long, Double>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return entries.stream().limit(limit).map(Map.Entry::getKey).toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFavouriteChanged(FavouriteChangedEvent event) {
+        update(event.getUserId(), event.getMovieId(), event.isRemoved() ? -1 : 1);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        boolean wasConfirmed = event.getPreviousStatus() == BookingStatus.CONFIRMED;
+        boolean isConfirmed = event.getCurrentStatus() == BookingStatus.CONFIRMED;
+        if (wasConfirmed == isConfirmed) {
+            return;
+        }
+        for (Object[] row : bookingRepository.findUserMovieIds(event.getBookingId())) {
+            update((Long) row[0], (Long) row[1], isConfirmed ? 1 : -1);
+        }
+    }
+
+    private void update(long userId, long movieId, int delta) {
+        lock.writeLock().lock();
+        try {
+            adjust(userId, movieId, delta);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Caller holds the write lock
+    private void adjust(long userId, long movieId, int delta) {
+        LongIntHashMap movies = userMovies.computeIfAbsent(userId, id -> new LongIntHashMap());
+        int before = movies.get(movieId);
+        int after = movies.addTo(movieId, Math.max(delta, -before));
+        if (before == 0 && after > 0) {
+            link(movies, movieId, 1);
+        } else if (before > 0 && after == 0) {
+            link(movies, movieId, -1);
+        }
+        if (movies.isEmpty()) {
+            userMovies.remove(userId);
+        }
+    }
+
+    // Pairs the movie with every other movie in the user's set
+    private void link(LongIntHashMap movies, long movieId, int delta) {
+        movieUsers.addTo(movieId, delta);
+        movies.forEach((other, sources) -> {
+            if (other != movieId) {
+                addPair(movieId, other, delta);
+                addPair(other, movieId, delta);
+            }
+        });
+    }
+
+    private void addPair(long movieId, long other, int delta) {
+        LongIntHashMap row = cooccurrence.computeIfAbsent(movieId, id -> new LongIntHashMap());
+        row.addTo(other, delta);
+        if (row.isEmpty()) {
+            cooccurrence.remove(movieId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (Files.exists(snapshotPath)) {
+            try {
+                readSnapshot();
+                return;
+            } catch (IOException e) {
+                log.warn("Could not read recommendation snapshot {}, rebuilding: {}", snapshotPath, e.getMessage());
+            }
+        }
+        rebuild();
+    }
+
+    @Scheduled(cron = "${recommend.rebuild-cron}")
+    public void rebuild() {
+        List<Object[]> favourites = favouriteRepository.findAllUserMovieIds();
+        // A pair can appear in both lists; its counts add up
+        List<Object[]> bookings = new ArrayList<>(bookingRepository.findConfirmedBookingCountsByUserAndMovie());
+        bookings.addAll(bookingRepository.findArchivedConfirmedBookingCountsByUserAndMovie());
+        lock.writeLock().lock();
+        try {
+            userMovies.clear();
+            cooccurrence.clear();
+            movieUsers.clear();
+            for (Object[] row : favourites) {
+                adjust((Long) row[0], (Long) row[1], 1);
+            }
+            for (Object[] row : bookings) {
+                adjust((Long) row[0], (Long) row[1], ((Long) row[2]).intValue());
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Rebuilt movie co-occurrence for {} favourites and {} booked user/movie pairs",
+                favourites.size(), bookings.size());
+        writeSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${recommend.snapshot.interval-ms}")
+    public void writeSnapshot() {
+        if (!dirty) {
+            return;
+        }
+        try {
+            Files.createDirectories(snapshotPath.toAbsolutePath().getParent());
+            Path tmp = Files.createTempFile(snapshotPath.toAbsolutePath().getParent(), "recommendations", ".tmp");
+            try {
+                lock.readLock().lock();
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                    dirty = false;
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(userMovies.size());
+                    for (Map.Entry<Long, LongIntHashMap> user : userMovies.entrySet()) {
+                        out.writeLong(user.getKey());
+                        out.writeInt(user.getValue().size());
+                        writeEntries(out, user.getValue());
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+                Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("Could not write recommendation snapshot {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+
+    private static void writeEntries(DataOutputStream out, LongIntHashMap entries) throws IOException {
+        IOException[] failure = new IOException[1];
+        entries.forEach((movieId, sources) -> {
+            if (failure[0] == null) {
+                try {
+                    out.writeLong(movieId);
+                    out.writeInt(sources);
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("not a recommendation snapshot");
+            }
+            lock.writeLock().lock();
+            try {
+                int users = in.readInt();
+                for (int u = 0; u < users; u++) {
+                    long userId = in.readLong();
+                    int movies = in.readInt();
+                    for (int m = 0; m < movies; m++) {
+                        adjust(userId, in.readLong(), in.readInt());
+                    }
+                }
+                log.info("Loaded movie co-occurrence for {} users from {}", users, snapshotPath);
+            } catch (IOException e) {
+                userMovies.clear();
+                cooccurrence.clear();
+                movieUsers.clear();
+                throw e;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeSnapshot();
+    }
+}
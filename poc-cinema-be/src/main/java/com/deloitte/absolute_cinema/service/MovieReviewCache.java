@@ -0,0 +1,255 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.MovieReview;
+import com.deloitte.absolute_cinema.exception.ServiceUnavailableException;
+import com.deloitte.absolute_cinema.repository.MovieReviewRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache of OMDb review JSON. Parsed reviews are kept in a bounded in-memory LRU (L1) in
+ * front of the movie_reviews table (L2), and OMDb is only called when neither has the title.
+ * Concurrent misses for the same title share one lookup. Entries older than
+ * {@code review.cache.ttl-hours} are still served while a single background refresh replaces
+ * them, and titles OMDb does not know are remembered for {@code review.cache.negative-ttl-minutes}.
+ * OMDb calls go through {@link OmdbClient}, so lookups complete without holding the caller's thread,
+ * and fetched reviews are written to movie_reviews on {@code reviewStoreExecutor}.
+ */
+@Service
+@Slf4j
+public class MovieReviewCache {
+
+    private final MovieReviewRepository reviewRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final OmdbClient omdbClient;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor reviewStoreExecutor;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+
+    // Guarded by itself; access-ordered, so the eldest entry is the least recently read
+    private final Map<String, Entry> entries;
+    private final Map<String, CompletableFuture<Entry>> inFlight = new ConcurrentHashMap<>();
+
+    public MovieReviewCache(MovieReviewRepository reviewRepository, JdbcTemplate jdbcTemplate,
+                            OmdbClient omdbClient, ObjectMapper objectMapper,
+                            ThreadPoolTaskExecutor reviewStoreExecutor,
+                            @Value("${review.cache.ttl-hours}") long ttlHours,
+                            @Value("${review.cache.negative-ttl-minutes}") long negativeTtlMinutes,
+                            @Value("${review.cache.max-entries}") int maxEntries) {
+        this.reviewRepository = reviewRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.omdbClient = omdbClient;
+        this.objectMapper = objectMapper;
+        this.reviewStoreExecutor = reviewStoreExecutor;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.negativeTtl = Duration.ofMinutes(negativeTtlMinutes);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // A null review means OMDb does not know the title; json is the review as OMDb returned it
+    private record Entry(Map<String, Object> review, String json, LocalDateTime fetchedAt) {
+    }
+
+    /**
+     * Review JSON for the title, or an empty map when OMDb does not know it. Fails with
+     * {@link ServiceUnavailableException} when the review is in neither tier and OMDb cannot be reached.
+     */
+    public CompletableFuture<Map<String, Object>> getReview(Long movieId, String title) {
+        String key = key(title);
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        CompletableFuture<Entry> entry = cached != null
+                ? CompletableFuture.completedFuture(cached)
+                : singleFlight(key, () -> load(movieId, title));
+        return entry.thenApply(found -> {
+            if (found == null) {
+                return Collections.emptyMap();
+            }
+            if (isExpired(found)) {
+                refreshInBackground(key, movieId, title);
+            }
+            return found.review() == null ? Collections.<String, Object>emptyMap() : found.review();
+        });
+    }
+
+    /**
+     * Fetches the review from OMDb into L1 without writing movie_reviews, so the caller can persist
+     * reviews in batches. A fresh L1 entry is used as is. Completes with the raw JSON, or null when
+     * OMDb does not know the title; fails with {@link ServiceUnavailableException} when it cannot be reached.
+     */
+    public CompletableFuture<String> prefetch(Long movieId, String title) {
+        String key = key(title);
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+        CompletableFuture<Entry> entry = cached != null && !isExpired(cached)
+                ? CompletableFuture.completedFuture(cached)
+                : singleFlight(key, () -> fetch(movieId, title, false));
+        return entry.thenApply(found -> found == null || found.review() == null ? null : found.json());
+    }
+
+    private static String key(String title) {
+        return title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private boolean isExpired(Entry entry) {
+        Duration maxAge = entry.review() == null ? negativeTtl : ttl;
+        return entry.fetchedAt().plus(maxAge).isBefore(LocalDateTime.now());
+    }
+
+    // The stale entry keeps being served until the refresh succeeds
+    private void refreshInBackground(String key, Long movieId, String title) {
+        if (!inFlight.containsKey(key)) {
+            singleFlight(key, () -> fetch(movieId, title, true));
+        }
+    }
+
+    /**
+     * Starts the loader unless a load for the same title is already running, in which case that
+     * load's result is shared. A non-null result is stored in L1 before waiters see it.
+     */
+    private CompletableFuture<Entry> singleFlight(String key, Supplier<CompletableFuture<Entry>> loader) {
+        CompletableFuture<Entry> mine = new CompletableFuture<>();
+        CompletableFuture<Entry> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            return running;
+        }
+        CompletableFuture<Entry> loaded;
+        try {
+            loaded = loader.get();
+        } catch (RuntimeException e) {
+            loaded = CompletableFuture.failedFuture(e);
+        }
+        loaded.whenComplete((entry, error) -> {
+            if (entry != null) {
+                synchronized (entries) {
+                    entries.put(key, entry);
+                }
+            }
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(entry);
+            }
+        });
+        return mine;
+    }
+
+    // L2 first, then OMDb
+    private CompletableFuture<Entry> load(Long movieId, String title) {
+        MovieReview stored = reviewRepository.findFirstByTitleOrderByLastUpdatedDesc(title).orElse(null);
+        if (stored != null && stored.getReviewJson() != null && !stored.getReviewJson().isEmpty()) {
+            try {
+                return CompletableFuture.completedFuture(new Entry(Collections.unmodifiableMap(
+                        parse(stored.getReviewJson())), stored.getReviewJson(), stored.getLastUpdated()));
+            } catch (Exception e) {
+                log.error("Error parsing cached JSON: {}", e.getMessage());
+            }
+        }
+        return fetch(movieId, title, true);
+    }
+
+    /**
+     * Fetches the review from OMDb and, if {@code persist} is set, stores it in movie_reviews in the
+     * background. Runs on the OMDb client's threads, which are sized for HTTP calls only. Fails with {@link ServiceUnavailableException} when OMDb could not be reached, so failures are
+     * not cached and callers can tell them from an unknown title.
+     */
+    private CompletableFuture<Entry> fetch(Long movieId, String title, boolean persist) {
+        return omdbClient.fetchByTitle(title).handle((jsonResponse, error) -> {
+            if (error != null) {
+                Throwable cause = error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof ServiceUnavailableException unavailable) {
+                    log.debug("Skipping review fetch for '{}': {}", title, cause.getMessage());
+                    throw unavailable;
+                }
+                log.error("Error fetching movie review for '{}': {}", title, cause.toString());
+                throw new ServiceUnavailableException("OMDb could not be reached");
+            }
+            if (jsonResponse == null || jsonResponse.isEmpty()) {
+                return null;
+            }
+            try {
+                Map<String, Object> review = parse(jsonResponse);
+                LocalDateTime now = LocalDateTime.now();
+                if ("False".equals(review.get("Response"))) {
+                    // Unknown title: remembered in memory only
+                    return new Entry(null, null, now);
+                }
+                if (persist) {
+                    storeInBackground(movieId, title, jsonResponse, now);
+                }
+                return new Entry(Collections.unmodifiableMap(review), jsonResponse, now);
+            } catch (Exception e) {
+                log.error("Error caching movie review for '{}': {}", title, e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    // L1 already serves the review, so a write that fails or finds the queue full only costs a later refetch
+    private void storeInBackground(Long movieId, String title, String jsonResponse, LocalDateTime now) {
+        try {
+            reviewStoreExecutor.execute(() -> {
+                try {
+                    store(movieId, title, jsonResponse, now);
+                } catch (RuntimeException e) {
+                    log.error("Error storing movie review for '{}': {}", title, e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            log.warn("Review store queue is full; not storing the review for '{}'", title);
+        }
+    }
+
+    private void store(Long movieId, String title, String jsonResponse, LocalDateTime now) {
+        // A movie keeps its (unique) row when renamed; only a review without a movie is matched on title
+        Long existingId = (movieId != null
+                ? jdbcTemplate.query("SELECT id FROM movie_reviews WHERE movie_id = ?",
+                        (rs, rowNum) -> rs.getLong("id"), movieId)
+                : jdbcTemplate.query("SELECT id FROM movie_reviews WHERE title = ?",
+                        (rs, rowNum) -> rs.getLong("id"), title)
+        ).stream().findFirst().orElse(null);
+
+        if (existingId != null) {
+            jdbcTemplate.update(
+                    "UPDATE movie_reviews SET title = ?, review_json = ?, last_updated = ? WHERE id = ?",
+                    title, jsonResponse, now, existingId
+            );
+        } else if (movieId != null) {
+            jdbcTemplate.update(
+                    "INSERT INTO movie_reviews (movie_id, title, review_json, last_updated) VALUES (?, ?, ?, ?)",
+                    movieId, title, jsonResponse, now
+            );
+        }
+    }
+
+    private Map<String, Object> parse(String json) throws Exception {
+        return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
+    }
+}
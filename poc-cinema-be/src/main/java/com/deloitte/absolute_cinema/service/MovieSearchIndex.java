@@ -0,0 +1,259 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.dto.MovieSuggestionDTO;
+import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.event.MovieChangedEvent;
+import com.deloitte.absolute_cinema.repository.MovieRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory full-text index over the movie catalog. Title, director, genre and description are
+ * tokenized, lower-cased and accent-folded into a sorted term dictionary of weighted postings;
+ * a query must match every token (the last one as a prefix) and is ranked by field weight and
+ * term rarity. Typeahead uses a sorted set of folded title suffixes, one per word, so a prefix
+ * lookup is a seek followed by a scan of the matching range. Built from the repository on first
+ * use and updated incrementally after every committed movie write, which replaces only that
+ * movie's postings and title suffixes. Exposes "movie.search" tagged search/suggest.
+ */
+@Component
+public class MovieSearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final float TITLE_WEIGHT = 4f;
+    private static final float DIRECTOR_WEIGHT = 2f;
+    private static final float GENRE_WEIGHT = 2f;
+    private static final float DESCRIPTION_WEIGHT = 1f;
+
+    private static final Comparator<Suggestion> SUGGESTION_ORDER =
+            Comparator.comparing(Suggestion::key).thenComparingLong(Suggestion::movieId);
+
+    private final MovieRepository movieRepository;
+    private final PosterStore posterStore;
+    private final Timer searchTimer;
+    private final Timer suggestTimer;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> movie id -> summed field weight
+    private final NavigableMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private final Map<Long, MovieDTO> movies = new HashMap<>();
+    private final Map<Long, Set<String>> termsByMovie = new HashMap<>();
+    // Read without the lock, so typeahead never waits for a write
+    private final NavigableSet<Suggestion> suggestions = new ConcurrentSkipListSet<>(SUGGESTION_ORDER);
+    private boolean built;
+
+    public MovieSearchIndex(MovieRepository movieRepository, PosterStore posterStore, MeterRegistry meterRegistry) {
+        this.movieRepository = movieRepository;
+        this.posterStore = posterStore;
+        this.searchTimer = meterRegistry.timer("movie.search", "kind", "search");
+        this.suggestTimer = meterRegistry.timer("movie.search", "kind", "suggest");
+    }
+
+    private record Suggestion(String key, long movieId, String title) {
+    }
+
+    public List<MovieDTO> search(String query, int limit) {
+        return searchTimer.record(() -> {
+            List<String> tokens = tokenize(query);
+            if (tokens.isEmpty()) {
+                return List.<MovieDTO>of();
+            }
+            ensureBuilt();
+            lock.readLock().lock();
+            try {
+                Map<Long, Double> scores = null;
+                for (int i = 0; i < tokens.size(); i++) {
+                    boolean prefix = i == tokens.size() - 1;
+                    Map<Long, Double> tokenScores = score(tokens.get(i), prefix);
+                    if (scores == null) {
+                        scores = tokenScores;
+                    } else {
+                        scores.keySet().retainAll(tokenScores.keySet());
+                        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                            entry.setValue(entry.getValue() + tokenScores.get(entry.getKey()));
+                        }
+                    }
+                    if (scores.isEmpty()) {
+                        return List.<MovieDTO>of();
+                    }
+                }
+                return scores.entrySet().stream()
+                        .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                                .thenComparing(Map.Entry.comparingByKey()))
+                        .limit(limit)
+                        .map(entry -> movies.get(entry.getKey()))
+                        .toList();
+            } finally {
+                lock.readLock().unlock();
+            }
+        });
+    }
+
+    public List<MovieSuggestionDTO> suggest(String prefix, int limit) {
+        return suggestTimer.record(() -> {
+            String key = fold(prefix == null ? "" : prefix).trim();
+            if (key.isEmpty()) {
+                return List.<MovieSuggestionDTO>of();
+            }
+            ensureBuilt();
+            // Whole-title matches rank ahead of matches on a later word
+            List<MovieSuggestionDTO> titleStarts = new ArrayList<>();
+            List<MovieSuggestionDTO> wordStarts = new ArrayList<>();
+            Set<Long> seen = new HashSet<>();
+            for (Suggestion suggestion : suggestions.tailSet(new Suggestion(key, Long.MIN_VALUE, null))) {
+                if (!suggestion.key().startsWith(key)) {
+                    break;
+                }
+                if (!seen.add(suggestion.movieId())) {
+                    continue;
+                }
+                MovieSuggestionDTO dto = new MovieSuggestionDTO(suggestion.movieId(), suggestion.title());
+                (fold(suggestion.title()).startsWith(key) ? titleStarts : wordStarts).add(dto);
+                if (titleStarts.size() >= limit) {
+                    break;
+                }
+            }
+            titleStarts.addAll(wordStarts);
+            return titleStarts.size() > limit ? List.copyOf(titleStarts.subList(0, limit)) : titleStarts;
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                // The first query builds from the committed state
+                return;
+            }
+            Movie movie = event.getMovie();
+            remove(movie.getId());
+            if (!event.isRemoved()) {
+                add(MovieService.mapToDTO(movie, posterStore));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureBuilt() {
+        lock.readLock().lock();
+        try {
+            if (built) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            if (!built) {
+                for (Movie movie : movieRepository.findAll()) {
+                    add(MovieService.mapToDTO(movie, posterStore));
+                }
+                built = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Sum of weights for the term (or every term starting with it), scaled by its rarity
+    private Map<Long, Double> score(String token, boolean prefix) {
+        Map<Long, Double> scores = new HashMap<>();
+        Map<String, Map<Long, Float>> matches = prefix
+                ? postings.subMap(token, true, token + Character.MAX_VALUE, false)
+                : postings.containsKey(token) ? Map.of(token, postings.get(token)) : Map.of();
+        for (Map<Long, Float> posting : matches.values()) {
+            double idf = Math.log(1 + (double) movies.size() / posting.size());
+            posting.forEach((movieId, weight) -> scores.merge(movieId, weight * idf, Math::max));
+        }
+        return scores;
+    }
+
+    private void add(MovieDTO movie) {
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, movie.getTitle(), TITLE_WEIGHT);
+        addField(weights, movie.getDirector(), DIRECTOR_WEIGHT);
+        addField(weights, movie.getGenre(), GENRE_WEIGHT);
+        addField(weights, movie.getDescription(), DESCRIPTION_WEIGHT);
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(movie.getId(), weight));
+        termsByMovie.put(movie.getId(), weights.keySet());
+        movies.put(movie.getId(), movie);
+        suggestions.addAll(suggestionsOf(movie));
+    }
+
+    private void remove(Long movieId) {
+        Set<String> terms = termsByMovie.remove(movieId);
+        if (terms != null) {
+            for (String term : terms) {
+                Map<Long, Float> posting = postings.get(term);
+                posting.remove(movieId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        MovieDTO movie = movies.remove(movieId);
+        if (movie != null) {
+            suggestionsOf(movie).forEach(suggestions::remove);
+        }
+    }
+
+    private static void addField(Map<String, Float> weights, String text, float weight) {
+        for (String token : tokenize(text)) {
+            weights.merge(token, weight, Float::sum);
+        }
+    }
+
+    // One entry per word of the title, keyed by the folded title from that word on
+    private static List<Suggestion> suggestionsOf(MovieDTO movie) {
+        if (movie.getTitle() == null) {
+            return List.of();
+        }
+        List<String> words = tokenize(movie.getTitle());
+        List<Suggestion> entries = new ArrayList<>(words.size());
+        for (int i = 0; i < words.size(); i++) {
+            entries.add(new Suggestion(String.join(" ", words.subList(i, words.size())), movie.getId(), movie.getTitle()));
+        }
+        return entries;
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(SEPARATORS.split(fold(text)))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    // Lower-cases and strips accents, so "Amélie" and "amelie" fold to the same term
+    static String fold(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
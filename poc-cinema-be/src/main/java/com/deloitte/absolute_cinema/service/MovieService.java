@@ -1,31 +1,36 @@
 package com.deloitte.absolute_cinema.service;
 
 import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.dto.MovieFilterResultDTO;
+import com.deloitte.absolute_cinema.dto.MoviePageDTO;
+import com.deloitte.absolute_cinema.dto.MovieSuggestionDTO;
 import com.deloitte.absolute_cinema.dto.PopularMovieDTO;
+import com.deloitte.absolute_cinema.dto.TrendingMovieDTO;
 import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.exception.InvalidPosterException;
 import com.deloitte.absolute_cinema.exception.ResourceNotFoundException;
-import com.deloitte.absolute_cinema.repository.BookingRepository;
 import com.deloitte.absolute_cinema.repository.MovieRepository;
-import com.deloitte.absolute_cinema.repository.MovieReviewRepository;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.ResponseEntity;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
-import java.time.LocalDateTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,28 +38,57 @@ import java.util.stream.Collectors;
 public class MovieService {
     
     private final MovieRepository movieRepository;
-    private final BookingRepository bookingRepository;
+    private final MoviePopularityRollup moviePopularityRollup;
+    private final MovieTrendingIndex movieTrendingIndex;
+    private final MovieRecommender movieRecommender;
+    private final MovieCatalogCache movieCatalogCache;
+    private final MovieFacetIndex movieFacetIndex;
+    private final MovieSearchIndex movieSearchIndex;
+    private final PosterStore posterStore;
+    private final ShowtimeRepository showtimeRepository;
+    private final ShowtimeRemovalService showtimeRemovalService;
 
     @Autowired
-    private MovieReviewRepository reviewRepository;
+    private MovieReviewCache movieReviewCache;
 
-    @Autowired
-    private JdbcTemplate jdbcTemplate;
-
-    @Autowired
-    private RestTemplate restTemplate;
+    // Fields that can be requested on paged listings, in their default order
+    private static final Map<String, Function<MovieDTO, Object>> MOVIE_FIELDS = new LinkedHashMap<>();
 
-    private static final long CACHE_EXPIRY_HOURS = 24;
-
-    private static final String REVIEW_API_URL = "https://www.omdbapi.com/?t=%s&apikey=ebddc771";
+    static {
+        MOVIE_FIELDS.put("id", MovieDTO::getId);
+        MOVIE_FIELDS.put("title", MovieDTO::getTitle);
+        MOVIE_FIELDS.put("genre", MovieDTO::getGenre);
+        MOVIE_FIELDS.put("duration", MovieDTO::getDuration);
+        MOVIE_FIELDS.put("language", MovieDTO::getLanguage);
+        MOVIE_FIELDS.put("rating", MovieDTO::getRating);
+        MOVIE_FIELDS.put("description", MovieDTO::getDescription);
+        MOVIE_FIELDS.put("posterUrl", MovieDTO::getPosterUrl);
+        MOVIE_FIELDS.put("releaseDate", MovieDTO::getReleaseDate);
+        MOVIE_FIELDS.put("review", MovieDTO::getReview);
+        MOVIE_FIELDS.put("director", MovieDTO::getDirector);
+        MOVIE_FIELDS.put("trailerUrl", MovieDTO::getTrailerUrl);
+        MOVIE_FIELDS.put("price", MovieDTO::getPrice);
+    }
 
-    public MovieService(MovieRepository movieRepository, BookingRepository bookingRepository) {
+    public MovieService(MovieRepository movieRepository, MoviePopularityRollup moviePopularityRollup,
+                        MovieTrendingIndex movieTrendingIndex, MovieRecommender movieRecommender,
+                        MovieCatalogCache movieCatalogCache, MovieFacetIndex movieFacetIndex,
+                        MovieSearchIndex movieSearchIndex, PosterStore posterStore,
+                        ShowtimeRepository showtimeRepository, ShowtimeRemovalService showtimeRemovalService) {
         this.movieRepository = movieRepository;
-        this.bookingRepository = bookingRepository;
+        this.moviePopularityRollup = moviePopularityRollup;
+        this.movieTrendingIndex = movieTrendingIndex;
+        this.movieRecommender = movieRecommender;
+        this.movieCatalogCache = movieCatalogCache;
+        this.movieFacetIndex = movieFacetIndex;
+        this.movieSearchIndex = movieSearchIndex;
+        this.posterStore = posterStore;
+        this.showtimeRepository = showtimeRepository;
+        this.showtimeRemovalService = showtimeRemovalService;
     }
 
-    // Convert Entity to DTO
-    private MovieDTO mapToDTO(Movie movie) {
+    // Convert Entity to DTO, with the poster link clients can follow
+    static MovieDTO mapToDTO(Movie movie, PosterStore posterStore) {
         return new MovieDTO(
                 movie.getId(),
                 movie.getTitle(),
@@ -63,7 +97,7 @@ public class MovieService {
                 movie.getLanguage(),
                 movie.getRating(),
                 movie.getDescription(),
-                movie.getPosterUrl(),
+                posterStore.publicUrl(movie.getPosterUrl()),
                 movie.getReleaseDate(),
                 movie.getReview(),
                 movie.getDirector(),
@@ -90,42 +124,60 @@ public class MovieService {
                 .build();
     }
 
-    // Get all movies
+    // Get all movies, served from the catalog cache
     public List<MovieDTO> getAllMovies() {
-        return movieRepository.findAll()
-                .stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return movieCatalogCache.snapshot().getMovies();
     }
     
     public List<MovieDTO> getMoviesByGenre(String genre) {
-        return movieRepository.findByGenreContainingIgnoreCase(genre)
-                .stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return filterCatalog(MovieDTO::getGenre, genre);
     }
     
     public List<MovieDTO> getMoviesByLanguage(String language) {
-        return movieRepository.findByLanguageContainingIgnoreCase(language)
-                .stream()
-                .map(this::mapToDTO)
-                .collect(Collectors.toList());
+        return filterCatalog(MovieDTO::getLanguage, language);
     }
     
     public List<MovieDTO> getMoviesByRatingRange(String ratingRange) {
         Double[] range = parseRatingRange(ratingRange);
-        return movieRepository.findByReviewBetween(range[0], range[1])
+        return movieCatalogCache.snapshot().getMovies()
                 .stream()
-                .map(this::mapToDTO)
+                .filter(movie -> movie.getReview() >= range[0] && movie.getReview() <= range[1])
+                .collect(Collectors.toList());
+    }
+
+    // Combined filter over any mix of facets, with counts for the remaining choices
+    public MovieFilterResultDTO filterMovies(MovieFacetIndex.Query query, int page, int size) {
+        return movieFacetIndex.filter(query, page, size);
+    }
+
+    // Full-text search over title, director, genre and description, best match first
+    public List<MovieDTO> searchMovies(String query, int limit) {
+        return movieSearchIndex.search(query, limit);
+    }
+
+    // Typeahead titles for a prefix of the title or of any word in it
+    public List<MovieSuggestionDTO> suggestTitles(String prefix, int limit) {
+        return movieSearchIndex.suggest(prefix, limit);
+    }
+
+    // Case-insensitive "contains" match, as the repository's ...ContainingIgnoreCase queries did
+    private List<MovieDTO> filterCatalog(Function<MovieDTO, String> field, String criteria) {
+        String needle = criteria.toLowerCase(Locale.ROOT);
+        return movieCatalogCache.snapshot().getMovies()
+                .stream()
+                .filter(movie -> {
+                    String value = field.apply(movie);
+                    return value != null && value.toLowerCase(Locale.ROOT).contains(needle);
+                })
                 .collect(Collectors.toList());
     }
     
     public List<String> getAvailableGenres() {
-        return movieRepository.findDistinctGenres();
+        return movieCatalogCache.snapshot().getGenres();
     }
     
     public List<String> getAvailableLanguages() {
-        return movieRepository.findDistinctLanguages();
+        return movieCatalogCache.snapshot().getLanguages();
     }
     
     public List<String> getAvailableRatingRanges() {
@@ -137,26 +189,73 @@ public class MovieService {
         return new Double[]{Double.parseDouble(parts[0]), Double.parseDouble(parts[1])};
     }
 
+    /**
+     * Keyset page of the catalog ordered by id: up to {@code limit} movies with an id greater than
+     * {@code afterId}, each reduced to the requested fields (all fields when none are given).
+     */
+    public MoviePageDTO getMoviePage(Long afterId, int limit, List<String> fields) {
+        List<String> selected = fields == null || fields.isEmpty() ? List.copyOf(MOVIE_FIELDS.keySet()) : fields;
+        for (String field : selected) {
+            if (!MOVIE_FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field);
+            }
+        }
+
+        List<MovieDTO> movies = movieCatalogCache.snapshot().getMovies();
+        int from = 0;
+        if (afterId != null) {
+            int low = 0;
+            int high = movies.size();
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (movies.get(mid).getId() <= afterId) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            from = low;
+        }
+        int to = Math.min(movies.size(), from + limit);
+
+        List<Map<String, Object>> page = new ArrayList<>(to - from);
+        for (MovieDTO movie : movies.subList(from, to)) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            for (String field : selected) {
+                values.put(field, MOVIE_FIELDS.get(field).apply(movie));
+            }
+            page.add(values);
+        }
+        Long nextCursor = to < movies.size() ? movies.get(to - 1).getId() : null;
+        return new MoviePageDTO(page, nextCursor);
+    }
+
     // Get movie by ID
     public MovieDTO getMovieById(Long id) {
-        return movieRepository.findById(id)
-                .map(this::mapToDTO)
+        return Optional.ofNullable(movieCatalogCache.snapshot().getMoviesById().get(id))
                 .orElseThrow(() -> new ResourceNotFoundException("Movie with ID " + id + " not found"));
     }
 
     // Add a new movie
+    @Transactional
     public MovieDTO addMovie(MovieDTO movieDTO) {
-        Movie savedMovie = movieRepository.save(mapToEntity(movieDTO));
-        return mapToDTO(savedMovie);
+        Movie movie = mapToEntity(movieDTO);
+        // An inline poster is linked by movie ID, so it is stored once the movie has one
+        movie.setPosterUrl(null);
+        Movie savedMovie = movieRepository.save(movie);
+        if (movieDTO.getPosterUrl() != null) {
+            applyPoster(savedMovie, movieDTO.getPosterUrl());
+        }
+        return mapToDTO(savedMovie, posterStore);
     }
 
     // Delete a movie
-    @Transactional
     public void deleteMovie(Long id) {
         if (!movieRepository.existsById(id)) {
             throw new ResourceNotFoundException("Movie with ID " + id + " not found");
         }
-        movieRepository.deleteById(id);
+        // Its showtimes would otherwise block the delete; the movie goes with the last of them
+        showtimeRemovalService.remove(showtimeRepository.findIdsByMovieId(id), () -> movieRepository.deleteById(id));
     }
 
     // Update a movie
@@ -172,93 +271,181 @@ public class MovieService {
         if (movieDTO.getRating() != null) existingMovie.setRating(movieDTO.getRating());
         if (movieDTO.getReview() > 0) existingMovie.setReview(movieDTO.getReview());
         if (movieDTO.getDescription() != null) existingMovie.setDescription(movieDTO.getDescription());
-        if (movieDTO.getPosterUrl() != null) existingMovie.setPosterUrl(movieDTO.getPosterUrl());
+        if (movieDTO.getPosterUrl() != null) applyPoster(existingMovie, movieDTO.getPosterUrl());
         if (movieDTO.getPrice() != null) existingMovie.setPrice(movieDTO.getPrice());
         if (movieDTO.getReleaseDate() != null) existingMovie.setReleaseDate(movieDTO.getReleaseDate());
         if (movieDTO.getDirector() != null) existingMovie.setDirector(movieDTO.getDirector());
         if (movieDTO.getTrailerUrl() != null) existingMovie.setTrailerUrl(movieDTO.getTrailerUrl());
 
         movieRepository.save(existingMovie);
-        return mapToDTO(existingMovie);
+        return mapToDTO(existingMovie, posterStore);
     }
 
     /**
-     * Get movie review with caching
+     * Stored poster of a movie, or a thumbnail of it when a width is given; null when the movie's
+     * poster is an external URL or missing.
+     */
+    public PosterStore.Poster getPoster(Long id, Integer width) throws IOException {
+        Movie movie = movieRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Movie with ID " + id + " not found"));
+        String hash = movie.getPosterHash();
+        if (hash == null) {
+            return null;
+        }
+        if (width == null) {
+            return new PosterStore.Poster(posterStore.path(hash), PosterStore.servedType(movie.getPosterContentType()), hash);
+        }
+        int thumbnailWidth = posterStore.thumbnailWidth(width);
+        Path file = posterStore.thumbnail(hash, thumbnailWidth, movie.getPosterContentType());
+        if (file.equals(posterStore.path(hash))) {
+            return new PosterStore.Poster(file, PosterStore.servedType(movie.getPosterContentType()), hash);
+        }
+        String contentType = "image/png".equals(movie.getPosterContentType()) ? "image/png" : "image/jpeg";
+        return new PosterStore.Poster(file, contentType, hash + "-w" + thumbnailWidth);
+    }
+
+    /**
+     * Moves a poster still held inline as a data URL into the poster store; false if there was none.
      */
     @Transactional
-    public Map<String, Object> getMovieReviewWithCache(Long movieId, String movieTitle) {
-        Optional<String> cachedJsonOpt = reviewRepository.findReviewJsonByMovieTitle(movieTitle);
-
-        if (cachedJsonOpt.isPresent() && !cachedJsonOpt.get().isEmpty()) {
-            try {
-                ObjectMapper mapper = new ObjectMapper();
-                return mapper.readValue(cachedJsonOpt.get(), new TypeReference<Map<String, Object>>() {});
-            } catch (Exception e) {
-                log.error("Error parsing cached JSON: {}", e.getMessage());
-            }
+    public boolean migrateInlinePoster(Long id) {
+        Movie movie = movieRepository.findById(id).orElse(null);
+        if (movie == null || movie.getPosterUrl() == null || !movie.getPosterUrl().startsWith("data:")) {
+            return false;
         }
+        storeInlinePoster(movie, movie.getPosterUrl());
+        return true;
+    }
 
-        return fetchAndCacheReview(movieId, movieTitle);
+    private void applyPoster(Movie movie, String posterUrl) {
+        // Clients send back the link they were given
+        if (posterUrl.equals(movie.getPosterUrl()) || posterUrl.equals(posterStore.publicUrl(movie.getPosterUrl()))) {
+            return;
+        }
+        if (posterUrl.startsWith("data:")) {
+            storeInlinePoster(movie, posterUrl);
+        } else {
+            movie.setPosterUrl(posterUrl);
+            movie.setPosterHash(null);
+            movie.setPosterContentType(null);
+        }
     }
 
+    // Keeps only the hash and a versioned link on the movie; the image itself goes to the poster store
+    private void storeInlinePoster(Movie movie, String dataUrl) {
+        int comma = dataUrl.indexOf(',');
+        String header = comma < 0 ? "" : dataUrl.substring("data:".length(), comma);
+        if (!header.endsWith(";base64")) {
+            throw new InvalidPosterException("Poster data URL must be base64 encoded");
+        }
+        byte[] image;
+        try {
+            image = Base64.getMimeDecoder().decode(dataUrl.substring(comma + 1));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPosterException("Poster data URL is not valid base64");
+        }
+        // The served content type comes from the bytes; the declared one must agree with it
+        String contentType = PosterStore.imageType(image);
+        String declaredType = header.substring(0, header.length() - ";base64".length()).toLowerCase(Locale.ROOT);
+        if (contentType == null || !contentType.equals(declaredType)) {
+            throw new InvalidPosterException("Poster must be a PNG, JPEG or WebP image");
+        }
+        String hash;
+        try {
+            hash = posterStore.store(image);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store poster for movie " + movie.getId(), e);
+        }
+        movie.setPosterHash(hash);
+        movie.setPosterContentType(contentType);
+        movie.setPosterUrl(PosterStore.posterPath(movie.getId(), hash));
+    }
 
     /**
-     * Fetch from API and update cache
+     * Get movie review with caching
      */
-    @Transactional
-    protected Map<String, Object> fetchAndCacheReview(Long movieId, String movieTitle) {
-        try {
-            String url = String.format(REVIEW_API_URL, URLEncoder.encode(movieTitle, StandardCharsets.UTF_8.toString()));
-            ResponseEntity<String> responseEntity = restTemplate.getForEntity(url, String.class);
-            String jsonResponse = responseEntity.getBody();
-
-            if (jsonResponse != null && !jsonResponse.isEmpty()) {
-                // Parse JSON for return value
-                ObjectMapper mapper = new ObjectMapper();
-                Map<String, Object> responseMap = mapper.readValue(jsonResponse,
-                        new TypeReference<Map<String, Object>>() {});
-
-                log.info("Storing JSON response (length: {}): {}",
-                        jsonResponse.length(),
-                        jsonResponse.substring(0, Math.min(100, jsonResponse.length())) + "...");
-
-                // Check if record exists
-                Long existingId = jdbcTemplate.query(
-                        "SELECT id FROM movie_reviews WHERE title = ?",
-                        new Object[]{movieTitle},
-                        (rs, rowNum) -> rs.getLong("id")
-                ).stream().findFirst().orElse(null);
-
-                if (existingId != null) {
-                    // Update existing record
-                    jdbcTemplate.update(
-                            "UPDATE movie_reviews SET title = ?, review_json = ?, last_updated = ? WHERE id = ?",
-                            movieTitle, jsonResponse, LocalDateTime.now(), existingId
-                    );
-                } else {
-                    // Insert new record
-                    jdbcTemplate.update(
-                            "INSERT INTO movie_reviews (movie_id, title, review_json, last_updated) VALUES (?, ?, ?, ?)",
-                            movieId, movieTitle, jsonResponse, LocalDateTime.now()
-                    );
-                }
+    public CompletableFuture<Map<String, Object>> getMovieReviewWithCache(Long movieId, String movieTitle) {
+        return movieReviewCache.getReview(movieId, movieTitle);
+    }
+
+    public List<PopularMovieDTO> getPopularMoviesThisWeek() {
+        return getPopularMovies(LocalDate.now().with(DayOfWeek.MONDAY), 3);
+    }
+
+    /**
+     * Most booked movies over the window ending today: "today", "7d" or "30d".
+     *
+     * @throws IllegalArgumentException for any other window
+     */
+    public List<PopularMovieDTO> getPopularMovies(String window, int limit) {
+        LocalDate today = LocalDate.now();
+        LocalDate from = switch (window) {
+            case "today" -> today;
+            case "7d" -> today.minusDays(6);
+            case "30d" -> today.minusDays(29);
+            default -> throw new IllegalArgumentException("Unknown window: " + window);
+        };
+        return getPopularMovies(from, limit);
+    }
 
-                return responseMap;
+    /**
+     * Movies ranked by their decayed booking and view score, from the last published snapshot.
+     */
+    public List<TrendingMovieDTO> getTrendingMovies(int limit) {
+        Map<Long, MovieDTO> moviesById = movieCatalogCache.snapshot().getMoviesById();
+        List<TrendingMovieDTO> trending = new ArrayList<>(limit);
+        // Ask for a few extra in case some of the top movies were deleted since
+        for (Map.Entry<Long, Double> entry : movieTrendingIndex.top(limit + 5)) {
+            MovieDTO movie = moviesById.get(entry.getKey());
+            if (movie != null && trending.size() < limit) {
+                trending.add(new TrendingMovieDTO(movie.getId(), movie.getTitle(), movie.getDirector(),
+                        movie.getGenre(), movie.getPosterUrl(), movie.getRating(), movie.getPrice(), entry.getValue()));
             }
-        } catch (Exception e) {
-            log.error("Error fetching or caching movie review: " + e.getMessage(), e);
         }
+        return trending;
+    }
 
-        return new HashMap<>();
+    /**
+     * Movies most often favourited or booked by the same users as the given one.
+     */
+    public List<MovieDTO> getAlsoLikedMovies(Long movieId, int limit) {
+        return resolveMovies(movieRecommender.alsoLiked(movieId, limit + 5), limit);
     }
 
-    public List<PopularMovieDTO> getPopularMoviesThisWeek() {
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime startOfWeek = now.with(DayOfWeek.MONDAY).withHour(0).withMinute(0).withSecond(0).withNano(0);
-        LocalDateTime endOfWeek = startOfWeek.plusWeeks(1);
-        
-        List<PopularMovieDTO> popularMovies = bookingRepository.findPopularMoviesThisWeek(startOfWeek, endOfWeek);
-        return popularMovies.stream().limit(3).collect(Collectors.toList());
+    /**
+     * Movies similar to the user's favourites and bookings that they have neither favourited nor booked.
+     */
+    public List<MovieDTO> getRecommendedMovies(Long userId, int limit) {
+        return resolveMovies(movieRecommender.recommend(userId, limit + 5), limit);
+    }
+
+    // Skips movies deleted since they were ranked
+    private List<MovieDTO> resolveMovies(List<Long> movieIds, int limit) {
+        Map<Long, MovieDTO> moviesById = movieCatalogCache.snapshot().getMoviesById();
+        return movieIds.stream()
+                .map(moviesById::get)
+                .filter(movie -> movie != null)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // Movie detail page views feed the trending score, once per user and dedup window
+    public void recordMovieView(Long movieId, Long userId) {
+        movieTrendingIndex.recordView(movieId, userId);
+    }
+
+    private List<PopularMovieDTO> getPopularMovies(LocalDate from, int limit) {
+        Map<Long, MovieDTO> moviesById = movieCatalogCache.snapshot().getMoviesById();
+        List<PopularMovieDTO> popular = new ArrayList<>(limit);
+        // Ask for a few extra in case some of the top movies were deleted since
+        for (Map.Entry<Long, Long> entry : moviePopularityRollup.top(from, limit + 5)) {
+            MovieDTO movie = moviesById.get(entry.getKey());
+            if (movie != null && popular.size() < limit) {
+                popular.add(new PopularMovieDTO(movie.getId(), movie.getTitle(), movie.getDirector(),
+                        movie.getGenre(), movie.getPosterUrl(), movie.getRating(), movie.getPrice(), entry.getValue()));
+            }
+        }
+        return popular;
     }
 
 }
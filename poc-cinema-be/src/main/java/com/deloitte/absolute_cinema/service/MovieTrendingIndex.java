@@ -0,0 +1,190 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import com.deloitte.absolute_cinema.event.BookingStatusChangedEvent;
+import com.deloitte.absolute_cinema.event.MovieChangedEvent;
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * Exponentially decayed booking and view scores per movie, halving every
+ * {@code trending.half-life-hours}. Scores use forward decay: every event adds
+ * {@code weight * e^(lambda * (t - landmark))} to a lock-free adder, so nothing ever has to be
+ * rescaled on write, and the current score is the sum times {@code e^(-lambda * (now - landmark))}.
+ * A ranked snapshot of the top {@code trending.snapshot-size} movies is published every
+ * {@code trending.publish-interval-ms} and served as is. Starts from the daily booking rollup.
+ * A user's views of a movie count once per {@code trending.view-dedup-minutes}; at most
+ * {@code trending.view-dedup-max-entries} user and movie pairs are tracked, and views of new
+ * pairs beyond that are not counted until the next publish forgets the expired ones.
+ */
+@Component
+@Slf4j
+public class MovieTrendingIndex {
+    // Rebase before e^(lambda * (t - landmark)) gets anywhere near overflowing a double
+    private static final double MAX_LANDMARK_AGE_HALF_LIVES = 64;
+    private static final double MIN_SCORE = 1e-3;
+
+    private final BookingRepository bookingRepository;
+    private final MoviePopularityRollup popularityRollup;
+    private final double lambdaPerMilli;
+    private final double bookingWeight;
+    private final double viewWeight;
+    private final int snapshotSize;
+    private final long viewDedupMillis;
+    private final int viewDedupMaxEntries;
+
+    // User and movie -> when that user's last counted view of the movie was
+    private final Map<RecentView, Long> recentViews = new ConcurrentHashMap<>();
+    private volatile Generation generation = new Generation(System.currentTimeMillis());
+    private volatile List<Map.Entry<Long, Double>> ranking = List.of();
+
+    public MovieTrendingIndex(BookingRepository bookingRepository, MoviePopularityRollup popularityRollup,
+                              @Value("${trending.half-life-hours}") double halfLifeHours,
+                              @Value("${trending.booking-weight}") double bookingWeight,
+                              @Value("${trending.view-weight}") double viewWeight,
+                              @Value("${trending.snapshot-size}") int snapshotSize,
+                              @Value("${trending.view-dedup-minutes}") long viewDedupMinutes,
+                              @Value("${trending.view-dedup-max-entries}") int viewDedupMaxEntries) {
+        this.bookingRepository = bookingRepository;
+        this.popularityRollup = popularityRollup;
+        this.lambdaPerMilli = Math.log(2) / (halfLifeHours * 3_600_000);
+        this.bookingWeight = bookingWeight;
+        this.viewWeight = viewWeight;
+        this.snapshotSize = snapshotSize;
+        this.viewDedupMillis = viewDedupMinutes * 60_000;
+        this.viewDedupMaxEntries = viewDedupMaxEntries;
+    }
+
+    private record RecentView(Long userId, Long movieId) {
+    }
+
+    // Scores accumulated relative to one landmark time
+    private static final class Generation {
+        final long landmark;
+        final Map<Long, DoubleAdder> scores = new ConcurrentHashMap<>();
+
+        Generation(long landmark) {
+            this.landmark = landmark;
+        }
+    }
+
+    /**
+     * Movie ids with their current score from the last published snapshot, highest first.
+     */
+    public List<Map.Entry<Long, Double>> top(int limit) {
+        List<Map.Entry<Long, Double>> current = ranking;
+        return current.subList(0, Math.min(limit, current.size()));
+    }
+
+    /**
+     * Counts a view of the movie by the user, unless that user's last counted view of it is more
+     * recent than the dedup window.
+     */
+    public void recordView(Long movieId, Long userId) {
+        long now = System.currentTimeMillis();
+        RecentView key = new RecentView(userId, movieId);
+        Long last = recentViews.get(key);
+        if (last != null && now - last < viewDedupMillis) {
+            return;
+        }
+        if (last == null && recentViews.size() >= viewDedupMaxEntries) {
+            return;
+        }
+        // Of concurrent views only the one that moves the timestamp counts
+        boolean counted = last == null
+                ? recentViews.putIfAbsent(key, now) == null
+                : recentViews.replace(key, last, now);
+        if (counted) {
+            add(movieId, viewWeight, now);
+        }
+    }
+
+    private void add(Long movieId, double weight, long atMillis) {
+        Generation current = generation;
+        current.scores.computeIfAbsent(movieId, id -> new DoubleAdder())
+                .add(weight * Math.exp(lambdaPerMilli * (atMillis - current.landmark)));
+    }
+
+    // A cancellation takes back exactly what the confirmation added, as of the booking's creation
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        boolean wasConfirmed = event.getPreviousStatus() == BookingStatus.CONFIRMED;
+        boolean isConfirmed = event.getCurrentStatus() == BookingStatus.CONFIRMED;
+        if (wasConfirmed == isConfirmed) {
+            return;
+        }
+        double sign = isConfirmed ? 1 : -1;
+        for (Object[] row : bookingRepository.findSeatCountsByMovie(event.getBookingId())) {
+            long createdAt = ((LocalDateTime) row[1]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            add((Long) row[0], sign * bookingWeight * (Long) row[2], Math.min(createdAt, System.currentTimeMillis()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (event.isRemoved()) {
+            generation.scores.remove(event.getMovie().getId());
+        }
+    }
+
+    // Runs after MoviePopularityRollup.load; each day's seats count as booked at noon
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        long now = System.currentTimeMillis();
+        popularityRollup.dailyCounts().forEach((day, movies) -> {
+            long noon = day.atTime(LocalTime.NOON).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            movies.forEach((movieId, seats) -> add(movieId, bookingWeight * seats, Math.min(noon, now)));
+        });
+        publish();
+    }
+
+    @Scheduled(fixedDelayString = "${trending.publish-interval-ms}")
+    public synchronized void publish() {
+        long now = System.currentTimeMillis();
+        recentViews.values().removeIf(at -> now - at >= viewDedupMillis);
+        if (lambdaPerMilli * (now - generation.landmark) > MAX_LANDMARK_AGE_HALF_LIVES * Math.log(2)) {
+            rebase(now);
+        }
+        Generation current = generation;
+        double decay = Math.exp(-lambdaPerMilli * (now - current.landmark));
+        List<Map.Entry<Long, Double>> scored = new ArrayList<>(current.scores.size());
+        current.scores.forEach((movieId, sum) -> {
+            double score = sum.sum() * decay;
+            if (score >= MIN_SCORE) {
+                scored.add(Map.entry(movieId, score));
+            }
+        });
+        scored.sort(Map.Entry.<Long, Double>comparingByValue().reversed());
+        ranking = List.copyOf(scored.subList(0, Math.min(snapshotSize, scored.size())));
+    }
+
+    // Events that raced with the swap and landed in the old generation are dropped
+    private void rebase(long now) {
+        Generation old = generation;
+        Generation next = new Generation(now);
+        generation = next;
+        double decay = Math.exp(-lambdaPerMilli * (now - old.landmark));
+        old.scores.forEach((movieId, sum) -> {
+            double score = sum.sum() * decay;
+            if (score >= MIN_SCORE) {
+                next.scores.computeIfAbsent(movieId, id -> new DoubleAdder()).add(score);
+            }
+        });
+        log.info("Rebased trending scores for {} movies", next.scores.size());
+    }
+}
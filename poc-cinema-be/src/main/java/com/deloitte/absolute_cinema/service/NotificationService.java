@@ -1,5 +1,6 @@
 package com.deloitte.absolute_cinema.service;
 
+import com.deloitte.absolute_cinema.entity.BookedScreening;
 import com.deloitte.absolute_cinema.entity.Booking;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
@@ -32,22 +33,30 @@ public class NotificationService {
         }
     }
 
+    // Live or archived seats; a booking without either has nothing to send about
+    private static BookedScreening screening(Booking booking) {
+        BookedScreening screening = booking.getScreening();
+        if (screening == null) {
+            throw new IllegalStateException("Booking " + booking.getId() + " has no seats");
+        }
+        return screening;
+    }
+
     // For /api/bookings
     public void sendBookingConfirmation(Booking booking) {
+        BookedScreening screening = screening(booking);
+
         // Get movie title
-        String movieName = booking.getBookingSeats().get(0).getSeat().getShowtime().getMovie().getTitle();
+        String movieName = screening.movieTitle();
 
         // Get show time
-        String showTime = booking.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime().toString();
+        String showTime = screening.screeningTime().toString();
 
         // Get user email - handle both user and guest cases
         String recipientEmail = getRecipientEmail(booking);
 
         // Get seat numbers
-        List<String> seatNumbers = booking.getBookingSeats()
-                .stream()
-                .map(bookingSeat -> bookingSeat.getSeat().getSeatNumber())
-                .toList();
+        List<String> seatNumbers = screening.seatNumbers();
 
         String formattedSeats = seatNumbers.stream()
                 .map(String::valueOf)
@@ -66,8 +75,9 @@ public class NotificationService {
 
     // For /api/bookings/{bookingId}/resend-confirmation
     public void sendReminder(Booking booking) {
-        String movieName = booking.getBookingSeats().get(0).getSeat().getShowtime().getMovie().getTitle();
-        String showTime = booking.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime().toString();
+        BookedScreening screening = screening(booking);
+        String movieName = screening.movieTitle();
+        String showTime = screening.screeningTime().toString();
 
         String recipientEmail = getRecipientEmail(booking);
 
@@ -82,8 +92,9 @@ public class NotificationService {
     }
 
     public void sendCancellationEmail(Booking booking) {
-        String movieName = booking.getBookingSeats().get(0).getSeat().getShowtime().getMovie().getTitle();
-        String showTime = booking.getBookingSeats().get(0).getSeat().getShowtime().getScreeningTime().toString();
+        BookedScreening screening = screening(booking);
+        String movieName = screening.movieTitle();
+        String showTime = screening.screeningTime().toString();
 
         String recipientEmail = getRecipientEmail(booking);
 
@@ -97,6 +108,21 @@ public class NotificationService {
         sendEmail(recipientEmail, subject, message);
     }
 
+    // The showtime was removed by staff; sent by ShowtimeRemovalService off the request thread
+    public void sendShowtimeCancellation(String recipientEmail, Long bookingId, String movieName,
+                                         LocalDateTime screeningTime, String seatNumbers) {
+        String subject = "Showtime Cancelled: " + movieName;
+        String details = "<div style='background-color: #292929; padding: 15px; border-radius: 5px; margin-top: 15px;'>" +
+                "<p><strong>🎟️ Booking:</strong> " + bookingId + "</p>" +
+                "<p><strong>📅 Showtime:</strong> " + formatShowTime(screeningTime.toString()) + "</p>" +
+                "<p><strong>🎥 Movie:</strong> " + movieName + "</p>" +
+                "<p><strong>💺 Seats:</strong> " + seatNumbers.replace(",", ", ") + "</p></div>";
+
+        String message = generateEmailTemplate("❌ Showtime Cancelled", "The showing of <strong>" + movieName + "</strong> you booked has been cancelled, and so has your booking.", details, "Contact Support");
+
+        sendEmail(recipientEmail, subject, message);
+    }
+
     // Authentication Emails
     public void sendLoginNotification(String userEmail) {
         String subject = "Login Notification";
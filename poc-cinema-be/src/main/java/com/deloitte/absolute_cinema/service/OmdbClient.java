@@ -0,0 +1,188 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking OMDb client. Requests go through a shared, pooled {@link HttpClient} with connect
+ * and request timeouts, so no request thread waits on OMDb. At most
+ * {@code omdb.client.max-concurrent} calls are in flight (bulkhead); further calls fail fast.
+ * After {@code omdb.client.failure-threshold} consecutive failures the circuit opens and calls
+ * fail fast for {@code omdb.client.open-ms}, after which a single trial call decides whether it
+ * closes again. Exposes "omdb.calls" tagged by outcome and "omdb.circuit.open".
+ */
+@Component
+@Slf4j
+public class OmdbClient {
+
+    private enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    private final String apiUrl;
+    private final String apiKey;
+    private final Duration requestTimeout;
+    private final int failureThreshold;
+    private final long openMillis;
+    private final ExecutorService executor;
+    private final HttpClient httpClient;
+    private final Semaphore bulkhead;
+
+    private final Counter successes;
+    private final Counter failures;
+    private final Counter rejected;
+    private final Counter shortCircuited;
+
+    // Guarded by this
+    private CircuitState state = CircuitState.CLOSED;
+    private long openedAt;
+    private int consecutiveFailures;
+
+    public OmdbClient(@Value("${omdb.api.url}") String apiUrl,
+                      @Value("${omdb.api.key}") String apiKey,
+                      @Value("${omdb.client.connect-timeout-ms}") long connectTimeoutMillis,
+                      @Value("${omdb.client.request-timeout-ms}") long requestTimeoutMillis,
+                      @Value("${omdb.client.max-concurrent}") int maxConcurrent,
+                      @Value("${omdb.client.failure-threshold}") int failureThreshold,
+                      @Value("${omdb.client.open-ms}") long openMillis,
+                      MeterRegistry meterRegistry) {
+        this.apiUrl = apiUrl;
+        this.apiKey = apiKey;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMillis);
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        // Completions (parsing the review) run here, never on a request thread
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(maxConcurrent, runnable -> {
+            Thread thread = new Thread(runnable, "omdb-client-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+        this.successes = meterRegistry.counter("omdb.calls", "outcome", "success");
+        this.failures = meterRegistry.counter("omdb.calls", "outcome", "failure");
+        this.rejected = meterRegistry.counter("omdb.calls", "outcome", "rejected");
+        this.shortCircuited = meterRegistry.counter("omdb.calls", "outcome", "short_circuited");
+        meterRegistry.gauge("omdb.circuit.open", this, client -> client.isOpen() ? 1 : 0);
+    }
+
+    /**
+     * Raw OMDb JSON for a title. Completes on the client's own threads; fails with
+     * {@link ServiceUnavailableException} when the circuit is open or the bulkhead is full.
+     */
+    public CompletableFuture<String> fetchByTitle(String title) {
+        if (!allowRequest()) {
+            shortCircuited.increment();
+            return CompletableFuture.failedFuture(new ServiceUnavailableException("OMDb circuit is open"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            rejected.increment();
+            releaseTrial();
+            return CompletableFuture.failedFuture(new ServiceUnavailableException("Too many concurrent OMDb calls"));
+        }
+
+        URI uri = UriComponentsBuilder.fromUriString(apiUrl)
+                .queryParam("t", title)
+                .queryParam("apikey", apiKey)
+                .encode()
+                .build()
+                .toUri();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+
+        CompletableFuture<String> body;
+        try {
+            body = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                    .thenApply(response -> {
+                        if (response.statusCode() >= 500) {
+                            throw new ServiceUnavailableException("OMDb returned " + response.statusCode());
+                        }
+                        return response.body();
+                    });
+        } catch (RuntimeException e) {
+            body = CompletableFuture.failedFuture(e);
+        }
+        return body.whenComplete((result, error) -> {
+            bulkhead.release();
+            if (error == null) {
+                onSuccess();
+            } else {
+                onFailure();
+            }
+        });
+    }
+
+    private synchronized boolean allowRequest() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                // Let exactly one trial call through
+                state = CircuitState.HALF_OPEN;
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // A trial call that never went out must not leave the circuit half-open forever
+    private synchronized void releaseTrial() {
+        if (state == CircuitState.HALF_OPEN) {
+            state = CircuitState.OPEN;
+        }
+    }
+
+    private synchronized void onSuccess() {
+        successes.increment();
+        consecutiveFailures = 0;
+        if (state != CircuitState.CLOSED) {
+            log.info("OMDb circuit closed");
+        }
+        state = CircuitState.CLOSED;
+    }
+
+    private synchronized void onFailure() {
+        failures.increment();
+        consecutiveFailures++;
+        if (state == CircuitState.HALF_OPEN || (state == CircuitState.CLOSED && consecutiveFailures >= failureThreshold)) {
+            log.warn("OMDb circuit opened after {} consecutive failures", consecutiveFailures);
+            state = CircuitState.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    private synchronized boolean isOpen() {
+        return state != CircuitState.CLOSED;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
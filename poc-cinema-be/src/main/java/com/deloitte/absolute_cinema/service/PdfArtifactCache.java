@@ -0,0 +1,237 @@
+package com.deloitte.absolute_cinema.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+
+/**
+ * Size-bounded, least-recently-used disk cache for generated PDF documents.
+ * Artifacts are content addressed: the file name carries the booking id and a hash of the
+ * rendered inputs, so a changed booking never resolves to a stale file.
+ */
+@Component
+@Slf4j
+public class PdfArtifactCache {
+
+    private static final String EXTENSION = ".pdf";
+
+    /**
+     * Renders an artifact into the given stream.
+     */
+    @FunctionalInterface
+    public interface ArtifactWriter {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+
+    // File name -> size in bytes, kept in access order for LRU eviction. Guarded by "this".
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // Renders currently being written, by file name
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> rendering = new ConcurrentHashMap<>();
+
+    public PdfArtifactCache(@Value("${pdf.cache.dir}") String directory,
+                            @Value("${pdf.cache.max-bytes}") long maxBytes) {
+        this.directory = Paths.get(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Path> existing = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(existing::add);
+        }
+        existing.sort(Comparator.comparingLong(this::lastModified));
+
+        synchronized (this) {
+            for (Path file : existing) {
+                String fileName = file.getFileName().toString();
+                if (fileName.endsWith(EXTENSION)) {
+                    register(fileName, file.toFile().length());
+                } else {
+                    Files.deleteIfExists(file); // leftovers of interrupted writes
+                }
+            }
+            evictIfNeeded(null);
+        }
+        log.info("PDF artifact cache at {} holding {} files ({} bytes)", directory, entries.size(), totalBytes);
+    }
+
+    /**
+     * Opens the cached artifact for the given key, rendering and storing it first on a miss.
+     * Concurrent misses on the same key wait for a single render instead of repeating it.
+     * Older artifacts of the same document for the same booking are discarded once superseded.
+     * The caller owns the returned channel.
+     */
+    public FileChannel open(Long bookingId, String documentName, String contentHash,
+                            ArtifactWriter renderer) throws IOException {
+        String fileName = documentName + "-" + bookingId + "-" + contentHash + EXTENSION;
+        Path target = directory.resolve(fileName);
+
+        FileChannel cached = openIfPresent(fileName, target);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Void> render = new CompletableFuture<>();
+        CompletableFuture<Void> inProgress = rendering.putIfAbsent(fileName, render);
+        if (inProgress != null) {
+            awaitQuietly(inProgress);
+            cached = openIfPresent(fileName, target);
+            if (cached != null) {
+                return cached;
+            }
+            // The other render failed; try on our own below without coordinating
+            return store(bookingId, documentName, fileName, target, renderer);
+        }
+
+        try {
+            FileChannel stored = store(bookingId, documentName, fileName, target, renderer);
+            render.complete(null);
+            return stored;
+        } catch (IOException | RuntimeException e) {
+            render.completeExceptionally(e);
+            throw e;
+        } finally {
+            rendering.remove(fileName, render);
+        }
+    }
+
+    private FileChannel store(Long bookingId, String documentName, String fileName, Path target,
+                              ArtifactWriter renderer) throws IOException {
+        // Render straight to disk so the document never has to be held on the heap
+        Path temp = Files.createTempFile(directory, fileName, ".tmp");
+        long size;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                renderer.writeTo(out);
+            }
+            size = Files.size(temp);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        synchronized (this) {
+            removeMatching(documentName + "-" + bookingId + "-", fileName);
+            register(fileName, size);
+            evictIfNeeded(fileName);
+            return FileChannel.open(target, StandardOpenOption.READ);
+        }
+    }
+
+    private void awaitQuietly(CompletableFuture<Void> render) throws InterruptedIOException {
+        try {
+            render.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for PDF render");
+        } catch (ExecutionException e) {
+            // Reported to the thread that rendered it
+        }
+    }
+
+    /**
+     * Drops every cached artifact belonging to a booking.
+     */
+    public synchronized void evictBooking(Long bookingId) {
+        String marker = "-" + bookingId + "-";
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getKey().contains(marker)) {
+                iterator.remove();
+                delete(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private synchronized FileChannel openIfPresent(String fileName, Path target) throws IOException {
+        if (entries.get(fileName) == null) {
+            return null;
+        }
+        try {
+            return FileChannel.open(target, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            // Removed behind our back; forget it and render again
+            totalBytes -= entries.remove(fileName);
+            return null;
+        }
+    }
+
+    private void removeMatching(String prefix, String keep) {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix) && !entry.getKey().equals(keep)) {
+                iterator.remove();
+                delete(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void register(String fileName, long size) {
+        Long previous = entries.put(fileName, size);
+        totalBytes += size - (previous != null ? previous : 0);
+    }
+
+    private void evictIfNeeded(String keep) {
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            if (eldest.getKey().equals(keep)) {
+                continue;
+            }
+            iterator.remove();
+            delete(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    // Open channels keep reading an unlinked file, so deleting under a concurrent download is safe
+    private void delete(String fileName, long size) {
+        totalBytes -= size;
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            log.warn("Could not delete cached PDF {}: {}", fileName, e.getMessage());
+        }
+    }
+
+    private long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
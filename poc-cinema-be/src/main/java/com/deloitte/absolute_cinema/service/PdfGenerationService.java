@@ -1,11 +1,10 @@
 package com.deloitte.absolute_cinema.service;
  
+import com.deloitte.absolute_cinema.entity.BookedScreening;
 import com.deloitte.absolute_cinema.entity.Booking;
-import com.deloitte.absolute_cinema.entity.BookingSeat;
-import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.entity.BookingStatus;
 import com.deloitte.absolute_cinema.entity.Payment;
 import com.deloitte.absolute_cinema.entity.PaymentMethod;
-import com.deloitte.absolute_cinema.entity.Showtime;
 import com.deloitte.absolute_cinema.repository.PaymentRepository;
 import com.itextpdf.barcodes.BarcodeQRCode;
 import com.itextpdf.io.font.constants.StandardFonts;
@@ -28,22 +27,40 @@ import com.itextpdf.layout.borders.Border;
 import com.itextpdf.layout.borders.SolidBorder;
 import com.itextpdf.layout.element.*;
 import com.itextpdf.layout.properties.*;
+import lombok.Getter;
 import org.springframework.stereotype.Service;
  
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.HexFormat;
 import java.util.Optional;
-import java.util.stream.Collectors;
  
 @Service
 public class PdfGenerationService {
  
     private final PaymentRepository paymentRepository;
+    private final GateService gateService;
  
-    public PdfGenerationService(PaymentRepository paymentRepository) {
+    public PdfGenerationService(PaymentRepository paymentRepository, GateService gateService) {
         this.paymentRepository = paymentRepository;
+        this.gateService = gateService;
+    }
+ 
+    @Getter
+    public enum DocumentType {
+        E_TICKET("e-ticket"),
+        RECEIPT("receipt");
+ 
+        private final String fileName;
+ 
+        DocumentType(String fileName) {
+            this.fileName = fileName;
+        }
     }
  
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("EEEE, MMMM d, yyyy");
@@ -79,9 +96,76 @@ public class PdfGenerationService {
         }
     }
  
+    /**
+     * Hash of every booking input rendered into the e-ticket or receipt: status, seats, showtime,
+     * customer, payment and the QR code content. The signed gate payload in the QR code carries its
+     * validity window and a MAC under the current gate key, so rotating gate.ticket.secret or changing
+     * gate.ticket.open-before-minutes or the movie's duration also yields a different hash.
+     */
+    public String fingerprint(Booking booking) {
+        StringBuilder inputs = new StringBuilder()
+                .append(booking.getId()).append('|')
+                .append(booking.getStatus()).append('|')
+                .append(booking.getTotalPrice()).append('|')
+                .append(booking.getCreatedAt()).append('|')
+                .append(booking.getUser() != null ? booking.getUser().getFullName() : null).append('|')
+                .append(booking.getGuest() != null ? booking.getGuest().getEmail() : null);
+ 
+        // Only what archiving keeps, so an archived booking fingerprints like it did with its seats
+        BookedScreening screening = booking.getScreening();
+        if (screening != null) {
+            inputs.append('|').append(screening.showtimeId())
+                    .append(':').append(screening.screeningTime())
+                    .append(':').append(screening.hall())
+                    .append(':').append(screening.cinemaName())
+                    .append(':').append(screening.movieTitle())
+                    .append(':').append(String.join(",", screening.seatNumbers()));
+        }
+ 
+        paymentRepository.findByBookingId(booking.getId()).ifPresent(payment -> inputs
+                .append("|payment:").append(payment.getId())
+                .append(':').append(payment.getPaymentMethod())
+                .append(':').append(payment.getStatus())
+                .append(':').append(payment.getAmount()));
+        inputs.append("|qr:").append(qrContent(booking));
+ 
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(inputs.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+ 
+    public void write(Booking booking, DocumentType type, OutputStream out) {
+        if (type == DocumentType.E_TICKET) {
+            writeETicket(booking, out);
+        } else {
+            writeReceipt(booking, out);
+        }
+    }
+ 
     public byte[] generateETicket(Booking booking) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(baos);
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeETicket(booking, baos);
+        return baos.toByteArray();
+    }
+ 
+    public byte[] generateReceipt(Booking booking) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeReceipt(booking, baos);
+        return baos.toByteArray();
+    }
+ 
+    /**
+     * Renders the e-ticket straight into {@code out} page by page. The stream is flushed but left
+     * open for the caller.
+     */
+    public void writeETicket(Booking booking, OutputStream out) {
+        try {
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
             PdfDocument pdf = new PdfDocument(writer);
  
             // Add the event handler to handle background for all new pages
@@ -136,11 +220,9 @@ public class PdfGenerationService {
             // Add stylish divider
             addDivider(document, ACCENT_COLOR);
  
-            // Get movie and showtime details from the first seat (all seats have the same showtime)
-            if (!booking.getBookingSeats().isEmpty()) {
-                BookingSeat firstSeat = booking.getBookingSeats().get(0);
-                Showtime showtime = firstSeat.getSeat().getShowtime();
-                Movie movie = showtime.getMovie();
+            // Get movie and showtime details from the seats, live or archived
+            BookedScreening screening = booking.getScreening();
+            if (screening != null) {
  
                 // Movie Details section header
                 Paragraph sectionTitle = new Paragraph("MOVIE DETAILS")
@@ -159,25 +241,22 @@ public class PdfGenerationService {
                 movieTable.setBorder(Border.NO_BORDER);
  
                 movieTable.addCell(createStyledLabelCell("Movie:", boldFont, LIGHT_TEXT));
-                movieTable.addCell(createStyledValueCell(movie.getTitle(), regularFont, LIGHT_TEXT));
+                movieTable.addCell(createStyledValueCell(screening.movieTitle(), regularFont, LIGHT_TEXT));
  
                 movieTable.addCell(createStyledLabelCell("Cinema:", boldFont, LIGHT_TEXT));
-                movieTable.addCell(createStyledValueCell(showtime.getCinema().getName(), regularFont, LIGHT_TEXT));
+                movieTable.addCell(createStyledValueCell(screening.cinemaName(), regularFont, LIGHT_TEXT));
  
                 movieTable.addCell(createStyledLabelCell("Screen:", boldFont, LIGHT_TEXT));
-                movieTable.addCell(createStyledValueCell("Screen " + showtime.getHall(), regularFont, LIGHT_TEXT));
+                movieTable.addCell(createStyledValueCell("Screen " + screening.hall(), regularFont, LIGHT_TEXT));
  
                 movieTable.addCell(createStyledLabelCell("Date:", boldFont, LIGHT_TEXT));
-                movieTable.addCell(createStyledValueCell(showtime.getScreeningTime().format(DATE_FORMATTER), regularFont, LIGHT_TEXT));
+                movieTable.addCell(createStyledValueCell(screening.screeningTime().format(DATE_FORMATTER), regularFont, LIGHT_TEXT));
  
                 movieTable.addCell(createStyledLabelCell("Time:", boldFont, LIGHT_TEXT));
-                movieTable.addCell(createStyledValueCell(showtime.getScreeningTime().format(TIME_FORMATTER), regularFont, LIGHT_TEXT));
+                movieTable.addCell(createStyledValueCell(screening.screeningTime().format(TIME_FORMATTER), regularFont, LIGHT_TEXT));
  
                 movieTable.addCell(createStyledLabelCell("Seats:", boldFont, LIGHT_TEXT));
-                List<String> seatNumbers = booking.getBookingSeats().stream()
-                        .map(bs -> bs.getSeat().getSeatNumber())
-                        .collect(Collectors.toList());
-                movieTable.addCell(createStyledValueCell(String.join(", ", seatNumbers), regularFont, HIGHLIGHT_COLOR));
+                movieTable.addCell(createStyledValueCell(String.join(", ", screening.seatNumbers()), regularFont, HIGHLIGHT_COLOR));
  
                 document.add(movieTable);
                 document.add(new Paragraph("\n"));
@@ -189,7 +268,7 @@ public class PdfGenerationService {
             barcodeTable.setMarginTop(20);
             barcodeTable.setMarginBottom(20);
  
-            addQRCode(document, pdf, booking.getId());
+            addQRCode(document, pdf, booking);
  
             // Footer with instructions in a nice styled card
             document.add(new Paragraph("\n"));
@@ -238,15 +317,18 @@ public class PdfGenerationService {
             addFooter(document);
  
             document.close();
-            return baos.toByteArray();
         } catch (Exception e) {
             throw new RuntimeException("Error generating e-ticket", e);
         }
     }
  
-    public byte[] generateReceipt(Booking booking) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
-            PdfWriter writer = new PdfWriter(baos);
+    /**
+     * Renders the receipt straight into {@code out}. The stream is flushed but left open for the caller.
+     */
+    public void writeReceipt(Booking booking, OutputStream out) {
+        try {
+            PdfWriter writer = new PdfWriter(out);
+            writer.setCloseStream(false);
             PdfDocument pdf = new PdfDocument(writer);
  
             // Add the event handler to handle background for all new pages
@@ -335,10 +417,8 @@ public class PdfGenerationService {
             document.add(new Paragraph("\n").setMarginBottom(10));
  
             // Get movie and showtime details
-            if (!booking.getBookingSeats().isEmpty()) {
-                BookingSeat firstSeat = booking.getBookingSeats().get(0);
-                Showtime showtime = firstSeat.getSeat().getShowtime();
-                Movie movie = showtime.getMovie();
+            BookedScreening screening = booking.getScreening();
+            if (screening != null) {
  
                 // Movie details section header
                 Paragraph movieDetailsTitle = new Paragraph("Movie Details")
@@ -355,15 +435,15 @@ public class PdfGenerationService {
                 movieTable.setBorder(Border.NO_BORDER);
  
                 movieTable.addCell(createStyledLabelCell("Movie:", boldFont, LIGHT_TEXT));
-                movieTable.addCell(createStyledValueCell(movie.getTitle(), regularFont, LIGHT_TEXT));
+                movieTable.addCell(createStyledValueCell(screening.movieTitle(), regularFont, LIGHT_TEXT));
  
                 movieTable.addCell(createStyledLabelCell("Cinema:", boldFont, LIGHT_TEXT));
-                movieTable.addCell(createStyledValueCell(showtime.getCinema().getName(), regularFont, LIGHT_TEXT));
+                movieTable.addCell(createStyledValueCell(screening.cinemaName(), regularFont, LIGHT_TEXT));
  
                 movieTable.addCell(createStyledLabelCell("Date & Time:", boldFont, LIGHT_TEXT));
                 movieTable.addCell(createStyledValueCell(
-                        showtime.getScreeningTime().format(DATE_FORMATTER) + " at " +
-                                showtime.getScreeningTime().format(TIME_FORMATTER), regularFont, LIGHT_TEXT));
+                        screening.screeningTime().format(DATE_FORMATTER) + " at " +
+                                screening.screeningTime().format(TIME_FORMATTER), regularFont, LIGHT_TEXT));
  
                 document.add(movieTable);
                 document.add(new Paragraph("\n").setMarginBottom(10));
@@ -405,10 +485,10 @@ public class PdfGenerationService {
                 itemsTable.addHeaderCell(amountHeader);
  
                 // Movie tickets row
-                int ticketsQty = booking.getBookingSeats().size();
+                int ticketsQty = screening.seatNumbers().size();
  
                 Cell descCell = new Cell();
-                descCell.add(new Paragraph("Movie Ticket - " + movie.getTitle()).setFont(regularFont).setFontColor(LIGHT_TEXT));
+                descCell.add(new Paragraph("Movie Ticket - " + screening.movieTitle()).setFont(regularFont).setFontColor(LIGHT_TEXT));
                 descCell.setBorder(new SolidBorder(DARKER_BG, 0.5f));
                 descCell.setPadding(8);
  
@@ -493,7 +573,6 @@ public class PdfGenerationService {
             addFooter(document);
  
             document.close();
-            return baos.toByteArray();
         } catch (Exception e) {
             throw new RuntimeException("Error generating receipt", e);
         }
@@ -598,14 +677,19 @@ public class PdfGenerationService {
         }
     }
  
-    // QR code with booking ID
-    // QR code with booking ID - improved for better scannability and centering
-    private void addQRCode(Document document, PdfDocument pdf, Long bookingId) throws IOException {
-        // Create QR code with the booking ID - add prefix to make clear what the code contains
-        String qrContent = "ABSOLUTE_CINEMA_BOOKING:" + bookingId;
+    // QR code with the signed gate ticket - improved for better scannability and centering
+    // Signed payload checked at the gate without a lookup, for confirmed bookings only; unpaid or
+    // cancelled bookings and those without seats or showtime keep the plain booking ID
+    private String qrContent(Booking booking) {
+        BookedScreening screening = booking.getScreening();
+        return booking.getStatus() != BookingStatus.CONFIRMED || screening == null || screening.showtimeId() == null
+                ? "ABSOLUTE_CINEMA_BOOKING:" + booking.getId()
+                : gateService.issuePayload(booking);
+    }
  
+    private void addQRCode(Document document, PdfDocument pdf, Booking booking) throws IOException {
         // Create QR code with higher error correction level for better scannability
-        BarcodeQRCode qrCode = new BarcodeQRCode(qrContent);
+        BarcodeQRCode qrCode = new BarcodeQRCode(qrContent(booking));
  
         // Generate QR code image with better contrast (black on white)
         PdfFormXObject qrCodeObject = qrCode.createFormXObject(new DeviceRgb(0, 0, 0), pdf);
@@ -636,7 +720,7 @@ public class PdfGenerationService {
  
         // Add QR code label
         Cell labelCell = new Cell();
-        labelCell.add(new Paragraph("Scan for booking #" + bookingId)
+        labelCell.add(new Paragraph("Scan for booking #" + booking.getId())
                 .setFont(PdfFontFactory.createFont(StandardFonts.HELVETICA))
                 .setFontSize(10)
                 .setFontColor(MUTED_TEXT)
@@ -0,0 +1,198 @@
+package com.deloitte.absolute_cinema.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Set;
+
+/**
+ * Content-addressed poster images on local disk. A poster is stored once under the SHA-256 of its
+ * bytes, so an unchanged upload is deduplicated and a stored file never changes. Resized copies
+ * are generated on first request for one of the configured {@code poster.thumbnail.widths} and
+ * kept next to the original. Only PNG, JPEG and WebP images are accepted, so a poster is never
+ * served with a content type a browser would render as a page.
+ */
+@Component
+public class PosterStore {
+
+    /**
+     * A stored poster or thumbnail ready to be sent, with the entity tag identifying its bytes.
+     */
+    public record Poster(Path file, String contentType, String etag) {
+    }
+
+    private static final Set<String> IMAGE_TYPES = Set.of("image/png", "image/jpeg", "image/webp");
+
+    private final Path root;
+    private final int[] thumbnailWidths;
+    private final String publicBaseUrl;
+
+    public PosterStore(@Value("${poster.store.dir}") String dir,
+                       @Value("${poster.thumbnail.widths}") int[] thumbnailWidths,
+                       @Value("${poster.public-base-url}") String publicBaseUrl) throws IOException {
+        this.root = Paths.get(dir);
+        this.publicBaseUrl = publicBaseUrl;
+        this.thumbnailWidths = thumbnailWidths.clone();
+        Arrays.sort(this.thumbnailWidths);
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Stores the image unless an identical one is already present and returns its hash.
+     */
+    public String store(byte[] image) throws IOException {
+        String hash = sha256(image);
+        Path target = path(hash);
+        if (!Files.exists(target)) {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+            try {
+                Files.write(tmp, image);
+                move(tmp, target);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Content type of a PNG, JPEG or WebP image, read from its leading bytes; null for anything else.
+     */
+    public static String imageType(byte[] image) {
+        if (startsWith(image, 0, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return "image/png";
+        }
+        if (startsWith(image, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(image, 0, 'R', 'I', 'F', 'F') && startsWith(image, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    // Posters stored before their type was checked are sent as opaque bytes
+    public static String servedType(String contentType) {
+        return IMAGE_TYPES.contains(contentType) ? contentType : "application/octet-stream";
+    }
+
+    /**
+     * Link to a movie's stored poster as kept on the movie, relative to the server so a change of
+     * {@code poster.public-base-url} applies to every movie.
+     */
+    public static String posterPath(Long movieId, String hash) {
+        return "/api/movies/" + movieId + "/poster?v=" + hash;
+    }
+
+    /**
+     * The poster link clients see: stored posters under {@code poster.public-base-url}, external
+     * URLs unchanged.
+     */
+    public String publicUrl(String posterUrl) {
+        return posterUrl != null && posterUrl.startsWith("/") ? publicBaseUrl + posterUrl : posterUrl;
+    }
+
+    public Path path(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Smallest configured thumbnail width that covers the requested one, or the largest available.
+     */
+    public int thumbnailWidth(int requested) {
+        for (int width : thumbnailWidths) {
+            if (width >= requested) {
+                return width;
+            }
+        }
+        return thumbnailWidths[thumbnailWidths.length - 1];
+    }
+
+    /**
+     * Resized copy of the poster at one of the configured widths, generated on first use. Falls back
+     * to the original when it is already narrower or is in a format ImageIO cannot decode.
+     */
+    public Path thumbnail(String hash, int width, String contentType) throws IOException {
+        String format = "image/png".equals(contentType) ? "png" : "jpg";
+        Path target = root.resolve(hash.substring(0, 2)).resolve(hash + "-w" + width + "." + format);
+        if (Files.exists(target)) {
+            return target;
+        }
+
+        BufferedImage original;
+        try (InputStream in = Files.newInputStream(path(hash))) {
+            original = ImageIO.read(in);
+        }
+        if (original == null || original.getWidth() <= width) {
+            return path(hash);
+        }
+
+        int height = Math.max(1, Math.round((float) original.getHeight() * width / original.getWidth()));
+        BufferedImage resized = new BufferedImage(width, height,
+                "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = resized.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        Path tmp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                ImageIO.write(resized, format, out);
+            }
+            move(tmp, target);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return target;
+    }
+
+    private void move(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... prefix) {
+        if (data.length < offset + prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[offset + i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.event.MovieChangedEvent;
+import com.deloitte.absolute_cinema.repository.MovieReviewRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Warms the review cache so customers never pay for the first OMDb call. A scheduled job walks
+ * every movie whose stored review is missing or older than {@code review.cache.ttl-hours}, with
+ * at most {@code review.prefetch.parallelism} calls in flight and no more than
+ * {@code review.prefetch.requests-per-second} started, and upserts the results in batches of
+ * {@code review.prefetch.batch-size}. New movies, and movies whose title changed, are prefetched
+ * as soon as they are committed. Exposes "review.prefetch" tagged by outcome.
+ */
+@Service
+@Slf4j
+public class ReviewPrefetchService {
+
+    private final MovieReviewRepository reviewRepository;
+    private final MovieReviewCache movieReviewCache;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final long ttlHours;
+    private final int parallelism;
+    private final long intervalNanos;
+    private final int batchSize;
+
+    private final Counter fetched;
+    private final Counter missed;
+
+    public ReviewPrefetchService(MovieReviewRepository reviewRepository, MovieReviewCache movieReviewCache,
+                                 NamedParameterJdbcTemplate namedJdbcTemplate,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                 @Value("${review.cache.ttl-hours}") long ttlHours,
+                                 @Value("${review.prefetch.parallelism}") int parallelism,
+                                 @Value("${review.prefetch.requests-per-second}") double requestsPerSecond,
+                                 @Value("${review.prefetch.batch-size}") int batchSize) {
+        this.reviewRepository = reviewRepository;
+        this.movieReviewCache = movieReviewCache;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        // A review already cached completes the prefetch on the thread of onMovieChanged, whose
+        // committed transaction is still bound and would swallow the write
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ttlHours = ttlHours;
+        this.parallelism = parallelism;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+        this.batchSize = batchSize;
+        this.fetched = meterRegistry.counter("review.prefetch", "outcome", "fetched");
+        this.missed = meterRegistry.counter("review.prefetch", "outcome", "missed");
+    }
+
+    private record ReviewRow(Long movieId, String title, String json, LocalDateTime fetchedAt) {
+    }
+
+    @Scheduled(initialDelayString = "${review.prefetch.initial-delay-ms}",
+            fixedDelayString = "${review.prefetch.interval-ms}")
+    public void prefetchCatalog() {
+        List<Object[]> stale = reviewRepository.findMoviesWithMissingOrStaleReview(
+                LocalDateTime.now().minusHours(ttlHours));
+        if (stale.isEmpty()) {
+            return;
+        }
+        log.info("Prefetching reviews for {} movies", stale.size());
+
+        Semaphore permits = new Semaphore(parallelism);
+        Queue<ReviewRow> completed = new ConcurrentLinkedQueue<>();
+        long nextStart = System.nanoTime();
+        try {
+            for (Object[] movie : stale) {
+                // Pace starts evenly instead of bursting at the provider
+                long wait = nextStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                nextStart = Math.max(nextStart, System.nanoTime()) + intervalNanos;
+
+                permits.acquire();
+                Long movieId = (Long) movie[0];
+                String title = (String) movie[1];
+                movieReviewCache.prefetch(movieId, title).whenComplete((json, error) -> {
+                    if (json != null) {
+                        completed.add(new ReviewRow(movieId, title, json, LocalDateTime.now()));
+                    } else {
+                        missed.increment();
+                    }
+                    permits.release();
+                });
+                if (completed.size() >= batchSize) {
+                    drain(completed);
+                }
+            }
+            permits.acquire(parallelism);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain(completed);
+    }
+
+    // A movie is committed: fetch its review now unless one is already stored under this title
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMovieChanged(MovieChangedEvent event) {
+        Movie movie = event.getMovie();
+        if (event.isRemoved() || movie.getId() == null || movie.getTitle() == null) {
+            return;
+        }
+        boolean current = reviewRepository.findTitleByMovieId(movie.getId())
+                .map(movie.getTitle()::equals)
+                .orElse(false);
+        if (current) {
+            return;
+        }
+        Long movieId = movie.getId();
+        String title = movie.getTitle();
+        movieReviewCache.prefetch(movieId, title).whenComplete((json, error) -> {
+            if (json != null) {
+                save(List.of(new ReviewRow(movieId, title, json, LocalDateTime.now())));
+            } else {
+                missed.increment();
+            }
+        });
+    }
+
+    private void drain(Queue<ReviewRow> completed) {
+        List<ReviewRow> batch = new ArrayList<>(batchSize);
+        ReviewRow row;
+        while ((row = completed.poll()) != null) {
+            batch.add(row);
+            if (batch.size() == batchSize) {
+                save(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            save(batch);
+        }
+    }
+
+    // Same statement as MovieReviewRepository.saveReview, sent as one JDBC batch in its own transaction
+    private void save(List<ReviewRow> batch) {
+        SqlParameterSource[] params = batch.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("movieId", row.movieId())
+                        .addValue("title", row.title())
+                        .addValue("reviewJson", row.json())
+                        .addValue("lastUpdated", row.fetchedAt()))
+                .toArray(SqlParameterSource[]::new);
+        try {
+            transaction.executeWithoutResult(status ->
+                    namedJdbcTemplate.batchUpdate(MovieReviewRepository.UPSERT_REVIEW_SQL, params));
+            fetched.increment(batch.size());
+        } catch (RuntimeException e) {
+            // The reviews stay in memory; the next run picks these movies up again
+            log.warn("Saving {} prefetched reviews failed: {}", batch.size(), e.getMessage());
+        }
+    }
+}
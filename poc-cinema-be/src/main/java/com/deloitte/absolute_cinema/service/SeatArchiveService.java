@@ -0,0 +1,139 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Moves the seats of showtimes screened more than {@code seat.archive.retention-days} days ago
+ * out of the "seats" and "booking_seats" tables, which otherwise grow by a hundred rows per
+ * showtime forever. Each showtime keeps one row of totals in "archived_showtime_seats", and each
+ * of its bookings keeps the showtime, its screening and its seat numbers in {@link
+ * com.deloitte.absolute_cinema.entity.BookingSeatSummary} so booking history still reads the same.
+ * Runs on {@code seat.archive.cron} in transactions of {@code seat.archive.batch-size} showtimes,
+ * so locks are held briefly and a failed run resumes where it stopped. Exposes
+ * "seat.archive.showtimes" for showtimes archived.
+ */
+@Service
+@Slf4j
+public class SeatArchiveService {
+    private static final String ARCHIVE_SHOWTIMES =
+            "INSERT INTO archived_showtime_seats (showtime_id, total_seats, booked_seats, archived_at) " +
+            "SELECT st.id, COUNT(DISTINCT s.id), COUNT(DISTINCT CASE WHEN b.id IS NOT NULL THEN s.id END), :archivedAt " +
+            "FROM showtimes st LEFT JOIN seats s ON s.showtime_id = st.id " +
+            "LEFT JOIN booking_seats bs ON bs.seat_id = s.id " +
+            "LEFT JOIN bookings b ON b.id = bs.booking_id AND b.status = 'CONFIRMED' " +
+            "WHERE st.id IN (:showtimeIds) GROUP BY st.id";
+    private static final String BOOKED_SEATS =
+            "SELECT bs.booking_id, s.showtime_id, s.seat_number, st.screening_time, st.hall, m.title, c.name " +
+            "FROM booking_seats bs JOIN seats s ON s.id = bs.seat_id JOIN showtimes st ON st.id = s.showtime_id " +
+            "LEFT JOIN movies m ON m.id = st.movie_id LEFT JOIN cinemas c ON c.id = st.cinema_id " +
+            "WHERE s.showtime_id IN (:showtimeIds) ORDER BY bs.booking_id, s.id";
+    private static final String SUMMARIZE_BOOKING =
+            "UPDATE bookings SET archived_showtime_id = :showtimeId, archived_screening_time = :screeningTime, " +
+            "archived_hall = :hall, archived_movie_title = :movieTitle, archived_cinema_name = :cinemaName, " +
+            "archived_seat_numbers = :seatNumbers, seats_archived_at = :archivedAt WHERE id = :bookingId";
+    private static final String DELETE_BOOKING_SEATS =
+            "DELETE FROM booking_seats WHERE seat_id IN (SELECT id FROM seats WHERE showtime_id IN (:showtimeIds))";
+    private static final String DELETE_SEATS = "DELETE FROM seats WHERE showtime_id IN (:showtimeIds)";
+
+    private final ShowtimeRepository showtimeRepository;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Counter archived;
+    private final int retentionDays;
+    private final int batchSize;
+
+    public SeatArchiveService(ShowtimeRepository showtimeRepository, NamedParameterJdbcTemplate namedJdbcTemplate,
+                              PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                              @Value("${seat.archive.retention-days}") int retentionDays,
+                              @Value("${seat.archive.batch-size}") int batchSize) {
+        this.showtimeRepository = showtimeRepository;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.archived = meterRegistry.counter("seat.archive.showtimes");
+        this.retentionDays = retentionDays;
+        this.batchSize = batchSize;
+    }
+
+    private record BookedSeats(long showtimeId, Timestamp screeningTime, int hall, String movieTitle,
+                               String cinemaName, StringJoiner seatNumbers) {
+    }
+
+    @Scheduled(cron = "${seat.archive.cron}")
+    public void archive() {
+        LocalDateTime before = LocalDate.now().minusDays(retentionDays).atStartOfDay();
+        int showtimes = 0;
+        while (true) {
+            List<Long> batch = showtimeRepository.findIdsWithSeatsToArchive(before, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                break;
+            }
+            try {
+                transaction.executeWithoutResult(status -> archive(batch));
+            } catch (RuntimeException e) {
+                // Nothing of the batch was archived; the next run starts with it again
+                log.warn("Archiving seats of {} showtimes failed: {}", batch.size(), e.getMessage());
+                break;
+            }
+            showtimes += batch.size();
+            archived.increment(batch.size());
+        }
+        if (showtimes > 0) {
+            log.info("Archived seats of {} showtimes screened before {}", showtimes, before);
+        }
+    }
+
+    private void archive(List<Long> showtimeIds) {
+        Timestamp archivedAt = Timestamp.valueOf(LocalDateTime.now());
+        MapSqlParameterSource params = new MapSqlParameterSource("showtimeIds", showtimeIds)
+                .addValue("archivedAt", archivedAt);
+        namedJdbcTemplate.update(ARCHIVE_SHOWTIMES, params);
+
+        // All seats of a booking belong to one showtime
+        Map<Long, BookedSeats> bookings = new LinkedHashMap<>();
+        namedJdbcTemplate.query(BOOKED_SEATS, params, rs -> {
+            BookedSeats booking = bookings.get(rs.getLong(1));
+            if (booking == null) {
+                booking = new BookedSeats(rs.getLong(2), rs.getTimestamp(4), rs.getInt(5), rs.getString(6),
+                        rs.getString(7), new StringJoiner(","));
+                bookings.put(rs.getLong(1), booking);
+            }
+            booking.seatNumbers().add(rs.getString(3));
+        });
+        if (!bookings.isEmpty()) {
+            SqlParameterSource[] summaries = bookings.entrySet().stream()
+                    .map(booking -> new MapSqlParameterSource("bookingId", booking.getKey())
+                            .addValue("showtimeId", booking.getValue().showtimeId())
+                            .addValue("screeningTime", booking.getValue().screeningTime())
+                            .addValue("hall", booking.getValue().hall())
+                            .addValue("movieTitle", booking.getValue().movieTitle())
+                            .addValue("cinemaName", booking.getValue().cinemaName())
+                            .addValue("seatNumbers", booking.getValue().seatNumbers().toString())
+                            .addValue("archivedAt", archivedAt))
+                    .toArray(SqlParameterSource[]::new);
+            namedJdbcTemplate.batchUpdate(SUMMARIZE_BOOKING, summaries);
+        }
+
+        namedJdbcTemplate.update(DELETE_BOOKING_SEATS, params);
+        namedJdbcTemplate.update(DELETE_SEATS, params);
+    }
+}
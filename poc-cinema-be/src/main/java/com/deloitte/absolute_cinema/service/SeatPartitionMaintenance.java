@@ -0,0 +1,151 @@
+package com.deloitte.absolute_cinema.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keeps "seats" and "booking_seats" organised by screening date. On startup it fills in the
+ * screening date of rows written before the column existed, in id ranges of
+ * {@code seat.partitioning.backfill-batch-size}. With {@code seat.partitioning.enabled} on a
+ * PostgreSQL database, whose tables the V7 migration has partitioned, it also creates the
+ * monthly partitions of the next {@code seat.partitioning.months-ahead} months and detaches and
+ * drops past partitions once SeatArchiveService has emptied them, on startup and on
+ * {@code seat.partitioning.cron}.
+ */
+@Service
+@Slf4j
+public class SeatPartitionMaintenance {
+    private static final List<String> PARTITIONED_TABLES = List.of("seats", "booking_seats");
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("'_p'yyyy_MM");
+
+    private static final String BACKFILL_SEATS =
+            "UPDATE seats SET screening_date = (SELECT CAST(st.screening_time AS DATE) FROM showtimes st " +
+            "WHERE st.id = seats.showtime_id) WHERE id BETWEEN ? AND ? AND screening_date IS NULL";
+    private static final String BACKFILL_BOOKING_SEATS =
+            "UPDATE booking_seats SET screening_date = (SELECT s.screening_date FROM seats s " +
+            "WHERE s.id = booking_seats.seat_id) WHERE booking_seat_id BETWEEN ? AND ? AND screening_date IS NULL";
+    private static final String IS_PARTITIONED =
+            "SELECT COUNT(*) FROM pg_partitioned_table p JOIN pg_class c ON c.oid = p.partrelid WHERE c.relname = ?";
+    private static final String PARTITIONS =
+            "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int backfillBatchSize;
+    private final int archiveRetentionDays;
+
+    public SeatPartitionMaintenance(JdbcTemplate jdbcTemplate,
+                                    @Value("${seat.partitioning.enabled}") boolean enabled,
+                                    @Value("${seat.partitioning.months-ahead}") int monthsAhead,
+                                    @Value("${seat.partitioning.backfill-batch-size}") int backfillBatchSize,
+                                    @Value("${seat.archive.retention-days}") int archiveRetentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.backfillBatchSize = backfillBatchSize;
+        this.archiveRetentionDays = archiveRetentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        int seats = backfill(BACKFILL_SEATS, "SELECT MIN(id), MAX(id) FROM seats WHERE screening_date IS NULL");
+        int bookingSeats = backfill(BACKFILL_BOOKING_SEATS,
+                "SELECT MIN(booking_seat_id), MAX(booking_seat_id) FROM booking_seats WHERE screening_date IS NULL");
+        if (seats + bookingSeats > 0) {
+            log.info("Filled in the screening date of {} seats and {} booking seats", seats, bookingSeats);
+        }
+        maintain();
+    }
+
+    // Walks the primary key range of the rows to fill in; each batch commits on its own
+    private int backfill(String sql, String idRange) {
+        Long[] range = jdbcTemplate.queryForObject(idRange,
+                (rs, i) -> new Long[]{rs.getObject(1, Long.class), rs.getObject(2, Long.class)});
+        if (range == null || range[0] == null) {
+            return 0;
+        }
+        int total = 0;
+        for (long from = range[0]; from <= range[1]; from += backfillBatchSize) {
+            total += jdbcTemplate.update(sql, from, from + backfillBatchSize - 1);
+        }
+        return total;
+    }
+
+    @Scheduled(cron = "${seat.partitioning.cron}")
+    public void maintain() {
+        if (!enabled || !isPostgreSql()) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        // Months that end before this day can only hold archived, and so empty, partitions
+        LocalDate archivedBefore = LocalDate.now().minusDays(archiveRetentionDays);
+        for (String table : PARTITIONED_TABLES) {
+            if (jdbcTemplate.queryForObject(IS_PARTITIONED, Integer.class, table) == 0) {
+                log.warn("Table {} is not partitioned; V7__partition_seats_by_screening_date.sql has not run", table);
+                continue;
+            }
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(table, current.plusMonths(i));
+            }
+            for (String partition : jdbcTemplate.queryForList(PARTITIONS, String.class, table)) {
+                YearMonth month = monthOf(table, partition);
+                if (month != null && month.plusMonths(1).atDay(1).isBefore(archivedBefore)) {
+                    dropIfEmpty(table, partition);
+                }
+            }
+        }
+    }
+
+    // Other databases, H2 in development, keep the tables unpartitioned
+    private boolean isPostgreSql() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+
+    private void createPartition(String table, YearMonth month) {
+        try {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + month.format(PARTITION_SUFFIX) +
+                    " PARTITION OF " + table + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('" +
+                    month.plusMonths(1).atDay(1) + "')");
+        } catch (DataAccessException e) {
+            // Usually rows of that month already sit in the default partition
+            log.warn("Could not create the {} partition of {}: {}", month, table, e.getMessage());
+        }
+    }
+
+    private void dropIfEmpty(String table, String partition) {
+        Boolean empty = jdbcTemplate.queryForObject("SELECT NOT EXISTS (SELECT 1 FROM " + partition + ")", Boolean.class);
+        if (Boolean.TRUE.equals(empty)) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            log.info("Dropped archived partition {}", partition);
+        }
+    }
+
+    // Monthly partitions are named <table>_pYYYY_MM; the default partition and others are left alone
+    private static YearMonth monthOf(String table, String partition) {
+        if (!partition.startsWith(table + "_p")) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(table.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
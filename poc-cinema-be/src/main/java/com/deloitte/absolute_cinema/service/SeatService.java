@@ -3,7 +3,6 @@ package com.deloitte.absolute_cinema.service;
 import com.deloitte.absolute_cinema.entity.Seat;
 import com.deloitte.absolute_cinema.entity.SeatStatus;
 import com.deloitte.absolute_cinema.repository.SeatRepository;
-import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,11 +14,9 @@ import java.util.List;
 public class SeatService {
 
     private final SeatRepository seatRepository;
-    private final ShowtimeRepository showtimeRepository;
 
-    public SeatService(SeatRepository seatRepository, ShowtimeRepository showtimeRepository) {
+    public SeatService(SeatRepository seatRepository) {
         this.seatRepository = seatRepository;
-        this.showtimeRepository = showtimeRepository;
     }
 
     public List<Seat> getAllSeats(Long showtimeId) {
@@ -70,14 +67,18 @@ public class SeatService {
         return seats;
     }
 
+    // One query over the partitions of today and later, instead of one per upcoming showtime
     @Transactional
     @Scheduled(fixedRate = 10000)
     public void releaseUnconfirmedSeatsForAllShowtimes() {
-        List<Long> showtimeIds = showtimeRepository.findAllShowtimeIds();
-
-        for (Long showtimeId : showtimeIds) {
-            releaseUnconfirmedSeats(showtimeId);
+        LocalDateTime now = LocalDateTime.now();
+        List<Seat> seats = seatRepository.findByScreeningDateGreaterThanEqualAndStatusAndReservedAtBefore(
+                now.toLocalDate(), SeatStatus.UNCONFIRMED, now.minusMinutes(10));
+        for (Seat seat : seats) {
+            seat.setStatus(SeatStatus.AVAILABLE);
+            seat.setReservedAt(null);
         }
+        seatRepository.saveAll(seats);
     }
 
     @Transactional
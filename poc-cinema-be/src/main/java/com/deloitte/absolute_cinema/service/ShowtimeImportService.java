@@ -0,0 +1,305 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.dto.ShowtimeImportResultDTO;
+import com.deloitte.absolute_cinema.dto.ShowtimeImportResultDTO.RowError;
+import com.deloitte.absolute_cinema.dto.ShowtimeLazyDTO;
+import com.deloitte.absolute_cinema.entity.Cinema;
+import com.deloitte.absolute_cinema.entity.SeatStatus;
+import com.deloitte.absolute_cinema.entity.SeatType;
+import com.deloitte.absolute_cinema.entity.Showtime;
+import com.deloitte.absolute_cinema.exception.ShowtimeConflictException;
+import com.deloitte.absolute_cinema.repository.CinemaRepository;
+import com.deloitte.absolute_cinema.repository.MovieRepository;
+import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates many showtimes, with their seats, from one JSON array or CSV stream. Movies and cinemas
+ * are resolved by name from maps built once per import, every row is checked for hall conflicts
+ * against the schedule and the rows before it in memory, and the accepted rows are written in
+ * transactions of {@code showtime.import.batch-size} showtimes with their seats inserted as one
+ * JDBC batch. Rows that fail are reported individually and do not stop the others.
+ */
+@Service
+@Slf4j
+public class ShowtimeImportService {
+    private static final int SEATS_PER_SHOWTIME = 100;
+    private static final String INSERT_SEAT =
+            "INSERT INTO seats (showtime_id, seat_number, seat_type, status, screening_date) VALUES (?, ?, ?, ?, ?)";
+
+    private final ShowtimeRepository showtimeRepository;
+    private final MovieRepository movieRepository;
+    private final CinemaRepository cinemaRepository;
+    private final MovieCatalogCache movieCatalogCache;
+    private final HallScheduleIndex hallScheduleIndex;
+    private final ShowtimeSeatCounters showtimeSeatCounters;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transaction;
+    private final int maxRows;
+    private final int batchSize;
+
+    public ShowtimeImportService(ShowtimeRepository showtimeRepository, MovieRepository movieRepository,
+                                 CinemaRepository cinemaRepository, MovieCatalogCache movieCatalogCache,
+                                 HallScheduleIndex hallScheduleIndex, ShowtimeSeatCounters showtimeSeatCounters,
+                                 JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${showtime.import.max-rows}") int maxRows,
+                                 @Value("${showtime.import.batch-size}") int batchSize) {
+        this.showtimeRepository = showtimeRepository;
+        this.movieRepository = movieRepository;
+        this.cinemaRepository = cinemaRepository;
+        this.movieCatalogCache = movieCatalogCache;
+        this.hallScheduleIndex = hallScheduleIndex;
+        this.showtimeSeatCounters = showtimeSeatCounters;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.maxRows = maxRows;
+        this.batchSize = batchSize;
+    }
+
+    private record Row(int number, ShowtimeLazyDTO definition) {
+    }
+
+    // A row that passed validation and holds its hall slot until it is saved
+    private record Accepted(int number, Long movieId, Cinema cinema, LocalDateTime screeningTime, int hall,
+                            long reservation) {
+    }
+
+    /**
+     * Imports a JSON array of showtimes shaped like {@link ShowtimeLazyDTO}, read one element
+     * at a time.
+     */
+    public ShowtimeImportResultDTO importJson(InputStream in) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+        try (MappingIterator<ShowtimeLazyDTO> definitions = objectMapper.readerFor(ShowtimeLazyDTO.class).readValues(in)) {
+            for (int number = 1; ; number++) {
+                try {
+                    if (!definitions.hasNextValue()) {
+                        break;
+                    }
+                    if (number > maxRows) {
+                        errors.add(new RowError(number, "Only " + maxRows + " showtimes can be imported at once"));
+                        break;
+                    }
+                    rows.add(new Row(number, definitions.nextValue()));
+                } catch (JsonParseException e) {
+                    // Malformed JSON: nothing after this point can be trusted
+                    errors.add(new RowError(number, "Invalid JSON: " + e.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException e) {
+                    errors.add(new RowError(number, "Invalid showtime: " + e.getOriginalMessage()));
+                }
+            }
+        }
+        return run(rows, errors);
+    }
+
+    /**
+     * Imports CSV lines of {@code movieTitle,cinemaName,screeningTime,hall} with ISO-8601
+     * screening times, read line by line. A header line, blank lines and quoted fields are
+     * allowed.
+     */
+    public ShowtimeImportResultDTO importCsv(Reader in) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(in);
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            if (line.isBlank() || (number == 1 && line.strip().toLowerCase().startsWith("movietitle"))) {
+                continue;
+            }
+            if (rows.size() + errors.size() == maxRows) {
+                errors.add(new RowError(number, "Only " + maxRows + " showtimes can be imported at once"));
+                break;
+            }
+            List<String> fields = splitCsv(line);
+            if (fields.size() != 4) {
+                errors.add(new RowError(number, "Expected 4 fields but found " + fields.size()));
+                continue;
+            }
+            try {
+                rows.add(new Row(number, new ShowtimeLazyDTO(null, fields.get(0), fields.get(1),
+                        LocalDateTime.parse(fields.get(2)), Integer.parseInt(fields.get(3)))));
+            } catch (DateTimeParseException e) {
+                errors.add(new RowError(number, "Invalid screening time: " + fields.get(2)));
+            } catch (NumberFormatException e) {
+                errors.add(new RowError(number, "Invalid hall: " + fields.get(3)));
+            }
+        }
+        return run(rows, errors);
+    }
+
+    // Fields are trimmed; a field in double quotes may contain commas and "" for a quote
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().strip());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().strip());
+        return fields;
+    }
+
+    private ShowtimeImportResultDTO run(List<Row> rows, List<RowError> errors) {
+        int total = rows.size() + errors.size();
+        Map<String, MovieDTO> movies = new HashMap<>();
+        for (MovieDTO movie : movieCatalogCache.snapshot().getMovies()) {
+            movies.putIfAbsent(movie.getTitle(), movie);
+        }
+        Map<String, Cinema> cinemas = new HashMap<>();
+        for (Cinema cinema : cinemaRepository.findAll()) {
+            cinemas.putIfAbsent(cinema.getName(), cinema);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Accepted> accepted = new ArrayList<>();
+        for (Row row : rows) {
+            ShowtimeLazyDTO definition = row.definition();
+            MovieDTO movie = definition.getMovieTitle() != null ? movies.get(definition.getMovieTitle()) : null;
+            Cinema cinema = definition.getCinemaName() != null ? cinemas.get(definition.getCinemaName()) : null;
+            String error = validate(definition, movie, cinema, now);
+            if (error != null) {
+                errors.add(new RowError(row.number(), error));
+                continue;
+            }
+            try {
+                long reservation = hallScheduleIndex.reserve(cinema.getId(), definition.getHall(),
+                        definition.getScreeningTime(), movie.getId(), movie.getDuration());
+                accepted.add(new Accepted(row.number(), movie.getId(), cinema, definition.getScreeningTime(),
+                        definition.getHall(), reservation));
+            } catch (ShowtimeConflictException e) {
+                errors.add(new RowError(row.number(), e.getMessage()));
+            }
+        }
+
+        int created = 0;
+        for (int from = 0; from < accepted.size(); from += batchSize) {
+            created += save(accepted.subList(from, Math.min(from + batchSize, accepted.size())), errors);
+        }
+        errors.sort(Comparator.comparingInt(RowError::getRow));
+        log.info("Imported {} of {} showtimes", created, total);
+        return new ShowtimeImportResultDTO(total, created, errors);
+    }
+
+    private static String validate(ShowtimeLazyDTO definition, MovieDTO movie, Cinema cinema, LocalDateTime now) {
+        if (movie == null) {
+            return "Movie not found: " + definition.getMovieTitle();
+        }
+        if (cinema == null) {
+            return "Cinema not found: " + definition.getCinemaName();
+        }
+        if (definition.getScreeningTime() == null) {
+            return "Screening time is required";
+        }
+        if (!definition.getScreeningTime().isAfter(now)) {
+            return "Screening time " + definition.getScreeningTime() + " is in the past";
+        }
+        if (definition.getHall() < 1 || definition.getHall() > cinema.getTotalScreens()) {
+            return "Cinema " + cinema.getName() + " has halls 1 to " + cinema.getTotalScreens();
+        }
+        return null;
+    }
+
+    // One transaction per chunk; if it rolls back every row in it is reported and its slots are freed
+    private int save(List<Accepted> chunk, List<RowError> errors) {
+        List<Long> showtimeIds = new ArrayList<>(chunk.size());
+        try {
+            transaction.executeWithoutResult(status -> {
+                List<Showtime> showtimes = showtimeRepository.saveAll(chunk.stream()
+                        .map(row -> Showtime.builder()
+                                .movie(movieRepository.getReferenceById(row.movieId()))
+                                .cinema(row.cinema())
+                                .screeningTime(row.screeningTime())
+                                .hall(row.hall())
+                                .totalSeats(SEATS_PER_SHOWTIME)
+                                .build())
+                        .toList());
+                showtimes.forEach(showtime -> showtimeIds.add(showtime.getId()));
+                insertSeats(showtimes);
+                // Indexed before commit, so the commit's showtime events find them already there
+                for (int i = 0; i < chunk.size(); i++) {
+                    hallScheduleIndex.confirm(chunk.get(i).reservation(), showtimeIds.get(i));
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Importing {} showtimes failed: {}", chunk.size(), e.getMessage());
+            for (Accepted row : chunk) {
+                hallScheduleIndex.release(row.reservation());
+                errors.add(new RowError(row.number(), "Could not be saved: " + e.getMessage()));
+            }
+            showtimeIds.forEach(hallScheduleIndex::release);
+            return 0;
+        }
+        // Seats were inserted without JPA, so count them from the table
+        showtimeSeatCounters.forget(showtimeIds);
+        return chunk.size();
+    }
+
+    private void insertSeats(List<Showtime> showtimes) {
+        jdbcTemplate.batchUpdate(INSERT_SEAT, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Showtime showtime = showtimes.get(i / SEATS_PER_SHOWTIME);
+                ps.setLong(1, showtime.getId());
+                ps.setString(2, "S" + (i % SEATS_PER_SHOWTIME + 1));
+                ps.setString(3, SeatType.STANDARD.name());
+                ps.setString(4, SeatStatus.AVAILABLE.name());
+                ps.setDate(5, Date.valueOf(showtime.getScreeningTime().toLocalDate()));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return showtimes.size() * SEATS_PER_SHOWTIME;
+            }
+        });
+    }
+}
@@ -0,0 +1,222 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import com.deloitte.absolute_cinema.event.BookingStatusChangedEvent;
+import com.deloitte.absolute_cinema.event.ShowtimeChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Removes showtimes with everything that depends on them in a few set-based statements per
+ * {@code showtime.removal.batch-size} showtimes, instead of loading and deleting them row by row.
+ * Bookings of showtimes that have not started are cancelled first, in their own transaction,
+ * with the usual {@link BookingStatusChangedEvent}s so popularity, recommendations, gate checks
+ * and cached tickets follow while the seats can still be read. A second transaction locks the
+ * seats, cancels any booking made in between, copies every affected booking's screening and seat
+ * numbers into its seat summary and deletes the booking seats, gate admissions, seats, seat
+ * archive rows and showtimes. Holders of a cancelled booking are emailed afterwards on the
+ * notification executor. Exposes "showtime.removal.notifications.rejected" for emails dropped
+ * because its queue was full.
+ */
+@Service
+@Slf4j
+public class ShowtimeRemovalService {
+    private static final String AFFECTED_BOOKINGS =
+            "SELECT b.id, b.status, COALESCE(u.email, g.email), m.title, st.screening_time, s.seat_number, " +
+            "st.hall, c.name " +
+            "FROM booking_seats bs JOIN bookings b ON b.id = bs.booking_id JOIN seats s ON s.id = bs.seat_id " +
+            "JOIN showtimes st ON st.id = s.showtime_id LEFT JOIN movies m ON m.id = st.movie_id " +
+            "LEFT JOIN cinemas c ON c.id = st.cinema_id " +
+            "LEFT JOIN users u ON u.id = b.user_id LEFT JOIN guests g ON g.id = b.guest_id " +
+            "WHERE s.showtime_id IN (:showtimeIds) ORDER BY b.id, s.id";
+    // Blocks seat selection and new booking seats on these showtimes until the removal commits
+    private static final String LOCK_SEATS = "SELECT id FROM seats WHERE showtime_id IN (:showtimeIds) FOR UPDATE";
+    private static final String CANCEL_BOOKING =
+            "UPDATE bookings SET status = 'CANCELLED' WHERE id = :bookingId AND status <> 'CANCELLED'";
+    private static final String SUMMARIZE_BOOKING =
+            "UPDATE bookings SET archived_screening_time = :screeningTime, archived_hall = :hall, " +
+            "archived_movie_title = :movieTitle, archived_cinema_name = :cinemaName, " +
+            "archived_seat_numbers = :seatNumbers, seats_archived_at = :archivedAt WHERE id = :bookingId";
+    private static final String SHOWTIMES =
+            "SELECT id, movie_id, cinema_id, hall, screening_time FROM showtimes WHERE id IN (:showtimeIds)";
+    // In dependency order; archived bookings keep their seat summary but lose the showtime
+    private static final List<String> DELETE_DEPENDENTS = List.of(
+            "UPDATE bookings SET archived_showtime_id = NULL WHERE archived_showtime_id IN (:showtimeIds)",
+            "DELETE FROM booking_seats WHERE seat_id IN (SELECT id FROM seats WHERE showtime_id IN (:showtimeIds))",
+            "DELETE FROM gate_admissions WHERE showtime_id IN (:showtimeIds)",
+            "DELETE FROM seats WHERE showtime_id IN (:showtimeIds)",
+            "DELETE FROM archived_showtime_seats WHERE showtime_id IN (:showtimeIds)",
+            "DELETE FROM showtimes WHERE id IN (:showtimeIds)");
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationService notificationService;
+    private final ThreadPoolTaskExecutor notificationExecutor;
+    private final TransactionTemplate transaction;
+    private final Counter rejectedNotifications;
+    private final int batchSize;
+
+    public ShowtimeRemovalService(NamedParameterJdbcTemplate namedJdbcTemplate, ApplicationEventPublisher eventPublisher,
+                                  NotificationService notificationService, ThreadPoolTaskExecutor notificationExecutor,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+                                  @Value("${showtime.removal.batch-size}") int batchSize) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.notificationService = notificationService;
+        this.notificationExecutor = notificationExecutor;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.rejectedNotifications = meterRegistry.counter("showtime.removal.notifications.rejected");
+        this.batchSize = batchSize;
+    }
+
+    // One booking of a removed showtime; all seats of a booking belong to one showtime
+    private record AffectedBooking(Long bookingId, BookingStatus status, String email, String movieTitle,
+                                   LocalDateTime screeningTime, int hall, String cinemaName,
+                                   StringJoiner seatNumbers) {
+    }
+
+    /**
+     * Removes the given showtimes and returns the number of bookings cancelled. Must not be
+     * called inside a transaction, which would hold the booking events until the seats are gone.
+     */
+    public int remove(List<Long> showtimeIds) {
+        return remove(showtimeIds, () -> {
+        });
+    }
+
+    /**
+     * As {@link #remove(List)}, also running {@code alsoDelete} in the transaction that removes the
+     * last batch, so a row that the showtimes reference goes with them. Batches before the last are
+     * already committed if it fails.
+     */
+    public int remove(List<Long> showtimeIds, Runnable alsoDelete) {
+        if (showtimeIds.isEmpty()) {
+            transaction.executeWithoutResult(status -> alsoDelete.run());
+            return 0;
+        }
+        int cancelled = 0;
+        for (int from = 0; from < showtimeIds.size(); from += batchSize) {
+            int to = Math.min(from + batchSize, showtimeIds.size());
+            cancelled += removeBatch(showtimeIds.subList(from, to), to == showtimeIds.size() ? alsoDelete : null);
+        }
+        return cancelled;
+    }
+
+    private int removeBatch(List<Long> showtimeIds, Runnable alsoDelete) {
+        MapSqlParameterSource params = new MapSqlParameterSource("showtimeIds", showtimeIds);
+        LocalDateTime now = LocalDateTime.now();
+        List<AffectedBooking> cancelled = new ArrayList<>(cancellable(affectedBookings(params), now));
+
+        if (!cancelled.isEmpty()) {
+            // Delivered on commit, while the bookings still have their seats
+            transaction.executeWithoutResult(status -> cancel(cancelled));
+        }
+
+        transaction.executeWithoutResult(status -> {
+            namedJdbcTemplate.queryForList(LOCK_SEATS, params, Long.class);
+            // Read again under the lock; only bookings made since the first read are still cancellable
+            Map<Long, AffectedBooking> bookings = affectedBookings(params);
+            List<AffectedBooking> late = cancellable(bookings, now);
+            if (!late.isEmpty()) {
+                cancel(late);
+                cancelled.addAll(late);
+            }
+            if (!bookings.isEmpty()) {
+                Timestamp archivedAt = Timestamp.valueOf(now);
+                namedJdbcTemplate.batchUpdate(SUMMARIZE_BOOKING, bookings.values().stream()
+                        .map(booking -> new MapSqlParameterSource("bookingId", booking.bookingId())
+                                .addValue("screeningTime", Timestamp.valueOf(booking.screeningTime()))
+                                .addValue("hall", booking.hall())
+                                .addValue("movieTitle", booking.movieTitle())
+                                .addValue("cinemaName", booking.cinemaName())
+                                .addValue("seatNumbers", booking.seatNumbers().toString())
+                                .addValue("archivedAt", archivedAt))
+                        .toArray(SqlParameterSource[]::new));
+            }
+            List<ShowtimeChangedEvent> removed = new ArrayList<>(showtimeIds.size());
+            namedJdbcTemplate.query(SHOWTIMES, params, rs -> {
+                LocalDateTime screeningTime = rs.getTimestamp(5) != null ? rs.getTimestamp(5).toLocalDateTime() : null;
+                Long movieId = rs.getObject(2, Long.class);
+                removed.add(new ShowtimeChangedEvent(rs.getLong(1), movieId, rs.getObject(3, Long.class), rs.getInt(4),
+                        screeningTime, movieId, screeningTime, true));
+            });
+            DELETE_DEPENDENTS.forEach(sql -> namedJdbcTemplate.update(sql, params));
+            if (alsoDelete != null) {
+                alsoDelete.run();
+            }
+            removed.forEach(eventPublisher::publishEvent);
+        });
+
+        cancelled.forEach(this::notifyCancelled);
+        log.info("Removed {} showtimes and cancelled {} bookings", showtimeIds.size(), cancelled.size());
+        return cancelled.size();
+    }
+
+    private static List<AffectedBooking> cancellable(Map<Long, AffectedBooking> bookings, LocalDateTime now) {
+        return bookings.values().stream()
+                .filter(booking -> booking.status() != BookingStatus.CANCELLED && booking.screeningTime().isAfter(now))
+                .toList();
+    }
+
+    private void cancel(List<AffectedBooking> bookings) {
+        namedJdbcTemplate.batchUpdate(CANCEL_BOOKING, bookings.stream()
+                .map(booking -> new MapSqlParameterSource("bookingId", booking.bookingId()))
+                .toArray(SqlParameterSource[]::new));
+        bookings.forEach(booking -> eventPublisher.publishEvent(
+                new BookingStatusChangedEvent(booking.bookingId(), booking.status(), BookingStatus.CANCELLED)));
+    }
+
+    private Map<Long, AffectedBooking> affectedBookings(MapSqlParameterSource params) {
+        Map<Long, AffectedBooking> bookings = new LinkedHashMap<>();
+        namedJdbcTemplate.query(AFFECTED_BOOKINGS, params, rs -> {
+            Long bookingId = rs.getLong(1);
+            AffectedBooking booking = bookings.get(bookingId);
+            if (booking == null) {
+                booking = new AffectedBooking(bookingId, BookingStatus.valueOf(rs.getString(2)), rs.getString(3),
+                        rs.getString(4), rs.getTimestamp(5).toLocalDateTime(), rs.getInt(7), rs.getString(8),
+                        new StringJoiner(","));
+                bookings.put(bookingId, booking);
+            }
+            booking.seatNumbers().add(rs.getString(6));
+        });
+        return bookings;
+    }
+
+    private void notifyCancelled(AffectedBooking booking) {
+        if (booking.email() == null) {
+            return;
+        }
+        try {
+            notificationExecutor.execute(() -> {
+                try {
+                    notificationService.sendShowtimeCancellation(booking.email(), booking.bookingId(),
+                            booking.movieTitle(), booking.screeningTime(), booking.seatNumbers().toString());
+                } catch (RuntimeException e) {
+                    log.warn("Could not email the cancellation of booking {}: {}", booking.bookingId(), e.getMessage());
+                }
+            });
+        } catch (TaskRejectedException e) {
+            rejectedNotifications.increment();
+            log.warn("Notification queue full; booking {} was cancelled without an email", booking.bookingId());
+        }
+    }
+}
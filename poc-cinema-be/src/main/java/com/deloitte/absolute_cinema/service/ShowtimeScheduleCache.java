@@ -0,0 +1,135 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.ShowtimeSlotDTO;
+import com.deloitte.absolute_cinema.event.ShowtimeChangedEvent;
+import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Showtime schedule rows cached per (movie, day). Days missing from the cache are loaded with a
+ * single projection query covering all of them, and a showtime write evicts the days it moved
+ * out of and into. Entries also expire after {@code schedule.cache.ttl-minutes}, which bounds how
+ * long a renamed cinema can show its old name. Exposes "showtime.schedule.reads" tagged hit/miss.
+ */
+@Component
+public class ShowtimeScheduleCache {
+
+    private final ShowtimeRepository showtimeRepository;
+    private final Duration ttl;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final Map<Key, Day> days = new ConcurrentHashMap<>();
+    // Bumped by every eviction; a load that raced with one does not populate the cache
+    private final AtomicLong generation = new AtomicLong();
+
+    public ShowtimeScheduleCache(ShowtimeRepository showtimeRepository, MeterRegistry meterRegistry,
+                                 @Value("${schedule.cache.ttl-minutes}") long ttlMinutes) {
+        this.showtimeRepository = showtimeRepository;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.hits = meterRegistry.counter("showtime.schedule.reads", "result", "hit");
+        this.misses = meterRegistry.counter("showtime.schedule.reads", "result", "miss");
+    }
+
+    private record Key(Long movieId, LocalDate date) {
+    }
+
+    private record Day(List<ShowtimeSlotDTO> slots, LocalDateTime loadedAt) {
+    }
+
+    /**
+     * Showtimes of the movie that have not started yet, from today through {@code dayCount}
+     * days, ordered by screening time.
+     */
+    public List<ShowtimeSlotDTO> upcomingSlots(Long movieId, int dayCount) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = now.toLocalDate();
+        List<Day> cached = new ArrayList<>(dayCount);
+        LocalDate firstMissing = null;
+        LocalDate lastMissing = null;
+        for (int i = 0; i < dayCount; i++) {
+            LocalDate date = today.plusDays(i);
+            Day day = days.get(new Key(movieId, date));
+            if (day == null || day.loadedAt().plus(ttl).isBefore(now)) {
+                day = null;
+                if (firstMissing == null) {
+                    firstMissing = date;
+                }
+                lastMissing = date;
+            }
+            cached.add(day);
+        }
+
+        if (firstMissing == null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            load(movieId, firstMissing, lastMissing, now, cached, today);
+        }
+
+        List<ShowtimeSlotDTO> slots = new ArrayList<>();
+        for (Day day : cached) {
+            for (ShowtimeSlotDTO slot : day.slots()) {
+                if (slot.getScreeningTime().isAfter(now)) {
+                    slots.add(slot);
+                }
+            }
+        }
+        return slots;
+    }
+
+    // One query for the whole missing range; days already cached inside it are refreshed too
+    private void load(Long movieId, LocalDate first, LocalDate last, LocalDateTime now,
+                      List<Day> cached, LocalDate today) {
+        long loadedGeneration = generation.get();
+        LocalDateTime from = first.equals(today) ? now : first.atStartOfDay();
+        List<ShowtimeSlotDTO> rows = showtimeRepository.findSlotsByMovie(movieId, from, last.plusDays(1).atStartOfDay());
+
+        Map<LocalDate, List<ShowtimeSlotDTO>> byDate = new HashMap<>();
+        for (ShowtimeSlotDTO row : rows) {
+            byDate.computeIfAbsent(row.getScreeningTime().toLocalDate(), d -> new ArrayList<>()).add(row);
+        }
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            Day day = new Day(List.copyOf(byDate.getOrDefault(date, List.of())), now);
+            cached.set((int) (date.toEpochDay() - today.toEpochDay()), day);
+            if (generation.get() == loadedGeneration) {
+                days.put(new Key(movieId, date), day);
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShowtimeChanged(ShowtimeChangedEvent event) {
+        generation.incrementAndGet();
+        evict(event.getMovieId(), event.getScreeningTime());
+        evict(event.getPreviousMovieId(), event.getPreviousScreeningTime());
+    }
+
+    private void evict(Long movieId, LocalDateTime screeningTime) {
+        if (movieId != null && screeningTime != null) {
+            days.remove(new Key(movieId, screeningTime.toLocalDate()));
+        }
+    }
+
+    // Past days are never read again
+    @Scheduled(fixedRate = 3600000)
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(key -> key.date().isBefore(today));
+    }
+}
@@ -0,0 +1,173 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.SeatAvailabilityDTO;
+import com.deloitte.absolute_cinema.entity.SeatStatus;
+import com.deloitte.absolute_cinema.event.SeatStatusChangedEvent;
+import com.deloitte.absolute_cinema.event.ShowtimeChangedEvent;
+import com.deloitte.absolute_cinema.repository.SeatRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Available, held and booked seat counts per showtime, kept in memory so listings can show
+ * availability without reading any seats. The three counts of a showtime are packed into one
+ * long, so every committed seat transition moves a seat between them with a single
+ * compare-and-set and readers never see it in two states or none. Upcoming showtimes are loaded
+ * on startup and reconciled against the "seats" table every
+ * {@code seat.counters.reconcile-interval-ms}; showtimes that have started are dropped then.
+ * Exposes "seat.counters.corrections" for counts the reconciliation had to fix.
+ */
+@Component
+@Slf4j
+public class ShowtimeSeatCounters {
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+
+    private final SeatRepository seatRepository;
+    private final Counter corrections;
+
+    // Showtime id -> seat counts by status, BITS bits each at SeatStatus.ordinal() * BITS
+    private final Map<Long, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public ShowtimeSeatCounters(SeatRepository seatRepository, MeterRegistry meterRegistry) {
+        this.seatRepository = seatRepository;
+        this.corrections = meterRegistry.counter("seat.counters.corrections");
+    }
+
+    /**
+     * Seat counts for each of the given showtimes. Showtimes not tracked yet are counted in one
+     * query and tracked from then on.
+     */
+    public Map<Long, SeatAvailabilityDTO> availability(Collection<Long> showtimeIds) {
+        Map<Long, SeatAvailabilityDTO> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long showtimeId : showtimeIds) {
+            AtomicLong counter = counters.get(showtimeId);
+            if (counter == null) {
+                missing.add(showtimeId);
+            } else {
+                result.put(showtimeId, toDTO(counter.get()));
+            }
+        }
+        if (!missing.isEmpty()) {
+            Map<Long, Long> counted = pack(seatRepository.countByStatusForShowtimes(missing));
+            for (Long showtimeId : missing) {
+                long packed = counted.getOrDefault(showtimeId, 0L);
+                result.put(showtimeId, toDTO(counters.computeIfAbsent(showtimeId, id -> new AtomicLong(packed)).get()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stops tracking the given showtimes so they are counted from the table on their next read.
+     * For writers that insert or change seats without going through JPA.
+     */
+    public void forget(Collection<Long> showtimeIds) {
+        showtimeIds.forEach(counters::remove);
+    }
+
+    // Transitions of untracked showtimes are already in the table they will be counted from
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSeatStatusChanged(SeatStatusChangedEvent event) {
+        AtomicLong counter = event.getShowtimeId() != null ? counters.get(event.getShowtimeId()) : null;
+        if (counter != null) {
+            counter.updateAndGet(packed ->
+                    add(add(packed, event.getPreviousStatus(), -1), event.getCurrentStatus(), 1));
+        }
+    }
+
+    // A new showtime starts empty so the inserts of its seats are counted as they commit
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShowtimeChanged(ShowtimeChangedEvent event) {
+        if (event.isRemoved()) {
+            counters.remove(event.getShowtimeId());
+        } else if (event.getPreviousScreeningTime() == null) {
+            counters.putIfAbsent(event.getShowtimeId(), new AtomicLong());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reconcile();
+        log.info("Tracking seat counts for {} upcoming showtimes", counters.size());
+    }
+
+    /**
+     * Replaces every tracked count that differs from the table. A counter that moved while the
+     * table was being read is left for the next run rather than overwritten with a count that
+     * may predate the move.
+     */
+    @Scheduled(initialDelayString = "${seat.counters.reconcile-interval-ms}",
+            fixedDelayString = "${seat.counters.reconcile-interval-ms}")
+    public void reconcile() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Long> before = new HashMap<>();
+        counters.forEach((showtimeId, counter) -> before.put(showtimeId, counter.get()));
+        Map<Long, Long> counted = pack(seatRepository.countByStatusForShowtimesAfter(now.toLocalDate(), now));
+
+        int corrected = 0;
+        for (Map.Entry<Long, Long> entry : counted.entrySet()) {
+            Long expected = before.get(entry.getKey());
+            long actual = entry.getValue();
+            if (expected == null) {
+                counters.putIfAbsent(entry.getKey(), new AtomicLong(actual));
+            } else if (expected != actual) {
+                AtomicLong counter = counters.get(entry.getKey());
+                if (counter != null && counter.compareAndSet(expected, actual)) {
+                    corrected++;
+                }
+            }
+        }
+        // Started or deleted showtimes; counters created during the query are kept
+        counters.keySet().removeIf(showtimeId -> before.containsKey(showtimeId) && !counted.containsKey(showtimeId));
+
+        if (corrected > 0) {
+            corrections.increment(corrected);
+            log.info("Corrected seat counts of {} showtimes", corrected);
+        }
+    }
+
+    private static Map<Long, Long> pack(List<Object[]> rows) {
+        Map<Long, Long> packed = new HashMap<>();
+        for (Object[] row : rows) {
+            Long showtimeId = (Long) row[0];
+            packed.put(showtimeId, add(packed.getOrDefault(showtimeId, 0L), (SeatStatus) row[1], (Long) row[2]));
+        }
+        return packed;
+    }
+
+    // Counts are clamped to the field so a stray delta can never borrow from a neighbouring one
+    private static long add(long packed, SeatStatus status, long delta) {
+        if (status == null) {
+            return packed;
+        }
+        int shift = status.ordinal() * BITS;
+        long count = Math.max(0, Math.min(MASK, ((packed >>> shift) & MASK) + delta));
+        return (packed & ~(MASK << shift)) | (count << shift);
+    }
+
+    private static int count(long packed, SeatStatus status) {
+        return (int) ((packed >>> (status.ordinal() * BITS)) & MASK);
+    }
+
+    private static SeatAvailabilityDTO toDTO(long packed) {
+        return new SeatAvailabilityDTO(count(packed, SeatStatus.AVAILABLE), count(packed, SeatStatus.UNCONFIRMED),
+                count(packed, SeatStatus.BOOKED));
+    }
+}
@@ -1,13 +1,22 @@
 package com.deloitte.absolute_cinema.service;
 
 
+import com.deloitte.absolute_cinema.dto.FreeSlotDTO;
+import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.dto.MovieScheduleDTO;
+import com.deloitte.absolute_cinema.dto.SeatAvailabilityDTO;
 import com.deloitte.absolute_cinema.dto.ShowtimeBookingDTO;
 import com.deloitte.absolute_cinema.dto.ShowtimeDTO;
 import com.deloitte.absolute_cinema.dto.ShowtimeLazyDTO;
+import com.deloitte.absolute_cinema.dto.ShowtimeSlotDTO;
+import com.deloitte.absolute_cinema.dto.UpcomingShowtimeDTO;
+import com.deloitte.absolute_cinema.entity.Cinema;
 import com.deloitte.absolute_cinema.entity.Seat;
 import com.deloitte.absolute_cinema.entity.SeatStatus;
 import com.deloitte.absolute_cinema.entity.SeatType;
 import com.deloitte.absolute_cinema.entity.Showtime;
+import com.deloitte.absolute_cinema.exception.ResourceNotFoundException;
+import com.deloitte.absolute_cinema.repository.BookingSeatRepository;
 import com.deloitte.absolute_cinema.repository.CinemaRepository;
 import com.deloitte.absolute_cinema.repository.MovieRepository;
 import com.deloitte.absolute_cinema.repository.SeatRepository;
@@ -15,24 +24,54 @@ import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 @Service
 public class ShowtimeService {
+    // Share of a showtime's seats at or below which it is flagged as almost sold out
+    private static final double FEW_SEATS_LEFT_RATIO = 0.1;
+
     private final ShowtimeRepository showtimeRepository;
     private final MovieRepository movieRepository;
     private final CinemaRepository cinemaRepository;
+    private final MovieCatalogCache movieCatalogCache;
+    private final ShowtimeScheduleCache showtimeScheduleCache;
+    private final ShowtimeSeatCounters showtimeSeatCounters;
+    private final HallScheduleIndex hallScheduleIndex;
+    private final UpcomingShowtimeIndex upcomingShowtimeIndex;
+    private final BookingSeatRepository bookingSeatRepository;
+    private final ShowtimeRemovalService showtimeRemovalService;
+    private final PosterStore posterStore;
 
     @Autowired
     SeatRepository seatRepository;
 
-    public ShowtimeService(ShowtimeRepository showtimeRepository, MovieRepository movieRepository, CinemaRepository cinemaRepository) {
+    public ShowtimeService(ShowtimeRepository showtimeRepository, MovieRepository movieRepository, CinemaRepository cinemaRepository,
+                           MovieCatalogCache movieCatalogCache, ShowtimeScheduleCache showtimeScheduleCache,
+                           ShowtimeSeatCounters showtimeSeatCounters, HallScheduleIndex hallScheduleIndex,
+                           UpcomingShowtimeIndex upcomingShowtimeIndex, BookingSeatRepository bookingSeatRepository,
+                           ShowtimeRemovalService showtimeRemovalService, PosterStore posterStore) {
         this.showtimeRepository = showtimeRepository;
         this.movieRepository = movieRepository;
         this.cinemaRepository = cinemaRepository;
+        this.movieCatalogCache = movieCatalogCache;
+        this.showtimeScheduleCache = showtimeScheduleCache;
+        this.showtimeSeatCounters = showtimeSeatCounters;
+        this.hallScheduleIndex = hallScheduleIndex;
+        this.upcomingShowtimeIndex = upcomingShowtimeIndex;
+        this.bookingSeatRepository = bookingSeatRepository;
+        this.showtimeRemovalService = showtimeRemovalService;
+        this.posterStore = posterStore;
     }
 
     public List<ShowtimeDTO> getShowtimesByMovie(Long movieId) {
@@ -42,6 +81,88 @@ public class ShowtimeService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Upcoming showtimes of a movie over the next {@code days} days, with the movie and each
+     * cinema listed once and the showtimes grouped by cinema, then date. Each showtime carries
+     * its live seat counts.
+     */
+    public MovieScheduleDTO getMovieSchedule(Long movieId, int days) {
+        MovieDTO movie = movieCatalogCache.snapshot().getMoviesById().get(movieId);
+        if (movie == null) {
+            throw new ResourceNotFoundException("Movie not found with id: " + movieId);
+        }
+
+        List<ShowtimeSlotDTO> rows = showtimeScheduleCache.upcomingSlots(movieId, days);
+        Map<Long, SeatAvailabilityDTO> seats = showtimeSeatCounters.availability(
+                rows.stream().map(ShowtimeSlotDTO::getShowtimeId).toList());
+
+        // Rows arrive in screening time order, so each day's slots stay sorted
+        Map<Long, ShowtimeSlotDTO> cinemaRows = new LinkedHashMap<>();
+        Map<Long, Map<LocalDate, List<MovieScheduleDTO.Slot>>> slotsByCinema = new HashMap<>();
+        for (ShowtimeSlotDTO row : rows) {
+            cinemaRows.putIfAbsent(row.getCinemaId(), row);
+            slotsByCinema.computeIfAbsent(row.getCinemaId(), id -> new TreeMap<>())
+                    .computeIfAbsent(row.getScreeningTime().toLocalDate(), date -> new ArrayList<>())
+                    .add(toSlot(row, seats.get(row.getShowtimeId())));
+        }
+
+        List<MovieScheduleDTO.CinemaSchedule> cinemas = cinemaRows.values().stream()
+                .sorted(Comparator.comparing(ShowtimeSlotDTO::getCinemaName, Comparator.nullsLast(String::compareTo)))
+                .map(cinema -> new MovieScheduleDTO.CinemaSchedule(
+                        cinema.getCinemaId(),
+                        cinema.getCinemaName(),
+                        cinema.getCinemaLocation(),
+                        slotsByCinema.get(cinema.getCinemaId()).entrySet().stream()
+                                .map(day -> new MovieScheduleDTO.DaySchedule(day.getKey(), day.getValue()))
+                                .toList()))
+                .toList();
+        return new MovieScheduleDTO(movie, cinemas);
+    }
+
+    private static MovieScheduleDTO.Slot toSlot(ShowtimeSlotDTO row, SeatAvailabilityDTO seats) {
+        int total = seats.getAvailable() + seats.getHeld() + seats.getBooked();
+        int threshold = (int) Math.ceil(total * FEW_SEATS_LEFT_RATIO);
+        return new MovieScheduleDTO.Slot(row.getShowtimeId(), row.getScreeningTime().toLocalTime(), row.getHall(),
+                seats.getAvailable(), seats.getHeld(), seats.getBooked(),
+                seats.getAvailable() > 0 && seats.getAvailable() <= threshold);
+    }
+
+    /**
+     * Showtimes starting from {@code from} (or now, whichever is later) until {@code to} in the
+     * given cinemas, or all cinemas if none are given, earliest first.
+     */
+    public List<UpcomingShowtimeDTO> getUpcomingShowtimes(LocalDateTime from, LocalDateTime to,
+                                                          List<Long> cinemaIds, int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from == null || from.isBefore(now) ? now : from;
+        if (to != null && !to.isAfter(start)) {
+            throw new IllegalArgumentException("'to' must be after 'from' and in the future");
+        }
+        List<UpcomingShowtimeIndex.Entry> entries = upcomingShowtimeIndex.range(start, to, cinemaIds, limit);
+
+        Map<Long, MovieDTO> movies = movieCatalogCache.snapshot().getMoviesById();
+        Map<Long, Cinema> cinemas = cinemaRepository.findAllById(
+                        entries.stream().map(UpcomingShowtimeIndex.Entry::cinemaId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(Cinema::getId, cinema -> cinema));
+        Map<Long, SeatAvailabilityDTO> seats = showtimeSeatCounters.availability(
+                entries.stream().map(UpcomingShowtimeIndex.Entry::showtimeId).toList());
+
+        List<UpcomingShowtimeDTO> upcoming = new ArrayList<>(entries.size());
+        for (UpcomingShowtimeIndex.Entry entry : entries) {
+            MovieDTO movie = movies.get(entry.movieId());
+            Cinema cinema = cinemas.get(entry.cinemaId());
+            if (movie == null || cinema == null) {
+                continue;
+            }
+            upcoming.add(new UpcomingShowtimeDTO(entry.showtimeId(), entry.screeningTime(), entry.hall(),
+                    cinema.getId(), cinema.getName(), cinema.getLocation(),
+                    movie.getId(), movie.getTitle(), movie.getPosterUrl(), movie.getDuration(),
+                    seats.get(entry.showtimeId()).getAvailable()));
+        }
+        return upcoming;
+    }
+
     public List<ShowtimeDTO> getShowtimesByCinema(Long cinemaId) {
         return showtimeRepository.findByCinema_IdAndScreeningTimeAfter(cinemaId, LocalDateTime.now())
                 .stream()
@@ -58,7 +179,7 @@ public class ShowtimeService {
         showtime.setScreeningTime(showtimeDTO.getScreeningTime());
         showtime.setHall(showtimeDTO.getHall());
 
-        Showtime savedShowtime = showtimeRepository.save(showtime);
+        Showtime savedShowtime = hallScheduleIndex.schedule(showtime, showtimeRepository::save);
 
         // Create seats
         List<Seat> seats = IntStream.rangeClosed(1, 100)
@@ -89,10 +210,17 @@ public class ShowtimeService {
                 .orElseThrow(() -> new RuntimeException("Movie not found")));
         showtime.setCinema(cinemaRepository.findByName(showtimeDTO.getCinemaName())
                 .orElseThrow(() -> new RuntimeException("Cinema not found")));
+        LocalDate previousDate = showtime.getScreeningTime() != null ? showtime.getScreeningTime().toLocalDate() : null;
         showtime.setScreeningTime(showtimeDTO.getScreeningTime());
         showtime.setHall(showtimeDTO.getHall());
 
-        Showtime updatedShowtime = showtimeRepository.save(showtime);
+        Showtime updatedShowtime = hallScheduleIndex.schedule(showtime, showtimeRepository::save);
+        // Moves the seats to the partition of the new day
+        LocalDate screeningDate = updatedShowtime.getScreeningTime().toLocalDate();
+        if (!screeningDate.equals(previousDate)) {
+            seatRepository.updateScreeningDate(id, screeningDate);
+            bookingSeatRepository.updateScreeningDate(id, screeningDate);
+        }
         return new ShowtimeLazyDTO(
                 updatedShowtime.getId(),
                 updatedShowtime.getMovie().getTitle(),
@@ -102,16 +230,38 @@ public class ShowtimeService {
         );
     }
 
+    /**
+     * Free stretches of a hall on the given day. With a movie, only stretches long enough for it
+     * and the cleaning after it are returned.
+     */
+    public List<FreeSlotDTO> getFreeSlots(Long cinemaId, int hall, LocalDate date, Long movieId) {
+        int totalScreens = cinemaRepository.findById(cinemaId)
+                .orElseThrow(() -> new ResourceNotFoundException("Cinema not found with id: " + cinemaId))
+                .getTotalScreens();
+        if (hall < 1 || hall > totalScreens) {
+            throw new IllegalArgumentException("Cinema " + cinemaId + " has halls 1 to " + totalScreens);
+        }
+        int duration = 0;
+        if (movieId != null) {
+            MovieDTO movie = movieCatalogCache.snapshot().getMoviesById().get(movieId);
+            if (movie == null) {
+                throw new ResourceNotFoundException("Movie not found with id: " + movieId);
+            }
+            duration = movie.getDuration();
+        }
+        return hallScheduleIndex.freeSlots(cinemaId, hall, date, duration);
+    }
+
+    // Cancels its upcoming bookings and deletes its seats in bulk; see ShowtimeRemovalService
     public void deleteShowtime(Long id) {
-        Showtime showtime = showtimeRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Showtime not found"));
-        showtimeRepository.delete(showtime);
+        if (!showtimeRepository.existsById(id)) {
+            throw new RuntimeException("Showtime not found");
+        }
+        showtimeRemovalService.remove(List.of(id));
     }
 
 
     private ShowtimeDTO mapToDTO(Showtime showtime) {
-        int threshold = (int) Math.ceil(showtime.getTotalSeats() * 0.1);
-
         return new ShowtimeDTO(
                 showtime.getId(),
                 showtime.getMovie(),
@@ -140,7 +290,7 @@ public class ShowtimeService {
                         showtime.getId(),
                         showtime.getMovie().getTitle(),
                         showtime.getMovie().getPrice(),
-                        showtime.getMovie().getPosterUrl(),
+                        posterStore.publicUrl(showtime.getMovie().getPosterUrl()),
                         showtime.getCinema().getName(),
                         showtime.getScreeningTime(),
                         showtime.getHall()
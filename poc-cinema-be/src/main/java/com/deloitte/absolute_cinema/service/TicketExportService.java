@@ -0,0 +1,133 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.Booking;
+import com.deloitte.absolute_cinema.exception.ResourceNotFoundException;
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import com.deloitte.absolute_cinema.service.PdfGenerationService.DocumentType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams the e-tickets of many bookings as one ZIP archive. Tickets are rendered in parallel on
+ * the shared render pool while the archive is written in booking order; at most
+ * {@code pdf.export.window} tickets are in flight, so memory stays constant however many
+ * bookings are exported.
+ */
+@Service
+public class TicketExportService {
+
+    private final BookingRepository bookingRepository;
+    private final BookingDocumentService bookingDocumentService;
+    private final PdfGenerationService pdfGenerationService;
+    private final ThreadPoolTaskExecutor documentRenderExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int window;
+
+    public TicketExportService(BookingRepository bookingRepository, BookingDocumentService bookingDocumentService,
+                               PdfGenerationService pdfGenerationService,
+                               ThreadPoolTaskExecutor documentRenderExecutor,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${pdf.export.window}") int window) {
+        this.bookingRepository = bookingRepository;
+        this.bookingDocumentService = bookingDocumentService;
+        this.pdfGenerationService = pdfGenerationService;
+        this.documentRenderExecutor = documentRenderExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.window = window;
+    }
+
+    public List<Long> findBookingIdsForShowtime(Long showtimeId) {
+        return bookingRepository.findConfirmedBookingIdsByShowtime(showtimeId);
+    }
+
+    public List<Long> findBookingIdsForScreeningTime(LocalDateTime from, LocalDateTime to) {
+        return bookingRepository.findConfirmedBookingIdsByScreeningTime(from, to);
+    }
+
+    public void writeTicketArchive(List<Long> bookingIds, OutputStream out) throws IOException {
+        Deque<Future<InputStream>> inFlight = new ArrayDeque<>();
+        Deque<Long> inFlightIds = new ArrayDeque<>();
+        Iterator<Long> pending = bookingIds.iterator();
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        try {
+            while (pending.hasNext() || !inFlight.isEmpty()) {
+                while (inFlight.size() < window && pending.hasNext()) {
+                    Long bookingId = pending.next();
+                    inFlightIds.add(bookingId);
+                    inFlight.add(documentRenderExecutor.submit(() -> openTicket(bookingId)));
+                }
+
+                Long bookingId = inFlightIds.poll();
+                try (InputStream ticket = await(inFlight.poll())) {
+                    zip.putNextEntry(new ZipEntry("e-ticket-" + bookingId + ".pdf"));
+                    ticket.transferTo(zip);
+                    zip.closeEntry();
+                }
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            // On failure or client abort, stop outstanding renders and release their files
+            for (Future<InputStream> future : inFlight) {
+                if (!future.cancel(true)) {
+                    closeQuietly(future);
+                }
+            }
+        }
+    }
+
+    private InputStream openTicket(Long bookingId) {
+        return readOnlyTransaction.execute(status -> {
+            Booking booking = bookingRepository.findById(bookingId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Booking with ID " + bookingId + " not found"));
+            try {
+                if (bookingDocumentService.isStreaming()) {
+                    return new ByteArrayInputStream(pdfGenerationService.generateETicket(booking));
+                }
+                return Channels.newInputStream(bookingDocumentService.openDocument(booking, DocumentType.E_TICKET));
+            } catch (IOException e) {
+                throw new RuntimeException("Error rendering e-ticket for booking " + bookingId, e);
+            }
+        });
+    }
+
+    private InputStream await(Future<InputStream> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Ticket export interrupted");
+        } catch (ExecutionException e) {
+            throw new IOException("Error rendering e-ticket", e.getCause());
+        }
+    }
+
+    private void closeQuietly(Future<InputStream> future) {
+        try {
+            future.get().close();
+        } catch (Exception ignored) {
+            // Rendering failed or was interrupted; nothing to release
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.BookingStatus;
+import com.deloitte.absolute_cinema.event.BookingStatusChangedEvent;
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import com.deloitte.absolute_cinema.service.PdfGenerationService.DocumentType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.channels.FileChannel;
+
+/**
+ * Renders the e-ticket and receipt of a booking in the background as soon as it is confirmed, so
+ * the first download is served from the {@link PdfArtifactCache}. A download that arrives while
+ * the render is running waits for it; one that arrives before it starts renders synchronously.
+ * Exposes "pdf.prerender.queue" (queued bookings), "pdf.prerender" (time per booking) and
+ * "pdf.prerender.rejected" (bookings dropped because the queue was full).
+ */
+@Service
+@Slf4j
+public class TicketPrerenderService {
+
+    private final BookingRepository bookingRepository;
+    private final BookingDocumentService bookingDocumentService;
+    private final ThreadPoolTaskExecutor documentPrerenderExecutor;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Timer prerenderTimer;
+    private final Counter rejectedCounter;
+
+    public TicketPrerenderService(BookingRepository bookingRepository, BookingDocumentService bookingDocumentService,
+                                  ThreadPoolTaskExecutor documentPrerenderExecutor,
+                                  PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        this.bookingDocumentService = bookingDocumentService;
+        this.documentPrerenderExecutor = documentPrerenderExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.prerenderTimer = meterRegistry.timer("pdf.prerender");
+        this.rejectedCounter = meterRegistry.counter("pdf.prerender.rejected");
+        meterRegistry.gauge("pdf.prerender.queue", documentPrerenderExecutor,
+                executor -> executor.getThreadPoolExecutor().getQueue().size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent event) {
+        if (event.getCurrentStatus() != BookingStatus.CONFIRMED || bookingDocumentService.isStreaming()) {
+            return;
+        }
+        try {
+            documentPrerenderExecutor.execute(() -> prerender(event.getBookingId()));
+        } catch (TaskRejectedException e) {
+            // Queue is full; the first download will render synchronously instead
+            rejectedCounter.increment();
+        }
+    }
+
+    private void prerender(Long bookingId) {
+        prerenderTimer.record(() -> readOnlyTransaction.executeWithoutResult(status ->
+                bookingRepository.findById(bookingId).ifPresent(booking -> {
+                    for (DocumentType type : DocumentType.values()) {
+                        try (FileChannel ignored = bookingDocumentService.openDocument(booking, type)) {
+                            // Opening renders and stores the artifact if it is not cached yet
+                        } catch (Exception e) {
+                            log.warn("Pre-rendering {} for booking {} failed: {}",
+                                    type.getFileName(), bookingId, e.getMessage());
+                        }
+                    }
+                })));
+    }
+}
@@ -0,0 +1,143 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.event.ShowtimeChangedEvent;
+import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Showtimes that have not started yet, ordered by screening time in one skip list per cinema.
+ * A range or next-N query seeks into each requested cinema's list in O(log n) and merges them in
+ * time order until the limit is reached, so its cost does not grow with the number of future
+ * showtimes. Loaded on startup, updated by showtime writes, and showtimes that have started are
+ * trimmed from the head of each list every minute.
+ */
+@Component
+@Slf4j
+public class UpcomingShowtimeIndex {
+    private static final Comparator<Key> BY_TIME =
+            Comparator.comparing(Key::screeningTime).thenComparing(Key::showtimeId);
+
+    private final ShowtimeRepository showtimeRepository;
+
+    // Cinema id -> its upcoming showtimes by screening time
+    private final Map<Long, NavigableMap<Key, Entry>> byCinema = new ConcurrentHashMap<>();
+    // Showtime id -> where it is indexed, for moves and removals
+    private final Map<Long, Entry> byShowtime = new ConcurrentHashMap<>();
+
+    public UpcomingShowtimeIndex(ShowtimeRepository showtimeRepository) {
+        this.showtimeRepository = showtimeRepository;
+    }
+
+    private record Key(LocalDateTime screeningTime, Long showtimeId) {
+    }
+
+    public record Entry(Long showtimeId, Long movieId, Long cinemaId, int hall, LocalDateTime screeningTime) {
+        private Key key() {
+            return new Key(screeningTime, showtimeId);
+        }
+    }
+
+    /**
+     * Showtimes screening from {@code from} (inclusive) until {@code to} (exclusive, or unbounded
+     * if null) in the given cinemas, or in all of them if null, earliest first and at most
+     * {@code limit} of them.
+     */
+    public List<Entry> range(LocalDateTime from, LocalDateTime to, Collection<Long> cinemaIds, int limit) {
+        Key lower = new Key(from, Long.MIN_VALUE);
+        Key upper = to != null ? new Key(to, Long.MIN_VALUE) : null;
+        Collection<Long> cinemas = cinemaIds != null ? cinemaIds : byCinema.keySet();
+
+        // Heads of each cinema's range, merged by screening time
+        PriorityQueue<Map.Entry<Entry, Iterator<Entry>>> heads =
+                new PriorityQueue<>(Comparator.comparing(head -> head.getKey().key(), BY_TIME));
+        for (Long cinemaId : cinemas) {
+            NavigableMap<Key, Entry> showtimes = byCinema.get(cinemaId);
+            if (showtimes == null) {
+                continue;
+            }
+            Iterator<Entry> it = (upper != null ? showtimes.subMap(lower, true, upper, false) : showtimes.tailMap(lower, true))
+                    .values().iterator();
+            if (it.hasNext()) {
+                heads.add(Map.entry(it.next(), it));
+            }
+        }
+
+        List<Entry> result = new ArrayList<>(Math.min(limit, 64));
+        while (result.size() < limit && !heads.isEmpty()) {
+            Map.Entry<Entry, Iterator<Entry>> head = heads.poll();
+            result.add(head.getKey());
+            if (head.getValue().hasNext()) {
+                heads.add(Map.entry(head.getValue().next(), head.getValue()));
+            }
+        }
+        return result;
+    }
+
+    private void put(Entry entry) {
+        remove(entry.showtimeId());
+        if (entry.cinemaId() == null || entry.screeningTime() == null) {
+            return;
+        }
+        byShowtime.put(entry.showtimeId(), entry);
+        byCinema.computeIfAbsent(entry.cinemaId(), id -> new ConcurrentSkipListMap<>(BY_TIME)).put(entry.key(), entry);
+    }
+
+    private void remove(Long showtimeId) {
+        Entry previous = byShowtime.remove(showtimeId);
+        if (previous != null) {
+            NavigableMap<Key, Entry> showtimes = byCinema.get(previous.cinemaId());
+            if (showtimes != null) {
+                showtimes.remove(previous.key());
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onShowtimeChanged(ShowtimeChangedEvent event) {
+        if (event.isRemoved() || event.getScreeningTime() == null || !event.getScreeningTime().isAfter(LocalDateTime.now())) {
+            remove(event.getShowtimeId());
+        } else {
+            put(new Entry(event.getShowtimeId(), event.getMovieId(), event.getCinemaId(), event.getHall(),
+                    event.getScreeningTime()));
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Object[] row : showtimeRepository.findHallOccupancyFrom(LocalDateTime.now())) {
+            Long showtimeId = (Long) row[0];
+            if (!byShowtime.containsKey(showtimeId)) {
+                put(new Entry(showtimeId, (Long) row[4], (Long) row[1], (Integer) row[2], (LocalDateTime) row[3]));
+            }
+        }
+        log.info("Indexed {} upcoming showtimes in {} cinemas", byShowtime.size(), byCinema.size());
+    }
+
+    // Started showtimes sit at the head of each list
+    @Scheduled(fixedRate = 60000)
+    public void trimStarted() {
+        Key now = new Key(LocalDateTime.now(), Long.MIN_VALUE);
+        for (NavigableMap<Key, Entry> showtimes : byCinema.values()) {
+            NavigableMap<Key, Entry> started = showtimes.headMap(now, false);
+            started.values().forEach(entry -> byShowtime.remove(entry.showtimeId(), entry));
+            started.clear();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.deloitte.absolute_cinema.util;
+
+import com.deloitte.absolute_cinema.repository.MovieRepository;
+import com.deloitte.absolute_cinema.service.MovieService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Moves posters saved as inline data URLs before the poster store existed into the store.
+ * Runs at startup and finds nothing to do once every movie has been migrated.
+ */
+@Component
+@Slf4j
+public class PosterMigration implements ApplicationRunner {
+
+    private final MovieRepository movieRepository;
+    private final MovieService movieService;
+
+    public PosterMigration(MovieRepository movieRepository, MovieService movieService) {
+        this.movieRepository = movieRepository;
+        this.movieService = movieService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Long> movieIds = movieRepository.findIdsWithInlinePoster();
+        if (movieIds.isEmpty()) {
+            return;
+        }
+        int migrated = 0;
+        for (Long movieId : movieIds) {
+            try {
+                if (movieService.migrateInlinePoster(movieId)) {
+                    migrated++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not migrate the inline poster of movie {}: {}", movieId, e.getMessage());
+            }
+        }
+        log.info("Moved {} of {} inline posters to the poster store", migrated, movieIds.size());
+    }
+}
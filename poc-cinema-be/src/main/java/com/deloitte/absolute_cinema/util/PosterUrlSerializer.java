@@ -0,0 +1,26 @@
+package com.deloitte.absolute_cinema.util;
+
+import com.deloitte.absolute_cinema.service.PosterStore;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * Writes a movie's stored poster link as {@link PosterStore#publicUrl(String)} wherever the movie
+ * entity itself is serialized, e.g. inside showtimes and seats. Created by Spring's Jackson
+ * handler instantiator, which supplies the PosterStore.
+ */
+public class PosterUrlSerializer extends JsonSerializer<String> {
+    private final PosterStore posterStore;
+
+    public PosterUrlSerializer(PosterStore posterStore) {
+        this.posterStore = posterStore;
+    }
+
+    @Override
+    public void serialize(String posterUrl, JsonGenerator generator, SerializerProvider serializers) throws IOException {
+        generator.writeString(posterStore.publicUrl(posterUrl));
+    }
+}
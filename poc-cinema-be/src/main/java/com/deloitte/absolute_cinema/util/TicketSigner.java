@@ -0,0 +1,132 @@
+package com.deloitte.absolute_cinema.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Encodes gate tickets as compact HMAC-SHA256 signed tokens that can be verified without a
+ * database lookup. Layout before base64url encoding:
+ * version (1) | booking id (8) | showtime id (8) | valid from (4) | valid until (4) |
+ * seat count (1) | seat indexes (2 each) | truncated MAC (16).
+ * Times are epoch minutes.
+ */
+@Component
+public class TicketSigner {
+    private static final String PREFIX = "AC1.";
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = 1 + 8 + 8 + 4 + 4 + 1;
+    private static final int MAC_LENGTH = 16;
+    private static final int MAX_SEATS = 255;
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public TicketSigner(@Value("${gate.ticket.secret}") String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Ticket {
+        private final long bookingId;
+        private final long showtimeId;
+        private final int validFromMinute;
+        private final int validUntilMinute;
+        private final int[] seats;
+    }
+
+    public String sign(Ticket ticket) {
+        int[] seats = ticket.getSeats();
+        if (seats.length == 0 || seats.length > MAX_SEATS) {
+            throw new IllegalArgumentException("A ticket must hold between 1 and " + MAX_SEATS + " seats");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_LENGTH + seats.length * 2 + MAC_LENGTH);
+        buffer.put(VERSION)
+                .putLong(ticket.getBookingId())
+                .putLong(ticket.getShowtimeId())
+                .putInt(ticket.getValidFromMinute())
+                .putInt(ticket.getValidUntilMinute())
+                .put((byte) seats.length);
+        for (int seat : seats) {
+            if (seat < 0 || seat > 0xFFFF) {
+                throw new IllegalArgumentException("Seat index out of range: " + seat);
+            }
+            buffer.putShort((short) seat);
+        }
+        byte[] token = buffer.array();
+        int payloadLength = token.length - MAC_LENGTH;
+        System.arraycopy(mac(token, payloadLength), 0, token, payloadLength, MAC_LENGTH);
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    /**
+     * Returns the ticket if the token is well formed and carries a valid signature; the validity
+     * window is left for the caller to check.
+     */
+    public Optional<Ticket> verify(String token) {
+        if (token == null || !token.startsWith(PREFIX)) {
+            return Optional.empty();
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(token.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        int payloadLength = bytes.length - MAC_LENGTH;
+        if (payloadLength < HEADER_LENGTH || bytes[0] != VERSION) {
+            return Optional.empty();
+        }
+        byte[] expected = Arrays.copyOf(mac(bytes, payloadLength), MAC_LENGTH);
+        if (!MessageDigest.isEqual(expected, Arrays.copyOfRange(bytes, payloadLength, bytes.length))) {
+            return Optional.empty();
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, payloadLength - 1);
+            long bookingId = buffer.getLong();
+            long showtimeId = buffer.getLong();
+            int validFrom = buffer.getInt();
+            int validUntil = buffer.getInt();
+            int[] seats = new int[buffer.get() & 0xFF];
+            for (int i = 0; i < seats.length; i++) {
+                seats[i] = buffer.getShort() & 0xFFFF;
+            }
+            if (buffer.hasRemaining()) {
+                return Optional.empty();
+            }
+            return Optional.of(new Ticket(bookingId, showtimeId, validFrom, validUntil, seats));
+        } catch (BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] mac(byte[] data, int length) {
+        Mac mac = macs.get();
+        mac.update(data, 0, length);
+        return mac.doFinal();
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+-- Schema of the first release, as Hibernate created it with ddl-auto=update. Databases created that
+-- way are recorded at this version by SchemaMigrator without running it; the later scripts bring
+-- them up to date like any other.
+
+CREATE TABLE users (
+    id                  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    full_name           VARCHAR(255) NOT NULL,
+    email               VARCHAR(255) NOT NULL UNIQUE,
+    password            VARCHAR(255) NOT NULL,
+    username            VARCHAR(255) UNIQUE,
+    phone_number        VARCHAR(255),
+    profile_picture_url VARCHAR(255),
+    role                VARCHAR(255) CHECK (role IN ('ADMIN', 'CUSTOMER', 'STAFF')),
+    member_points       INTEGER,
+    is_active           BOOLEAN      NOT NULL,
+    is_verified         BOOLEAN      NOT NULL,
+    created_at          TIMESTAMP(6),
+    updated_at          TIMESTAMP(6),
+    last_login_at       TIMESTAMP(6)
+);
+
+CREATE TABLE guests (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email      VARCHAR(255) NOT NULL UNIQUE,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE login_tokens (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT NOT NULL UNIQUE,
+    token       VARCHAR(255),
+    expiry_time TIMESTAMP(6),
+    CONSTRAINT fk_login_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE otp_tokens (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT NOT NULL UNIQUE,
+    otp         VARCHAR(255),
+    expiry_time TIMESTAMP(6),
+    CONSTRAINT fk_otp_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE password_reset_tokens (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT NOT NULL UNIQUE,
+    otp         VARCHAR(255),
+    token       VARCHAR(255),
+    expiry_time TIMESTAMP(6),
+    CONSTRAINT fk_password_reset_tokens_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE movies (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title        VARCHAR(255),
+    genre        VARCHAR(255),
+    duration     INTEGER       NOT NULL,
+    language     VARCHAR(255),
+    rating       VARCHAR(255),
+    description  VARCHAR(255),
+    director     VARCHAR(255),
+    release_date DATE,
+    review       FLOAT(53)     NOT NULL,
+    price        NUMERIC(38, 2),
+    poster_url   TEXT,
+    trailer_url  VARCHAR(255),
+    created_at   TIMESTAMP(6)  NOT NULL
+);
+
+CREATE TABLE movie_reviews (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    movie_id     BIGINT       NOT NULL,
+    title        VARCHAR(255) NOT NULL,
+    review_json  TEXT,
+    last_updated TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE user_favourite_movies (
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id  BIGINT NOT NULL,
+    movie_id BIGINT NOT NULL,
+    CONSTRAINT fk_user_favourite_movies_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE cinemas (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name          VARCHAR(255),
+    location      VARCHAR(255),
+    total_screens INTEGER NOT NULL
+);
+
+CREATE TABLE showtimes (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    movie_id       BIGINT,
+    cinema_id      BIGINT,
+    screening_time TIMESTAMP(6),
+    hall           INTEGER NOT NULL,
+    total_seats    INTEGER NOT NULL,
+    CONSTRAINT fk_showtimes_movie FOREIGN KEY (movie_id) REFERENCES movies (id),
+    CONSTRAINT fk_showtimes_cinema FOREIGN KEY (cinema_id) REFERENCES cinemas (id)
+);
+
+CREATE TABLE seats (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    showtime_id BIGINT,
+    seat_number VARCHAR(255),
+    seat_type   VARCHAR(255) CHECK (seat_type IN ('STANDARD', 'VIP')),
+    status      VARCHAR(255) CHECK (status IN ('AVAILABLE', 'UNCONFIRMED', 'BOOKED')),
+    reserved_at TIMESTAMP(6),
+    CONSTRAINT fk_seats_showtime FOREIGN KEY (showtime_id) REFERENCES showtimes (id)
+);
+
+CREATE TABLE bookings (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT,
+    guest_id    BIGINT,
+    total_price NUMERIC(38, 2),
+    status      VARCHAR(255) CHECK (status IN ('PENDING', 'CONFIRMED', 'CANCELLED')),
+    created_at  TIMESTAMP(6),
+    CONSTRAINT fk_bookings_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_bookings_guest FOREIGN KEY (guest_id) REFERENCES guests (id)
+);
+
+CREATE TABLE booking_seats (
+    booking_seat_id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booking_id      BIGINT,
+    seat_id         BIGINT,
+    CONSTRAINT fk_booking_seats_booking FOREIGN KEY (booking_id) REFERENCES bookings (id),
+    CONSTRAINT fk_booking_seats_seat FOREIGN KEY (seat_id) REFERENCES seats (id)
+);
+
+CREATE TABLE payments (
+    id                       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booking_id               BIGINT,
+    amount                   NUMERIC(38, 2),
+    payment_method           VARCHAR(255) CHECK (payment_method IN ('CREDIT_CARD', 'DIGITAL_WALLET')),
+    status                   VARCHAR(255) CHECK (status IN ('SUCCESSFUL', 'PENDING', 'FAILED', 'REFUNDED')),
+    stripe_payment_intent_id VARCHAR(255),
+    created_at               TIMESTAMP(6),
+    CONSTRAINT fk_payments_booking FOREIGN KEY (booking_id) REFERENCES bookings (id)
+);
+
+CREATE TABLE notifications (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id           BIGINT,
+    guest_id          BIGINT,
+    message           VARCHAR(255),
+    notification_type VARCHAR(255) CHECK (notification_type IN ('BOOKING_CONFIRMATION', 'REMINDER')),
+    sent_at           TIMESTAMP(6),
+    CONSTRAINT fk_notifications_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_notifications_guest FOREIGN KEY (guest_id) REFERENCES guests (id)
+);
+
+CREATE TABLE hall_reservation (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    hall_name VARCHAR(255),
+    time      VARCHAR(255),
+    username  VARCHAR(255)
+);
@@ -0,0 +1,45 @@
+-- Columns and tables added since the first release. A database Hibernate kept updating while an
+-- intermediate build ran may already hold some of them, so each is added only where missing.
+
+-- Content-addressed posters
+ALTER TABLE movies ADD COLUMN IF NOT EXISTS poster_hash VARCHAR(64);
+ALTER TABLE movies ADD COLUMN IF NOT EXISTS poster_content_type VARCHAR(255);
+
+-- Conflict target of the review upsert; of reviews stored twice for a movie the latest is kept
+DELETE FROM movie_reviews WHERE id NOT IN (SELECT MAX(id) FROM movie_reviews GROUP BY movie_id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_movie_reviews_movie_id ON movie_reviews (movie_id);
+
+-- Partition key of seats and booking seats, backfilled by SeatPartitionMaintenance in batches
+ALTER TABLE seats ADD COLUMN IF NOT EXISTS screening_date DATE;
+ALTER TABLE booking_seats ADD COLUMN IF NOT EXISTS screening_date DATE;
+
+-- Bookings whose seats were archived
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS archived_showtime_id BIGINT
+    CONSTRAINT fk_bookings_archived_showtime REFERENCES showtimes (id);
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS archived_seat_numbers VARCHAR(2000);
+ALTER TABLE bookings ADD COLUMN IF NOT EXISTS seats_archived_at TIMESTAMP(6);
+
+CREATE TABLE IF NOT EXISTS archived_showtime_seats (
+    showtime_id  BIGINT       NOT NULL PRIMARY KEY,
+    total_seats  INTEGER      NOT NULL,
+    booked_seats INTEGER      NOT NULL,
+    archived_at  TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS movie_daily_booking_stats (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    movie_id        BIGINT NOT NULL,
+    stat_date       DATE   NOT NULL,
+    confirmed_seats BIGINT NOT NULL,
+    CONSTRAINT uk_movie_daily_booking_stats UNIQUE (movie_id, stat_date)
+);
+CREATE INDEX IF NOT EXISTS idx_movie_daily_booking_stats_date ON movie_daily_booking_stats (stat_date);
+
+CREATE TABLE IF NOT EXISTS gate_admissions (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    booking_id  BIGINT       NOT NULL,
+    showtime_id BIGINT       NOT NULL,
+    seat_index  INTEGER      NOT NULL,
+    admitted_at TIMESTAMP(6) NOT NULL
+);
+CREATE INDEX IF NOT EXISTS idx_gate_admissions_showtime ON gate_admissions (showtime_id);
@@ -0,0 +1,37 @@
+-- Secondary indexes for the repository queries on hot paths, named after what they serve.
+
+-- Seat map and per-showtime counts (showtime_id, status); expired-hold sweep (status, reserved_at);
+-- counts of upcoming showtimes, covering (screening_date, showtime_id, status)
+CREATE INDEX IF NOT EXISTS idx_seats_showtime_status ON seats (showtime_id, status);
+CREATE INDEX IF NOT EXISTS idx_seats_status_reserved_at ON seats (status, reserved_at);
+CREATE INDEX IF NOT EXISTS idx_seats_screening_date ON seats (screening_date, showtime_id, status);
+
+-- Seats of a booking, and bookings of a seat for the showtime-side joins and seat archival
+CREATE INDEX IF NOT EXISTS idx_booking_seats_booking ON booking_seats (booking_id);
+CREATE INDEX IF NOT EXISTS idx_booking_seats_seat ON booking_seats (seat_id);
+
+-- A user's bookings; pending bookings and confirmed bookings created since a time; archived bookings of a showtime
+CREATE INDEX IF NOT EXISTS idx_bookings_user ON bookings (user_id);
+CREATE INDEX IF NOT EXISTS idx_bookings_status_created_at ON bookings (status, created_at);
+CREATE INDEX IF NOT EXISTS idx_bookings_archived_showtime ON bookings (archived_showtime_id);
+
+-- Schedules by time, by movie and by cinema
+CREATE INDEX IF NOT EXISTS idx_showtimes_screening_time ON showtimes (screening_time);
+CREATE INDEX IF NOT EXISTS idx_showtimes_movie_screening_time ON showtimes (movie_id, screening_time);
+CREATE INDEX IF NOT EXISTS idx_showtimes_cinema_screening_time ON showtimes (cinema_id, screening_time);
+
+-- Lookups by name
+CREATE INDEX IF NOT EXISTS idx_movies_title ON movies (title);
+CREATE INDEX IF NOT EXISTS idx_cinemas_name ON cinemas (name);
+CREATE INDEX IF NOT EXISTS idx_movie_reviews_title ON movie_reviews (title, last_updated);
+CREATE INDEX IF NOT EXISTS idx_users_phone_number ON users (phone_number);
+
+-- Token authentication on every request, and password reset links
+CREATE INDEX IF NOT EXISTS idx_login_tokens_token ON login_tokens (token);
+CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_token ON password_reset_tokens (token);
+
+-- Payment of a booking, and the sweep of stale pending payments
+CREATE INDEX IF NOT EXISTS idx_payments_booking ON payments (booking_id);
+CREATE INDEX IF NOT EXISTS idx_payments_status_created_at ON payments (status, created_at);
+
+CREATE INDEX IF NOT EXISTS idx_user_favourite_movies_user ON user_favourite_movies (user_id);
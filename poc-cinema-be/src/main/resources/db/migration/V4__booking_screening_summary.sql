@@ -0,0 +1,15 @@
+-- Bookings whose seats are archived or whose showtime was removed keep what they were for, so
+-- history, receipts and e-tickets no longer need the showtime row.
+ALTER TABLE bookings ADD COLUMN archived_screening_time TIMESTAMP(6);
+ALTER TABLE bookings ADD COLUMN archived_hall INTEGER;
+ALTER TABLE bookings ADD COLUMN archived_movie_title VARCHAR(255);
+ALTER TABLE bookings ADD COLUMN archived_cinema_name VARCHAR(255);
+
+UPDATE bookings
+SET archived_screening_time = (SELECT st.screening_time FROM showtimes st WHERE st.id = bookings.archived_showtime_id),
+    archived_hall           = (SELECT st.hall FROM showtimes st WHERE st.id = bookings.archived_showtime_id),
+    archived_movie_title    = (SELECT m.title FROM showtimes st JOIN movies m ON m.id = st.movie_id
+                               WHERE st.id = bookings.archived_showtime_id),
+    archived_cinema_name    = (SELECT c.name FROM showtimes st JOIN cinemas c ON c.id = st.cinema_id
+                               WHERE st.id = bookings.archived_showtime_id)
+WHERE archived_showtime_id IS NOT NULL;
@@ -0,0 +1,3 @@
+-- Stored posters were linked with poster.public-base-url baked in; keep the path only, so the base
+-- is applied when the link is served.
+UPDATE movies SET poster_url = CONCAT('/api/movies/', id, '/poster?v=', poster_hash) WHERE poster_hash IS NOT NULL;
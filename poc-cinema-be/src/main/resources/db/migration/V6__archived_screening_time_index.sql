@@ -0,0 +1,2 @@
+-- Gate revocations of archived bookings screening from a time (BookingRepository.findUnconfirmedArchivedBookingsScreeningFrom)
+CREATE INDEX IF NOT EXISTS idx_bookings_archived_screening_time ON bookings (archived_screening_time);
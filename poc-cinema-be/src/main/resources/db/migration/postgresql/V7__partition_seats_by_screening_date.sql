@@ -0,0 +1,119 @@
+-- Converts "seats" and "booking_seats" into tables range-partitioned by screening date, one
+-- partition per month plus a default one. PostgreSQL 15 or later, which can move a row between
+-- partitions while cascading to the rows that reference it. SeatPartitionMaintenance then keeps
+-- creating future partitions and drops the ones the seat archive has emptied.
+--
+-- Runs in the migration's single transaction and holds both tables exclusively until it commits.
+-- The rows are copied before any key, constraint or index exists on the new tables, which are
+-- then built in one pass each.
+--
+-- The primary keys become (id, screening_date), as PostgreSQL requires the partition key in
+-- every unique constraint, and booking_seats references seats through both columns.
+
+SET LOCAL maintenance_work_mem = '512MB';
+
+-- Rows written before the columns existed and not yet backfilled
+UPDATE seats s SET screening_date = CAST(st.screening_time AS DATE)
+FROM showtimes st WHERE st.id = s.showtime_id AND s.screening_date IS NULL;
+UPDATE booking_seats bs SET screening_date = s.screening_date
+FROM seats s WHERE s.id = bs.seat_id AND bs.screening_date IS NULL;
+
+-- A row without a screening date has no partition. Those are seats without a showtime or of a
+-- showtime without a screening time, and their booking seats; fix or delete them and restart.
+DO $$
+DECLARE
+    seats_without_date         BIGINT;
+    booking_seats_without_date BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO seats_without_date FROM seats WHERE screening_date IS NULL;
+    SELECT COUNT(*) INTO booking_seats_without_date FROM booking_seats WHERE screening_date IS NULL;
+    IF seats_without_date > 0 OR booking_seats_without_date > 0 THEN
+        RAISE EXCEPTION 'Cannot partition by screening date: % seats and % booking seats have none',
+            seats_without_date, booking_seats_without_date;
+    END IF;
+END $$;
+
+ALTER TABLE booking_seats RENAME TO booking_seats_unpartitioned;
+ALTER TABLE seats RENAME TO seats_unpartitioned;
+-- Frees the names for the new tables' identity sequences
+ALTER SEQUENCE booking_seats_booking_seat_id_seq RENAME TO booking_seats_unpartitioned_booking_seat_id_seq;
+ALTER SEQUENCE seats_id_seq RENAME TO seats_unpartitioned_id_seq;
+
+CREATE TABLE seats (
+    id             BIGINT       GENERATED BY DEFAULT AS IDENTITY,
+    showtime_id    BIGINT,
+    seat_number    VARCHAR(255),
+    seat_type      VARCHAR(255) CHECK (seat_type IN ('STANDARD', 'VIP')),
+    status         VARCHAR(255) CHECK (status IN ('AVAILABLE', 'UNCONFIRMED', 'BOOKED')),
+    reserved_at    TIMESTAMP(6),
+    screening_date DATE         NOT NULL
+) PARTITION BY RANGE (screening_date);
+
+CREATE TABLE booking_seats (
+    booking_seat_id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    booking_id      BIGINT,
+    seat_id         BIGINT,
+    screening_date  DATE   NOT NULL
+) PARTITION BY RANGE (screening_date);
+
+-- Every month from the oldest seat through twelve months ahead
+DO $$
+DECLARE
+    month DATE;
+BEGIN
+    FOR month IN
+        SELECT generate_series(
+                       date_trunc('month', COALESCE((SELECT MIN(screening_date) FROM seats_unpartitioned), CURRENT_DATE)),
+                       date_trunc('month', GREATEST(CURRENT_DATE, COALESCE((SELECT MAX(screening_date) FROM seats_unpartitioned), CURRENT_DATE)))
+                           + INTERVAL '12 months',
+                       INTERVAL '1 month')::DATE
+    LOOP
+        EXECUTE format('CREATE TABLE seats_p%s PARTITION OF seats FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYY_MM'), month, (month + INTERVAL '1 month')::DATE);
+        EXECUTE format('CREATE TABLE booking_seats_p%s PARTITION OF booking_seats FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month, 'YYYY_MM'), month, (month + INTERVAL '1 month')::DATE);
+    END LOOP;
+END $$;
+CREATE TABLE seats_default PARTITION OF seats DEFAULT;
+CREATE TABLE booking_seats_default PARTITION OF booking_seats DEFAULT;
+
+INSERT INTO seats (id, showtime_id, seat_number, seat_type, status, reserved_at, screening_date)
+SELECT id, showtime_id, seat_number, seat_type, status, reserved_at, screening_date
+FROM seats_unpartitioned;
+INSERT INTO booking_seats (booking_seat_id, booking_id, seat_id, screening_date)
+SELECT booking_seat_id, booking_id, seat_id, screening_date
+FROM booking_seats_unpartitioned;
+
+SELECT setval(pg_get_serial_sequence('seats', 'id'),
+              COALESCE((SELECT MAX(id) FROM seats), 0) + 1, false);
+SELECT setval(pg_get_serial_sequence('booking_seats', 'booking_seat_id'),
+              COALESCE((SELECT MAX(booking_seat_id) FROM booking_seats), 0) + 1, false);
+
+-- Their keys and indexes hold the names the new tables take
+DROP TABLE booking_seats_unpartitioned;
+DROP TABLE seats_unpartitioned;
+
+ALTER TABLE seats ADD CONSTRAINT seats_pkey PRIMARY KEY (id, screening_date);
+ALTER TABLE booking_seats ADD CONSTRAINT booking_seats_pkey PRIMARY KEY (booking_seat_id, screening_date);
+ALTER TABLE seats ADD CONSTRAINT fk_seats_showtime FOREIGN KEY (showtime_id) REFERENCES showtimes (id);
+ALTER TABLE booking_seats ADD CONSTRAINT fk_booking_seats_booking FOREIGN KEY (booking_id) REFERENCES bookings (id);
+-- Follows the seat when a rescheduled showtime moves it to another partition
+ALTER TABLE booking_seats ADD CONSTRAINT fk_booking_seats_seat FOREIGN KEY (seat_id, screening_date)
+    REFERENCES seats (id, screening_date) ON UPDATE CASCADE;
+
+-- The V3 indexes, created on the parent so every partition gets its own local index
+CREATE INDEX idx_seats_showtime_status ON seats (showtime_id, status);
+CREATE INDEX idx_seats_status_reserved_at ON seats (status, reserved_at);
+CREATE INDEX idx_seats_screening_date ON seats (screening_date, showtime_id, status);
+CREATE INDEX idx_booking_seats_booking ON booking_seats (booking_id);
+CREATE INDEX idx_booking_seats_seat ON booking_seats (seat_id);
+
+-- Statistics for the copied rows before autovacuum gets to them; empty new tables are left alone,
+-- as the planner's guess for tables never analyzed suits them better than "no rows"
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM seats) THEN
+        ANALYZE seats;
+        ANALYZE booking_seats;
+    END IF;
+END $$;
@@ -0,0 +1,113 @@
+package com.deloitte.absolute_cinema.config;
+
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import com.deloitte.absolute_cinema.repository.MovieReviewRepository;
+import com.deloitte.absolute_cinema.repository.SeatRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts from a database as the first release left it: tables Hibernate created, rows in them and
+ * no schema history. SchemaMigrator must record it at V1, bring it up to the schema the entities
+ * are validated against ({@code ddl-auto=validate}) and keep its rows.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:baseline;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(SchemaMigratorTest.BaselineConfig.class)
+class SchemaMigratorTest {
+    private static final String[] BASELINE_DATA = {
+            "INSERT INTO movies (id, title, duration, review, created_at) VALUES (1, 'Heat', 170, 8.3, TIMESTAMP '2025-01-01 00:00:00')",
+            "INSERT INTO cinemas (id, name, total_screens) VALUES (1, 'Central', 4)",
+            "INSERT INTO showtimes (id, movie_id, cinema_id, screening_time, hall, total_seats) " +
+                    "VALUES (1, 1, 1, TIMESTAMP '2025-02-01 20:00:00', 1, 1)",
+            "INSERT INTO seats (id, showtime_id, seat_number, seat_type, status) VALUES (1, 1, 'A1', 'STANDARD', 'BOOKED')",
+            "INSERT INTO guests (id, email, created_at) VALUES (1, 'guest@example.com', TIMESTAMP '2025-01-15 00:00:00')",
+            "INSERT INTO bookings (id, guest_id, total_price, status, created_at) " +
+                    "VALUES (1, 1, 12.50, 'CONFIRMED', TIMESTAMP '2025-01-15 00:00:00')",
+            "INSERT INTO booking_seats (booking_seat_id, booking_id, seat_id) VALUES (1, 1, 1)",
+            // The first release could store a movie's review twice
+            "INSERT INTO movie_reviews (id, movie_id, title, review_json, last_updated) " +
+                    "VALUES (1, 1, 'Heat', '{\"v\":1}', TIMESTAMP '2025-01-01 00:00:00')",
+            "INSERT INTO movie_reviews (id, movie_id, title, review_json, last_updated) " +
+                    "VALUES (2, 1, 'Heat', '{\"v\":2}', TIMESTAMP '2025-01-02 00:00:00')"
+    };
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private SeatRepository seatRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private MovieReviewRepository movieReviewRepository;
+
+    @TestConfiguration
+    @Import(SchemaMigrator.class)
+    static class BaselineConfig {
+        // As in AppConfig: ddl-auto=validate needs the migrated schema
+        @Bean
+        static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+            return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class);
+        }
+
+        // Creates the first release's tables and rows before SchemaMigrator gets the data source
+        @Bean
+        static BeanPostProcessor baselineDatabasePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof DataSource dataSource) {
+                        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline_schema.sql"))
+                                .execute(dataSource);
+                        new JdbcTemplate(dataSource).batchUpdate(BASELINE_DATA);
+                    }
+                    return bean;
+                }
+            };
+        }
+    }
+
+    @Test
+    void recordsTheBaselineAndAppliesEveryLaterScript() {
+        assertThat(jdbcTemplate.queryForList("SELECT version FROM schema_history ORDER BY version", Integer.class))
+                .containsExactly(1, 2, 3, 4, 5, 6);
+    }
+
+    @Test
+    void keepsTheBaselineRows() {
+        assertThat(seatRepository.findAll()).singleElement()
+                .satisfies(seat -> assertThat(seat.getScreeningDate()).isNull());
+        assertThat(bookingRepository.findAll()).singleElement()
+                .satisfies(booking -> assertThat(booking.getArchivedSeats()).isNull());
+    }
+
+    @Test
+    void keepsTheLatestOfDuplicateReviews() {
+        assertThat(movieReviewRepository.findAll()).singleElement()
+                .satisfies(review -> assertThat(review.getReviewJson()).isEqualTo("{\"v\":2}"));
+    }
+}
@@ -0,0 +1,340 @@
+package com.deloitte.absolute_cinema.repository;
+
+import com.deloitte.absolute_cinema.config.SchemaMigrator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.Entity;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs every query method declared on the repositories against a schema built by SchemaMigrator,
+ * captures the SQL Hibernate sends and fails if its plan reads a whole table. Methods that read
+ * whole tables by design are listed in {@link #FULL_READS} with the reason.
+ * <p>
+ * Runs on in-memory H2 in PostgreSQL mode, checked with {@code ddl-auto=validate}. To check the
+ * plans on PostgreSQL, where sequential scans are disabled so the planner uses any index that
+ * applies to the still empty tables, run with
+ * {@code -Dplan.datasource.url=jdbc:postgresql://host:port/db -Dplan.datasource.username=...
+ * -Dplan.datasource.password=... -Dplan.database-platform=org.hibernate.dialect.PostgreSQLDialect}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=${plan.datasource.url:jdbc:h2:mem:plans;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH}",
+        "spring.datasource.username=${plan.datasource.username:sa}",
+        "spring.datasource.password=${plan.datasource.password:}",
+        // Derived from the URL
+        "spring.datasource.driver-class-name=",
+        "spring.jpa.database-platform=${plan.database-platform:org.hibernate.dialect.H2Dialect}",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RepositoryQueryPlanTest.PlanConfig.class)
+class RepositoryQueryPlanTest {
+    private static final Map<String, String> FULL_READS = Map.ofEntries(
+            Map.entry("BookingRepository.findConfirmedBookingCountsByUserAndMovie",
+                    "rebuilds the recommendation matrix from every booking"),
+            Map.entry("BookingRepository.findArchivedConfirmedBookingCountsByUserAndMovie",
+                    "rebuilds the recommendation matrix from every archived booking"),
+            Map.entry("UserFavouriteMovieRepository.findAllUserMovieIds",
+                    "rebuilds the recommendation matrix from every favourite"),
+            Map.entry("MovieRepository.findDistinctGenres", "facet values of the whole catalog"),
+            Map.entry("MovieRepository.findDistinctLanguages", "facet values of the whole catalog"),
+            Map.entry("MovieRepository.findByGenreContainingIgnoreCase", "substring match, no index applies"),
+            Map.entry("MovieRepository.findByLanguageContainingIgnoreCase", "substring match, no index applies"),
+            Map.entry("MovieRepository.findByReviewBetween", "range over the whole catalog"),
+            Map.entry("MovieRepository.findIdsWithInlinePoster", "one-off poster migration at startup"),
+            Map.entry("MovieReviewRepository.findMoviesWithMissingOrStaleReview",
+                    "review prefetch walks the whole catalog"));
+
+    // H2 comments each table access with the index it uses and the lookup condition, "<table>.tableScan" for none
+    private static final Pattern H2_FULL_SCAN = Pattern.compile("/\\* [\\w.]+ \\*/");
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @TestConfiguration
+    @Import(SchemaMigrator.class)
+    static class PlanConfig {
+        // As in AppConfig: ddl-auto=validate needs the migrated schema
+        @Bean
+        static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+            return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class);
+        }
+
+        @Bean
+        static BeanPostProcessor recordingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof RecordingDataSource)
+                            ? new RecordingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    // An executed statement with the parameter setters that were called on it, to replay under EXPLAIN
+    private record RecordedStatement(String sql, List<Setter> setters) {
+    }
+
+    private record Setter(Method method, Object[] args) {
+    }
+
+    /**
+     * Records the SQL and parameters of every prepared statement executed through its connections.
+     */
+    static class RecordingDataSource extends DelegatingDataSource {
+        private final List<RecordedStatement> statements = new CopyOnWriteArrayList<>();
+
+        RecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return recording(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return recording(super.getConnection(username, password));
+        }
+
+        List<RecordedStatement> drain() {
+            List<RecordedStatement> drained = new ArrayList<>(statements);
+            statements.clear();
+            return drained;
+        }
+
+        private Connection recording(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) ->
+                    method.getName().equals("prepareStatement") && result instanceof PreparedStatement statement
+                            ? recording(statement, (String) args[0]) : result);
+        }
+
+        private PreparedStatement recording(PreparedStatement statement, String sql) {
+            List<Setter> setters = new ArrayList<>();
+            return proxy(PreparedStatement.class, statement, (method, args, result) -> {
+                String name = method.getName();
+                if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                    setters.add(new Setter(method, args));
+                } else if (name.equals("addBatch") || (name.startsWith("execute") && (args == null || args.length == 0))) {
+                    statements.add(new RecordedStatement(sql, List.copyOf(setters)));
+                }
+                return result;
+            });
+        }
+
+        private interface AfterCall {
+            Object apply(Method method, Object[] args, Object result);
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, AfterCall afterCall) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                try {
+                    return afterCall.apply(method, args, method.invoke(target, args));
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            };
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+
+    @Test
+    void repositoryQueriesUseIndexes() throws Exception {
+        RecordingDataSource recorder = (RecordingDataSource) dataSource;
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        boolean postgres = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT)
+                .contains("postgres");
+        if (postgres) {
+            // The tables are empty; without these the planner hashes whole tables it thinks are tiny
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET enable_seqscan = off");
+                statement.execute("SET enable_hashjoin = off");
+                statement.execute("SET enable_mergejoin = off");
+            }
+        }
+
+        Repositories repositories = new Repositories(applicationContext);
+        Set<String> checked = new TreeSet<>();
+        List<String> fullScans = new ArrayList<>();
+        for (Class<?> domainType : repositories) {
+            Class<?> repositoryInterface = repositories.getRequiredRepositoryInformation(domainType)
+                    .getRepositoryInterface();
+            Object repository = repositories.getRepositoryFor(domainType).orElseThrow();
+            for (Method method : repositories.getRequiredRepositoryInformation(domainType).getQueryMethods()) {
+                String name = repositoryInterface.getSimpleName() + "." + method.getName();
+                checked.add(name);
+                if (isInsert(method)) {
+                    continue;
+                }
+                recorder.drain();
+                method.invoke(repository, arguments(method));
+                List<RecordedStatement> statements = recorder.drain();
+                assertThat(statements).as("SQL executed by %s", name).isNotEmpty();
+                for (RecordedStatement statement : statements) {
+                    if (!isPlanned(statement.sql())) {
+                        continue;
+                    }
+                    if (isFullScan(connection, statement, postgres) && !FULL_READS.containsKey(name)) {
+                        String plan = explain(connection, statement, "EXPLAIN ");
+                        fullScans.add(name + "\n  " + statement.sql() + "\n  " + plan.replace("\n", "\n  "));
+                    }
+                }
+                recorder.drain();
+            }
+        }
+
+        assertThat(checked).as("methods listed in FULL_READS").containsAll(FULL_READS.keySet());
+        assertThat(fullScans).as("repository queries that read a whole table").isEmpty();
+    }
+
+    // Native inserts read no table; the review upsert is also PostgreSQL only
+    private static boolean isInsert(Method method) {
+        Query query = method.getAnnotation(Query.class);
+        return query != null && query.value().stripLeading().toLowerCase(Locale.ROOT).startsWith("insert");
+    }
+
+    private static boolean isPlanned(String sql) {
+        String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return statement.startsWith("select") || statement.startsWith("with")
+                || statement.startsWith("update") || statement.startsWith("delete");
+    }
+
+    private static String explain(Connection connection, RecordedStatement statement, String explainPrefix)
+            throws Exception {
+        try (PreparedStatement explain = connection.prepareStatement(explainPrefix + statement.sql())) {
+            for (Setter setter : statement.setters()) {
+                setter.method().invoke(explain, setter.args());
+            }
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rs = explain.executeQuery()) {
+                while (rs.next()) {
+                    plan.append(rs.getString(1)).append('\n');
+                }
+            }
+            return plan.toString().strip();
+        }
+    }
+
+    private static boolean isFullScan(Connection connection, RecordedStatement statement, boolean postgres)
+            throws Exception {
+        return postgres
+                ? hasFullScan(JSON.readTree(explain(connection, statement, "EXPLAIN (FORMAT JSON) ")).get(0).get("Plan"))
+                : H2_FULL_SCAN.matcher(explain(connection, statement, "EXPLAIN ")).find();
+    }
+
+    /*
+     * With seqscan disabled PostgreSQL reads a whole table through any index instead, so an index
+     * scan that filters rows without an index condition counts too. A join may still start from all
+     * rows of a table the query does not filter, which the empty tables make look cheapest.
+     */
+    private static boolean hasFullScan(JsonNode node) {
+        String type = node.path("Node Type").asText();
+        if (type.equals("Seq Scan") || (type.endsWith("Scan") && node.has("Filter")
+                && !node.has("Index Cond") && !node.has("Recheck Cond"))) {
+            return true;
+        }
+        for (JsonNode child : node.path("Plans")) {
+            if (hasFullScan(child)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object[] arguments(Method method) {
+        Parameter[] parameters = method.getParameters();
+        Object[] arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            arguments[i] = argument(parameters[i].getType(),
+                    ResolvableType.forMethodParameter(method, i).asCollection().resolveGeneric(0));
+        }
+        return arguments;
+    }
+
+    private static Object argument(Class<?> type, Class<?> elementType) {
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == Double.class || type == double.class) {
+            return 1.0;
+        }
+        if (type == String.class) {
+            return "x";
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == LocalDate.class) {
+            return LocalDate.now();
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        if (Pageable.class.isAssignableFrom(type)) {
+            return PageRequest.of(0, 10);
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            return List.of(argument(elementType, null), argument(elementType, null));
+        }
+        if (type.isAnnotationPresent(Entity.class)) {
+            // Only its id is bound
+            Object entity = BeanUtils.instantiateClass(type);
+            ReflectionTestUtils.setField(entity, "id", 1L);
+            return entity;
+        }
+        throw new IllegalStateException("No test argument for parameters of type " + type.getName());
+    }
+}
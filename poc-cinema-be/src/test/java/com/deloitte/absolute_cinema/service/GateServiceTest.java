@@ -0,0 +1,72 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.GateValidationDTO.Result;
+import com.deloitte.absolute_cinema.repository.BookingRepository;
+import com.deloitte.absolute_cinema.repository.GateAdmissionRepository;
+import com.deloitte.absolute_cinema.util.TicketSigner;
+import com.deloitte.absolute_cinema.util.TicketSigner.Ticket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * TicketSigner leaves the validity window to the gate, so expiry is checked here: a ticket is
+ * admitted from its first minute through its last one, inclusive.
+ */
+class GateServiceTest {
+    private final TicketSigner signer = new TicketSigner("gate-secret");
+    private final GateService gateService = new GateService(signer, mock(BookingRepository.class),
+            mock(GateAdmissionRepository.class), mock(JdbcTemplate.class), new SimpleMeterRegistry(), 120, 500);
+
+    private static int nowMinute() {
+        return (int) (Instant.now().getEpochSecond() / 60);
+    }
+
+    private Result scan(long bookingId, int validFrom, int validUntil) {
+        return gateService.validate(signer.sign(new Ticket(bookingId, 7L, validFrom, validUntil, new int[]{1, 2})))
+                .getResult();
+    }
+
+    @Test
+    void ticketInsideItsWindowIsAdmittedOnce() {
+        int now = nowMinute();
+
+        assertThat(scan(1L, now - 5, now + 5)).isEqualTo(Result.ADMITTED);
+        assertThat(scan(1L, now - 5, now + 5)).isEqualTo(Result.ALREADY_ADMITTED);
+    }
+
+    @Test
+    void ticketBeforeItsWindowIsNotYetValid() {
+        int now = nowMinute();
+
+        assertThat(scan(1L, now + 5, now + 200)).isEqualTo(Result.NOT_YET_VALID);
+    }
+
+    @Test
+    void ticketPastItsWindowHasExpired() {
+        int now = nowMinute();
+
+        assertThat(scan(1L, now - 200, now - 5)).isEqualTo(Result.EXPIRED);
+        // Expired scans admit nothing
+        assertThat(scan(1L, now - 5, now + 5)).isEqualTo(Result.ADMITTED);
+    }
+
+    @Test
+    void tamperedTicketIsInvalid() {
+        int now = nowMinute();
+        String payload = signer.sign(new Ticket(1L, 7L, now - 5, now + 5, new int[]{1}));
+        // One character of the encoded ids changed
+        String tampered = payload.substring(0, 15) + (payload.charAt(15) == 'A' ? 'B' : 'A') + payload.substring(16);
+        String otherSecret = new TicketSigner("other-secret").sign(new Ticket(1L, 7L, now - 5, now + 5, new int[]{1}));
+
+        assertThat(gateService.validate(tampered).getResult())
+                .isEqualTo(Result.INVALID);
+        assertThat(gateService.validate(otherSecret).getResult()).isEqualTo(Result.INVALID);
+        assertThat(gateService.validate(null).getResult()).isEqualTo(Result.INVALID);
+    }
+}
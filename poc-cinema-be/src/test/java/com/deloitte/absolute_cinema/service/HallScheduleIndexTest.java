@@ -0,0 +1,148 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.FreeSlotDTO;
+import com.deloitte.absolute_cinema.entity.Cinema;
+import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.entity.Showtime;
+import com.deloitte.absolute_cinema.exception.ShowtimeConflictException;
+import com.deloitte.absolute_cinema.repository.ShowtimeRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Slots in hall 1 of cinema 1 with 20 minutes of cleaning, so a 90 minute movie at 18:00
+ * occupies [18:00, 19:50).
+ */
+class HallScheduleIndexTest {
+    private static final Long CINEMA_ID = 1L;
+    private static final Long MOVIE_ID = 5L;
+    private static final LocalDate DAY = LocalDate.now().plusDays(7);
+    private static final LocalDateTime SIX_PM = DAY.atTime(18, 0);
+
+    private final HallScheduleIndex index = new HallScheduleIndex(mock(ShowtimeRepository.class), 20, 9, 24);
+
+    private long reserve(LocalDateTime start, int durationMinutes) {
+        return index.reserve(CINEMA_ID, 1, start, MOVIE_ID, durationMinutes);
+    }
+
+    private static Showtime showtime(Long id, LocalDateTime start, int durationMinutes) {
+        return Showtime.builder()
+                .id(id)
+                .cinema(Cinema.builder().id(CINEMA_ID).build())
+                .movie(Movie.builder().id(MOVIE_ID).duration(durationMinutes).build())
+                .hall(1)
+                .screeningTime(start)
+                .build();
+    }
+
+    private static Showtime saved(Showtime showtime, Long id) {
+        showtime.setId(id);
+        return showtime;
+    }
+
+    @Test
+    void reservationHoldsTheSlotUntilConfirmedOrReleased() {
+        long reservation = reserve(SIX_PM, 90);
+        assertThat(reservation).isNegative();
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusMinutes(30), 60, null)).containsExactly(reservation);
+        assertThatThrownBy(() -> reserve(SIX_PM.plusMinutes(30), 60))
+                .isInstanceOf(ShowtimeConflictException.class)
+                .hasMessageContaining("a pending showtime");
+
+        index.confirm(reservation, 10L);
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusMinutes(30), 60, null)).containsExactly(10L);
+        assertThatThrownBy(() -> reserve(SIX_PM.plusMinutes(30), 60))
+                .isInstanceOf(ShowtimeConflictException.class)
+                .hasMessageContaining("showtime 10");
+
+        index.release(10L);
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusMinutes(30), 60, null)).isEmpty();
+    }
+
+    @Test
+    void releasedReservationFreesTheSlot() {
+        long reservation = reserve(SIX_PM, 90);
+
+        index.release(reservation);
+
+        assertThat(reserve(SIX_PM, 90)).isNotEqualTo(reservation);
+    }
+
+    @Test
+    void slotsThatOnlyTouchDoNotConflict() {
+        index.confirm(reserve(SIX_PM, 90), 10L);
+
+        // Starting the minute the previous one ends, cleaning included
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusMinutes(110), 60, null)).isEmpty();
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusMinutes(109), 60, null)).containsExactly(10L);
+        // Ending, cleaning included, the minute the next one starts
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.minusMinutes(110), 90, null)).isEmpty();
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.minusMinutes(109), 90, null)).containsExactly(10L);
+
+        index.confirm(reserve(SIX_PM.plusMinutes(110), 60), 11L);
+        index.confirm(reserve(SIX_PM.minusMinutes(110), 90), 12L);
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM, 90, null)).containsExactly(10L);
+    }
+
+    @Test
+    void otherHallsAndCinemasAreIndependent() {
+        index.confirm(reserve(SIX_PM, 90), 10L);
+
+        assertThat(index.conflicts(CINEMA_ID, 2, SIX_PM, 90, null)).isEmpty();
+        assertThat(index.conflicts(2L, 1, SIX_PM, 90, null)).isEmpty();
+    }
+
+    @Test
+    void showtimeStartingLongBeforeTheSlotIsStillFound() {
+        // [12:00, 17:20) and [17:30, 18:00)
+        index.confirm(reserve(DAY.atTime(12, 0), 300), 11L);
+        index.confirm(reserve(DAY.atTime(17, 30), 10), 12L);
+
+        assertThat(index.conflicts(CINEMA_ID, 1, DAY.atTime(14, 0), 5, null)).containsExactly(11L);
+        assertThat(index.conflicts(CINEMA_ID, 1, DAY.atTime(17, 0), 5, null)).containsExactly(11L);
+        assertThat(index.conflicts(CINEMA_ID, 1, DAY.atTime(17, 0), 20, null)).containsExactly(11L, 12L);
+    }
+
+    @Test
+    void scheduleConfirmsTheSavedIdAndReleasesTheSlotWhenSavingFails() {
+        Showtime scheduled = index.schedule(showtime(null, SIX_PM, 90), showtime -> saved(showtime, 10L));
+        assertThat(scheduled.getId()).isEqualTo(10L);
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM, 90, null)).containsExactly(10L);
+
+        assertThatThrownBy(() -> index.schedule(showtime(null, SIX_PM.plusHours(3), 90), showtime -> {
+            throw new IllegalStateException("save failed");
+        })).isInstanceOf(IllegalStateException.class);
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusHours(3), 90, null)).isEmpty();
+    }
+
+    @Test
+    void rescheduledShowtimeDoesNotConflictWithItsOwnSlot() {
+        index.schedule(showtime(null, SIX_PM, 90), showtime -> saved(showtime, 10L));
+
+        index.schedule(showtime(10L, SIX_PM.plusMinutes(30), 90), showtime -> showtime);
+
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM, 5, null)).isEmpty();
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusMinutes(30), 90, null)).containsExactly(10L);
+        assertThat(index.conflicts(CINEMA_ID, 1, SIX_PM.plusMinutes(30), 90, 10L)).isEmpty();
+    }
+
+    @Test
+    void freeSlotsAreTheGapsLongEnoughForTheMovie() {
+        index.confirm(reserve(SIX_PM, 90), 10L);
+        index.confirm(reserve(DAY.atTime(20, 30), 30), 11L);
+
+        // 19:50 to 20:30 is too short for 90 minutes and cleaning
+        assertThat(index.freeSlots(CINEMA_ID, 1, DAY, 90))
+                .extracting(FreeSlotDTO::getFrom, FreeSlotDTO::getTo)
+                .containsExactly(
+                        tuple(DAY.atTime(9, 0), SIX_PM),
+                        tuple(DAY.atTime(21, 20), DAY.plusDays(1).atStartOfDay()));
+    }
+}
@@ -0,0 +1,253 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.entity.MovieReview;
+import com.deloitte.absolute_cinema.exception.ServiceUnavailableException;
+import com.deloitte.absolute_cinema.repository.MovieReviewRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs {@link MovieReviewCache} through a real {@link OmdbClient} against a stand-in OMDb server
+ * on a local port, with movie_reviews in in-memory H2. The server answers "Title" with the number
+ * of requests it has had, "Unknown" as a title OMDb does not know and "Broken" with a 500, and
+ * holds every answer while {@link #held} is closed.
+ */
+class MovieReviewCacheTest {
+    private static final long MOVIE_ID = 7L;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile CountDownLatch held = new CountDownLatch(0);
+
+    private JdbcTemplate jdbcTemplate;
+    private final Queue<String> storeThreads = new ConcurrentLinkedQueue<>();
+    private ThreadPoolTaskExecutor reviewStoreExecutor;
+    private OmdbClient omdbClient;
+
+    @BeforeEach
+    void startOmdb() throws IOException {
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::answer);
+        server.start();
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:reviews" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        // Records which thread writes movie_reviews
+        jdbcTemplate = new JdbcTemplate(dataSource) {
+            @Override
+            public int update(String sql, Object... args) {
+                int updated = super.update(sql, args);
+                storeThreads.add(Thread.currentThread().getName());
+                return updated;
+            }
+        };
+        jdbcTemplate.execute("CREATE TABLE movie_reviews (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "movie_id BIGINT NOT NULL UNIQUE, title VARCHAR(255) NOT NULL, review_json TEXT, " +
+                "last_updated TIMESTAMP(6) NOT NULL)");
+
+        reviewStoreExecutor = new ThreadPoolTaskExecutor();
+        reviewStoreExecutor.setCorePoolSize(1);
+        reviewStoreExecutor.setThreadNamePrefix("review-store-");
+        reviewStoreExecutor.initialize();
+
+        omdbClient = new OmdbClient("http://localhost:" + server.getAddress().getPort() + "/", "key",
+                1000, 5000, 10, 100, 1000, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void stopOmdb() {
+        held.countDown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        omdbClient.shutdown();
+        reviewStoreExecutor.shutdown();
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        int request = requests.incrementAndGet();
+        try {
+            held.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        String title = UriComponentsBuilder.fromUri(exchange.getRequestURI()).build().getQueryParams().getFirst("t");
+        int status = 200;
+        String body;
+        if ("Broken".equals(title)) {
+            status = 500;
+            body = "{}";
+        } else if ("Unknown".equals(title)) {
+            body = "{\"Response\":\"False\",\"Error\":\"Movie not found!\"}";
+        } else {
+            body = "{\"Response\":\"True\",\"Title\":\"" + title + "\",\"Request\":" + request + "}";
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private MovieReviewCache cache(long ttlHours, long negativeTtlMinutes) {
+        return new MovieReviewCache(mock(MovieReviewRepository.class), jdbcTemplate, omdbClient, new ObjectMapper(),
+                reviewStoreExecutor, ttlHours, negativeTtlMinutes, 100);
+    }
+
+    private static Map<String, Object> get(CompletableFuture<Map<String, Object>> review) throws Exception {
+        return review.get(10, TimeUnit.SECONDS);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition met within 10 s").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void concurrentMissesShareOneOmdbCall() throws Exception {
+        MovieReviewCache cache = cache(24, 60);
+        held = new CountDownLatch(1);
+        List<CompletableFuture<Map<String, Object>>> reviews = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            reviews.add(cache.getReview(MOVIE_ID, "Heat"));
+        }
+        await(() -> requests.get() == 1);
+        held.countDown();
+
+        for (CompletableFuture<Map<String, Object>> review : reviews) {
+            assertThat(get(review)).containsEntry("Title", "Heat").containsEntry("Request", 1);
+        }
+        assertThat(requests).hasValue(1);
+        // Later reads are served from memory
+        assertThat(get(cache.getReview(MOVIE_ID, " heat "))).containsEntry("Request", 1);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void fetchedReviewIsStoredOffTheOmdbThreads() throws Exception {
+        MovieReviewCache cache = cache(24, 60);
+        get(cache.getReview(MOVIE_ID, "Heat"));
+
+        await(() -> !storeThreads.isEmpty());
+        assertThat(storeThreads).allSatisfy(thread -> assertThat(thread).startsWith("review-store-"));
+        assertThat(jdbcTemplate.queryForObject("SELECT title FROM movie_reviews WHERE movie_id = ?",
+                String.class, MOVIE_ID)).isEqualTo("Heat");
+    }
+
+    @Test
+    void storeUpdatesTheMoviesOwnRowWhenAnotherMovieHasTheTitle() throws Exception {
+        jdbcTemplate.update("INSERT INTO movie_reviews (movie_id, title, review_json, last_updated) " +
+                "VALUES (1, 'Heat', '{}', CURRENT_TIMESTAMP), (?, 'Heat (1986)', '{}', CURRENT_TIMESTAMP)", MOVIE_ID);
+        storeThreads.clear();
+        MovieReviewCache cache = cache(24, 60);
+        get(cache.getReview(MOVIE_ID, "Heat"));
+
+        await(() -> !storeThreads.isEmpty());
+        assertThat(jdbcTemplate.queryForList("SELECT movie_id FROM movie_reviews ORDER BY movie_id", Long.class))
+                .containsExactly(1L, MOVIE_ID);
+        assertThat(jdbcTemplate.queryForObject("SELECT review_json FROM movie_reviews WHERE movie_id = 1",
+                String.class)).isEqualTo("{}");
+        assertThat(jdbcTemplate.queryForObject("SELECT title FROM movie_reviews WHERE movie_id = ?",
+                String.class, MOVIE_ID)).isEqualTo("Heat");
+    }
+
+    @Test
+    void unknownTitleIsRememberedForTheNegativeTtl() throws Exception {
+        MovieReviewCache cache = cache(24, 60);
+        assertThat(get(cache.getReview(MOVIE_ID, "Unknown"))).isEmpty();
+        assertThat(get(cache.getReview(MOVIE_ID, "Unknown"))).isEmpty();
+
+        assertThat(requests).hasValue(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM movie_reviews", Integer.class)).isZero();
+    }
+
+    @Test
+    void unknownTitleIsAskedAgainOnceTheNegativeTtlHasPassed() throws Exception {
+        MovieReviewCache cache = cache(24, 0);
+        assertThat(get(cache.getReview(MOVIE_ID, "Unknown"))).isEmpty();
+        assertThat(get(cache.getReview(MOVIE_ID, "Unknown"))).isEmpty();
+
+        await(() -> requests.get() == 2);
+    }
+
+    @Test
+    void staleReviewIsServedWhileOneRefreshReplacesIt() throws Exception {
+        MovieReview stored = new MovieReview();
+        stored.setMovieId(MOVIE_ID);
+        stored.setTitle("Heat");
+        stored.setReviewJson("{\"Response\":\"True\",\"Title\":\"Heat\",\"Request\":0}");
+        stored.setLastUpdated(LocalDateTime.now().minusDays(2));
+        MovieReviewRepository reviewRepository = mock(MovieReviewRepository.class);
+        when(reviewRepository.findFirstByTitleOrderByLastUpdatedDesc("Heat")).thenReturn(Optional.of(stored));
+        MovieReviewCache cache = new MovieReviewCache(reviewRepository, jdbcTemplate, omdbClient, new ObjectMapper(),
+                reviewStoreExecutor, 24, 60, 100);
+
+        held = new CountDownLatch(1);
+        for (int i = 0; i < 5; i++) {
+            // Answered at once from the stale review although OMDb is holding the refresh
+            assertThat(get(cache.getReview(MOVIE_ID, "Heat"))).containsEntry("Request", 0);
+        }
+        await(() -> requests.get() == 1);
+        held.countDown();
+
+        await(() -> {
+            try {
+                return Integer.valueOf(1).equals(get(cache.getReview(MOVIE_ID, "Heat")).get("Request"));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // One refresh for all five reads, and none once the review is fresh
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void unreachableOmdbFailsWithoutCachingTheFailure() {
+        MovieReviewCache cache = cache(24, 60);
+        for (int i = 1; i <= 2; i++) {
+            assertThatThrownBy(() -> get(cache.getReview(MOVIE_ID, "Broken")))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(ServiceUnavailableException.class);
+            assertThat(requests).hasValue(i);
+        }
+    }
+}
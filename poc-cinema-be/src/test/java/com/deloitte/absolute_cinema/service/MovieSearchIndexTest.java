@@ -0,0 +1,179 @@
+package com.deloitte.absolute_cinema.service;
+
+import com.deloitte.absolute_cinema.dto.MovieDTO;
+import com.deloitte.absolute_cinema.dto.MovieSuggestionDTO;
+import com.deloitte.absolute_cinema.entity.Movie;
+import com.deloitte.absolute_cinema.event.MovieChangedEvent;
+import com.deloitte.absolute_cinema.repository.MovieRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MovieSearchIndexTest {
+    private MovieRepository movieRepository;
+    private MovieSearchIndex index;
+
+    @BeforeEach
+    void buildCatalog() {
+        movieRepository = mock(MovieRepository.class);
+        when(movieRepository.findAll()).thenReturn(List.of(
+                movie(1L, "The Dark Knight", "Christopher Nolan", "Action", "Batman faces the Joker"),
+                movie(2L, "Amélie", "Jean-Pierre Jeunet", "Romance", "A shy waitress in Paris"),
+                movie(3L, "Dark City", "Alex Proyas", "Sci-Fi", "A man wakes with no memory"),
+                movie(4L, "Knight and Day", "James Mangold", "Action", "A spy comedy"),
+                movie(5L, "Batman Begins", "Christopher Nolan", "Action", "The origin of the dark knight")));
+        index = new MovieSearchIndex(movieRepository, mock(PosterStore.class), new SimpleMeterRegistry());
+    }
+
+    private static Movie movie(Long id, String title, String director, String genre, String description) {
+        return Movie.builder().id(id).title(title).director(director).genre(genre).description(description).build();
+    }
+
+    private List<Long> search(String query) {
+        return index.search(query, 10).stream().map(MovieDTO::getId).toList();
+    }
+
+    private List<String> suggest(String prefix) {
+        return index.suggest(prefix, 10).stream().map(MovieSuggestionDTO::getTitle).toList();
+    }
+
+    @Test
+    void titleMatchesRankAheadOfDescriptionMatches() {
+        assertThat(search("dark")).containsExactly(1L, 3L, 5L);
+        assertThat(search("nolan")).containsExactly(1L, 5L);
+    }
+
+    @Test
+    void everyTokenMustMatchAndTheLastOneAsAPrefix() {
+        assertThat(search("dark kni")).containsExactly(1L, 5L);
+        assertThat(search("dark knight begins")).containsExactly(5L);
+        assertThat(search("kni dark")).isEmpty();
+        assertThat(search("  ")).isEmpty();
+    }
+
+    @Test
+    void matchingIgnoresCaseAndAccents() {
+        assertThat(search("AMELIE")).containsExactly(2L);
+        assertThat(search("jean pierre")).containsExactly(2L);
+        assertThat(suggest("amé")).containsExactly("Amélie");
+        assertThat(suggest("AME")).containsExactly("Amélie");
+    }
+
+    @Test
+    void suggestionsStartingTheTitleComeFirst() {
+        assertThat(suggest("kni")).containsExactly("Knight and Day", "The Dark Knight");
+        assertThat(suggest("dark")).containsExactly("Dark City", "The Dark Knight");
+        assertThat(suggest("dark k")).containsExactly("The Dark Knight");
+        assertThat(suggest("xyz")).isEmpty();
+        assertThat(index.suggest("d", 1)).hasSize(1);
+    }
+
+    @Test
+    void writesUpdateOnlyTheChangedMovie() {
+        assertThat(search("dark")).containsExactly(1L, 3L, 5L);
+
+        index.onMovieChanged(new MovieChangedEvent(
+                movie(3L, "Light City", "Alex Proyas", "Sci-Fi", "A man wakes with no memory"), false));
+        index.onMovieChanged(new MovieChangedEvent(
+                movie(6L, "Dark Waters", "Todd Haynes", "Drama", "A lawyer takes on a chemical company"), false));
+
+        assertThat(search("dark")).containsExactly(1L, 6L, 5L);
+        assertThat(search("light")).containsExactly(3L);
+        assertThat(search("proyas")).containsExactly(3L);
+        assertThat(suggest("dark")).containsExactly("Dark Waters", "The Dark Knight");
+        assertThat(suggest("light c")).containsExactly("Light City");
+        // Built once from the repository, then kept up to date by the events
+        verify(movieRepository, times(1)).findAll();
+    }
+
+    @Test
+    void removedMovieLeavesNoPostingsOrSuggestions() {
+        assertThat(search("knight")).containsExactly(1L, 4L, 5L);
+
+        index.onMovieChanged(new MovieChangedEvent(movie(1L, "The Dark Knight", null, null, null), true));
+
+        assertThat(search("knight")).containsExactly(4L, 5L);
+        assertThat(search("joker")).isEmpty();
+        assertThat(suggest("the dark")).isEmpty();
+        assertThat(suggest("kni")).containsExactly("Knight and Day");
+    }
+
+    @Test
+    void eventsBeforeTheFirstQueryAreLeftToTheBuild() {
+        index.onMovieChanged(new MovieChangedEvent(movie(9L, "Heat", null, null, null), false));
+
+        // Not in the repository's committed state, so not indexed
+        assertThat(search("heat")).isEmpty();
+    }
+
+    /*
+     * At least 10k queries a second on one thread once the JIT has warmed up, over a 5,000 movie
+     * catalog drawn from a 2,000 word vocabulary, with queries typed the way the search box sends
+     * them: one to three words of a movie, the last one cut short.
+     */
+    @Test
+    void servesTenThousandQueriesPerSecond() {
+        Random random = new Random(42);
+        String[] vocabulary = new String[2_000];
+        for (int i = 0; i < vocabulary.length; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 4 + random.nextInt(5); word.length() < length; ) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+        }
+        List<Movie> catalog = new ArrayList<>();
+        for (long id = 1; id <= 5_000; id++) {
+            catalog.add(movie(id, words(random, vocabulary, 1 + random.nextInt(4)), "Director " + random.nextInt(500),
+                    "Genre " + random.nextInt(15), words(random, vocabulary, 10)));
+        }
+        when(movieRepository.findAll()).thenReturn(catalog);
+        MovieSearchIndex large = new MovieSearchIndex(movieRepository, mock(PosterStore.class), new SimpleMeterRegistry());
+
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            Movie movie = catalog.get(random.nextInt(catalog.size()));
+            String[] words = (movie.getTitle() + " " + movie.getDescription()).split(" ");
+            int start = random.nextInt(words.length);
+            int end = Math.min(words.length, start + 1 + random.nextInt(3));
+            String last = words[end - 1];
+            words[end - 1] = last.substring(0, 2 + random.nextInt(last.length() - 1));
+            queries.add(String.join(" ", Arrays.copyOfRange(words, start, end)));
+        }
+        runQueries(large, queries, 20_000);
+        long start = System.nanoTime();
+        int count = 50_000;
+        runQueries(large, queries, count);
+        double perSecond = count / ((System.nanoTime() - start) / 1e9);
+
+        assertThat(perSecond).as("queries per second").isGreaterThanOrEqualTo(10_000);
+    }
+
+    private static String words(Random random, String[] vocabulary, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(i == 0 ? "" : " ").append(vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return text.toString();
+    }
+
+    private static void runQueries(MovieSearchIndex index, List<String> queries, int count) {
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            String query = queries.get(i % queries.size());
+            found += i % 2 == 0 ? index.search(query, 10).size() : index.suggest(query, 10).size();
+        }
+        assertThat(found).isPositive();
+    }
+}
@@ -0,0 +1,152 @@
+package com.deloitte.absolute_cinema.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntHashMapTest {
+    // new LongIntHashMap(8) starts with 16 slots
+    private static final int MASK = 15;
+
+    // Same mixing as LongIntHashMap.slot, to pick keys that collide
+    private static int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & MASK;
+    }
+
+    private static List<Long> keysWithHome(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if (home(key) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static Map<Long, Integer> entries(LongIntHashMap map) {
+        Map<Long, Integer> entries = new HashMap<>();
+        map.forEach(entries::put);
+        return entries;
+    }
+
+    @Test
+    void addToCountsAndRemovesAtZero() {
+        LongIntHashMap map = new LongIntHashMap();
+        assertThat(map.addTo(42L, 2)).isEqualTo(2);
+        assertThat(map.addTo(42L, 3)).isEqualTo(5);
+        assertThat(map.addTo(-7L, 1)).isEqualTo(1);
+        assertThat(map.get(42L)).isEqualTo(5);
+        assertThat(map.size()).isEqualTo(2);
+
+        assertThat(map.addTo(42L, -5)).isZero();
+        assertThat(map.get(42L)).isZero();
+        assertThat(map.size()).isEqualTo(1);
+        // A zero delta never inserts
+        assertThat(map.addTo(9L, 0)).isZero();
+        assertThat(map.size()).isEqualTo(1);
+
+        map.clear();
+        assertThat(map.isEmpty()).isTrue();
+        assertThat(map.get(-7L)).isZero();
+    }
+
+    @Test
+    void zeroKeyIsAnOrdinaryKey() {
+        LongIntHashMap map = new LongIntHashMap();
+        map.addTo(0L, 4);
+
+        assertThat(map.get(0L)).isEqualTo(4);
+        assertThat(entries(map)).containsExactly(Map.entry(0L, 4));
+    }
+
+    @Test
+    void deleteShiftsBackTheKeysThatWrappedAroundTheTable() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        List<Long> last = keysWithHome(MASK, 3);
+        long first = keysWithHome(0, 1).get(0);
+        // Homed at the last slot: 15, then wrapped to 0 and 1; the key homed at 0 ends up in 2
+        for (int i = 0; i < last.size(); i++) {
+            map.addTo(last.get(i), i + 1);
+        }
+        map.addTo(first, 10);
+
+        map.addTo(last.get(0), -1);
+
+        assertThat(map.get(last.get(0))).isZero();
+        assertThat(map.get(last.get(1))).isEqualTo(2);
+        assertThat(map.get(last.get(2))).isEqualTo(3);
+        assertThat(map.get(first)).isEqualTo(10);
+        assertThat(map.size()).isEqualTo(3);
+
+        // Deleting from the middle of the wrapped run keeps the rest reachable too
+        map.addTo(last.get(2), -3);
+        assertThat(map.get(last.get(1))).isEqualTo(2);
+        assertThat(map.get(first)).isEqualTo(10);
+        assertThat(entries(map)).containsOnly(Map.entry(last.get(1), 2), Map.entry(first, 10));
+    }
+
+    @Test
+    void deleteLeavesKeysThatSitAtTheirHome() {
+        LongIntHashMap map = new LongIntHashMap(8);
+        List<Long> atThree = keysWithHome(3, 2);
+        long atFour = keysWithHome(4, 1).get(0);
+        // Slots 3, 4, 5 hold a key homed at 3, the key homed at 4 and the second key homed at 3
+        map.addTo(atThree.get(0), 1);
+        map.addTo(atFour, 2);
+        map.addTo(atThree.get(1), 3);
+
+        map.addTo(atThree.get(0), -1);
+
+        assertThat(map.get(atFour)).isEqualTo(2);
+        assertThat(map.get(atThree.get(1))).isEqualTo(3);
+        assertThat(map.size()).isEqualTo(2);
+    }
+
+    @Test
+    void resizeKeepsEveryCount() {
+        LongIntHashMap map = new LongIntHashMap();
+        for (long key = 0; key < 10_000; key++) {
+            map.addTo(key * 31, (int) key + 1);
+        }
+
+        assertThat(map.size()).isEqualTo(10_000);
+        for (long key = 0; key < 10_000; key++) {
+            assertThat(map.get(key * 31)).isEqualTo((int) key + 1);
+        }
+        for (long key = 0; key < 10_000; key += 2) {
+            map.addTo(key * 31, -((int) key + 1));
+        }
+        assertThat(map.size()).isEqualTo(5_000);
+        assertThat(entries(map)).hasSize(5_000).allSatisfy((key, value) -> {
+            assertThat(key / 31 % 2).isOne();
+            assertThat(value).isEqualTo((int) (key / 31) + 1);
+        });
+    }
+
+    @Test
+    void behavesLikeAHashMapUnderRandomCountsAndDeletes() {
+        Random random = new Random(7);
+        LongIntHashMap map = new LongIntHashMap(8);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // Few keys, so collisions, deletes and growth all happen often
+            long key = random.nextInt(64) - 32;
+            int delta = expected.containsKey(key) && random.nextBoolean() ? -expected.get(key) : random.nextInt(5) - 2;
+            int count = expected.merge(key, delta, Integer::sum);
+            if (count == 0) {
+                expected.remove(key);
+            }
+
+            assertThat(map.addTo(key, delta)).isEqualTo(count);
+        }
+        assertThat(map.size()).isEqualTo(expected.size());
+        assertThat(entries(map)).isEqualTo(expected);
+    }
+}
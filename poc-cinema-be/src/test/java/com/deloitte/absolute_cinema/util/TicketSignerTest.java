@@ -0,0 +1,87 @@
+package com.deloitte.absolute_cinema.util;
+
+import com.deloitte.absolute_cinema.util.TicketSigner.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TicketSignerTest {
+    private static final String PREFIX = "AC1.";
+
+    private final TicketSigner signer = new TicketSigner("gate-secret");
+
+    private static Ticket ticket(int... seats) {
+        return new Ticket(42L, 7L, 29_000_000, 29_000_180, seats);
+    }
+
+    private static byte[] decode(String token) {
+        return Base64.getUrlDecoder().decode(token.substring(PREFIX.length()));
+    }
+
+    private static String encode(byte[] bytes) {
+        return PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    @Test
+    void verifyReturnsTheSignedTicket() {
+        String token = signer.sign(ticket(0, 12, 0xFFFF));
+
+        assertThat(token).startsWith(PREFIX);
+        assertThat(signer.verify(token)).hasValueSatisfying(ticket -> {
+            assertThat(ticket.getBookingId()).isEqualTo(42L);
+            assertThat(ticket.getShowtimeId()).isEqualTo(7L);
+            assertThat(ticket.getValidFromMinute()).isEqualTo(29_000_000);
+            assertThat(ticket.getValidUntilMinute()).isEqualTo(29_000_180);
+            assertThat(ticket.getSeats()).containsExactly(0, 12, 0xFFFF);
+        });
+        // Same ticket, same token: the payload carries no randomness
+        assertThat(signer.sign(ticket(0, 12, 0xFFFF))).isEqualTo(token);
+    }
+
+    @Test
+    void anyFlippedBitIsRejected() {
+        byte[] bytes = decode(signer.sign(ticket(3, 4)));
+        for (int i = 0; i < bytes.length; i++) {
+            for (int bit = 0; bit < 8; bit++) {
+                byte[] tampered = bytes.clone();
+                tampered[i] ^= (byte) (1 << bit);
+
+                assertThat(signer.verify(encode(tampered))).as("byte %d bit %d", i, bit).isEmpty();
+            }
+        }
+    }
+
+    @Test
+    void tokenSignedWithAnotherSecretIsRejected() {
+        String token = new TicketSigner("other-secret").sign(ticket(3));
+
+        assertThat(signer.verify(token)).isEmpty();
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        String token = signer.sign(ticket(3, 4));
+        byte[] bytes = decode(token);
+
+        assertThat(signer.verify(null)).isEmpty();
+        assertThat(signer.verify("")).isEmpty();
+        assertThat(signer.verify(token.substring(PREFIX.length()))).isEmpty();
+        assertThat(signer.verify(PREFIX + "not base64!")).isEmpty();
+        assertThat(signer.verify(encode(Arrays.copyOf(bytes, bytes.length - 1)))).isEmpty();
+        assertThat(signer.verify(encode(Arrays.copyOf(bytes, bytes.length + 2)))).isEmpty();
+        assertThat(signer.verify(encode(new byte[10]))).isEmpty();
+    }
+
+    @Test
+    void signRejectsSeatCountsAndIndexesTheLayoutCannotHold() {
+        assertThatThrownBy(() -> signer.sign(ticket())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> signer.sign(ticket(new int[256]))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> signer.sign(ticket(-1))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> signer.sign(ticket(0x10000))).isInstanceOf(IllegalArgumentException.class);
+        assertThat(signer.verify(signer.sign(ticket(new int[255])))).isPresent();
+    }
+}